@@ -159,6 +159,7 @@ CREATE TABLE Slot
   CourseID INT,
   TeacherID VARCHAR(20),
   RoomID CHAR(4),
+  RowVer ROWVERSION, -- bumped on every change, used by timetable sync
   PRIMARY KEY (SlotNumber, CourseID),
   FOREIGN KEY (CourseID) REFERENCES Course(CourseID),
   FOREIGN KEY (TeacherID) REFERENCES Teacher(TeacherID),
@@ -197,10 +198,37 @@ CREATE TABLE [Include]
   FOREIGN KEY (SubjectID) REFERENCES Subject(SubjectID)
 );
 
+-- Hàng đợi email: EmailTemplateService chỉ INSERT, EmailOutboxWorker gửi và cập nhật trạng thái
+CREATE TABLE EmailOutbox
+(
+  OutboxID BIGINT IDENTITY,
+  Recipient NVARCHAR(255) NOT NULL,
+  TemplateName NVARCHAR(100) NOT NULL,
+  Subject NVARCHAR(255) NOT NULL,
+  Variables NVARCHAR(MAX) NOT NULL, -- JSON
+  ImageMap NVARCHAR(MAX), -- JSON: đường dẫn ảnh -> Content-ID
+  AttachmentPaths NVARCHAR(MAX), -- JSON
+  Status VARCHAR(10) NOT NULL DEFAULT 'PENDING', -- PENDING, SENDING, SENT, DEAD
+  Attempts INT NOT NULL DEFAULT 0,
+  NextAttemptAt DATETIME2 NOT NULL DEFAULT SYSUTCDATETIME(),
+  LockedUntil DATETIME2,
+  LastError NVARCHAR(1000),
+  CreatedAt DATETIME2 NOT NULL DEFAULT SYSUTCDATETIME(),
+  SentAt DATETIME2,
+  DedupKey VARCHAR(100), -- cùng key thì không ghi thêm (vd. cùng một bộ cảnh báo của một sinh viên trong một khoảng thời gian)
+  PRIMARY KEY (OutboxID),
+  CHECK (Status IN ('PENDING', 'SENDING', 'SENT', 'DEAD'))
+);
+
+CREATE INDEX IX_EmailOutbox_Due ON EmailOutbox(Status, NextAttemptAt) INCLUDE (LockedUntil);
+-- Email DEAD không chặn lần ghi sau; UNIQUE để hai instance không cùng ghi một key
+CREATE UNIQUE INDEX IX_EmailOutbox_DedupKey ON EmailOutbox(DedupKey) WHERE DedupKey IS NOT NULL AND Status <> 'DEAD';
+
 CREATE TABLE Study
 (
   StudentID CHAR(8) NOT NULL,
   CourseID INT NOT NULL,
+  RowVer ROWVERSION,
   PRIMARY KEY (StudentID, CourseID),
   FOREIGN KEY (StudentID) REFERENCES Student(StudentID),
   FOREIGN KEY (CourseID) REFERENCES Course(CourseID)
@@ -212,6 +240,7 @@ CREATE TABLE Attendent
   StudentID CHAR(8) NOT NULL,
   SlotNumber INT NOT NULL,
   CourseID INT NOT NULL,
+  RowVer ROWVERSION,
   PRIMARY KEY (StudentID, CourseID, SlotNumber),
   FOREIGN KEY (StudentID) REFERENCES Student(StudentID),
   FOREIGN KEY (SlotNumber, CourseID) REFERENCES Slot(SlotNumber, CourseID)
@@ -1,27 +1,34 @@
 package controller.api.auth;
 
 import com.google.api.client.auth.oauth2.AuthorizationCodeFlow;
-import com.google.api.client.auth.oauth2.AuthorizationCodeRequestUrl;
 import com.google.api.client.auth.oauth2.TokenResponse;
 import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
 import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
 import com.google.api.client.http.GenericUrl;
-import com.google.api.client.http.HttpTransport;
-import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.apache.v2.ApacheHttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.client.util.store.MemoryDataStoreFactory;
-import dao.StaffDAO;
-import dao.StudentDAO;
-import dao.TeacherDAO;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import dao.AccountDAO;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import model.datasupport.AccountInfo;
+import org.apache.http.client.config.RequestConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import util.service.security.SessionTokenService;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -29,24 +36,33 @@ import java.io.PrintWriter;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Properties;
-
-import com.google.gson.Gson;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * GoogleAuthServlet for Google OAuth2 login to retrieve user email and full name.
  * Redirects to Google for authentication and stores email and full name in session.
  * Returns JSON responses for compatibility with login.html.
+ * <p>
+ * The callback runs asynchronously: the token exchange and userinfo call are done on a dedicated
+ * executor over a pooled HTTP client, so container threads are not parked on outbound HTTP.
+ * Endpoints can be overridden in oauth.properties to point at a local stub IdP for load tests.
  */
-@WebServlet("/api/google-auth")
+@WebServlet(urlPatterns = "/api/google-auth", asyncSupported = true)
 public class GoogleAuthAPI extends HttpServlet {
     private static final Logger logger = LoggerFactory.getLogger(GoogleAuthAPI.class);
 
-    private static final HttpTransport HTTP_TRANSPORT = new NetHttpTransport();
     private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
     private static final String USERINFO_ENDPOINT = "https://www.googleapis.com/oauth2/v3/userinfo";
 
+    private final AccountDAO accountDAO = new AccountDAO();
     private AuthorizationCodeFlow flow;
     private Gson gson;
+    private ApacheHttpTransport httpTransport;
+    private ThreadPoolExecutor authExecutor;
+    private String userInfoEndpoint;
+    private long callbackTimeoutMs;
 
     @Override
     public void init() throws ServletException {
@@ -63,18 +79,64 @@ public class GoogleAuthAPI extends HttpServlet {
             String clientSecret = props.getProperty("oauth.client_secret");
             String scope = props.getProperty("oauth.google_scope");
 
+            int connectTimeoutMs = Integer.parseInt(props.getProperty("oauth.connect_timeout_ms", "5000"));
+            int readTimeoutMs = Integer.parseInt(props.getProperty("oauth.read_timeout_ms", "10000"));
+            int poolSize = Integer.parseInt(props.getProperty("oauth.http_pool_size", "64"));
+            int executorThreads = Integer.parseInt(props.getProperty("oauth.executor_threads", "32"));
+            int executorQueue = Integer.parseInt(props.getProperty("oauth.executor_queue", "1000"));
+            callbackTimeoutMs = Long.parseLong(props.getProperty("oauth.callback_timeout_ms", "30000"));
+            userInfoEndpoint = props.getProperty("oauth.userinfo_endpoint", USERINFO_ENDPOINT);
+
+            // Pooled, keep-alive HTTP client shared by every callback
+            RequestConfig requestConfig = RequestConfig.custom()
+                    .setConnectTimeout(connectTimeoutMs)
+                    .setConnectionRequestTimeout(connectTimeoutMs)
+                    .setSocketTimeout(readTimeoutMs)
+                    .build();
+            httpTransport = new ApacheHttpTransport(ApacheHttpTransport.newDefaultHttpClientBuilder()
+                    .setMaxConnTotal(poolSize)
+                    .setMaxConnPerRoute(poolSize)
+                    .setDefaultRequestConfig(requestConfig)
+                    .build());
+
+            authExecutor = new ThreadPoolExecutor(executorThreads, executorThreads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(executorQueue), new ThreadFactory() {
+                private final AtomicInteger counter = new AtomicInteger(1);
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "oauth-callback-" + counter.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            authExecutor.allowCoreThreadTimeOut(true);
+
             GoogleClientSecrets.Details web = new GoogleClientSecrets.Details();
             web.setClientId(clientId);
             web.setClientSecret(clientSecret);
             GoogleClientSecrets clientSecrets = new GoogleClientSecrets().setWeb(web);
 
-            flow = new GoogleAuthorizationCodeFlow.Builder(
-                    HTTP_TRANSPORT, JSON_FACTORY, clientSecrets,
+            GoogleAuthorizationCodeFlow.Builder flowBuilder = new GoogleAuthorizationCodeFlow.Builder(
+                    httpTransport, JSON_FACTORY, clientSecrets,
                     Arrays.asList(scope.split(" "))
-            ).setDataStoreFactory(new MemoryDataStoreFactory()).build();
+            ).setDataStoreFactory(new MemoryDataStoreFactory())
+                    .setRequestInitializer(request -> {
+                        request.setConnectTimeout(connectTimeoutMs);
+                        request.setReadTimeout(readTimeoutMs);
+                    });
+            String authEndpoint = props.getProperty("oauth.auth_endpoint");
+            if (authEndpoint != null) {
+                flowBuilder.setAuthorizationServerEncodedUrl(authEndpoint);
+            }
+            String tokenEndpoint = props.getProperty("oauth.token_endpoint");
+            if (tokenEndpoint != null) {
+                flowBuilder.setTokenServerUrl(new GenericUrl(tokenEndpoint));
+            }
+            flow = flowBuilder.build();
 
             gson = new Gson();
-        } catch (IOException e) {
+        } catch (IOException | NumberFormatException e) {
             throw new ServletException("Failed to initialize Google OAuth", e);
         }
     }
@@ -84,46 +146,134 @@ public class GoogleAuthAPI extends HttpServlet {
             throws ServletException, IOException {
 
         response.setContentType("application/json;charset=UTF-8");
-        PrintWriter out = response.getWriter();
 
         String code = request.getParameter("code");
+        String dynamicRedirectUri = buildDynamicRedirectUri(request);
 
         if (code == null) {
             // Step 1: Redirect to Google Auth
-            String dynamicRedirectUri = buildDynamicRedirectUri(request);
             response.sendRedirect(flow.newAuthorizationUrl().setRedirectUri(dynamicRedirectUri).build());
             return;
         }
 
-        try {
-            // Step 2: Process callback
-            String dynamicRedirectUri = buildDynamicRedirectUri(request);
+        // Step 2: Process callback off the container thread
+        HttpSession session = request.getSession();
+        String contextPath = request.getContextPath();
+        boolean secure = request.isSecure();
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(callbackTimeoutMs);
+        AtomicBoolean finished = new AtomicBoolean(false);
 
-            TokenResponse tokenResponse = flow.newTokenRequest(code)
-                    .setRedirectUri(dynamicRedirectUri)
-                    .execute();
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) throws IOException {
+                if (finished.compareAndSet(false, true)) {
+                    logger.warn("Google OAuth callback timed out after {} ms", callbackTimeoutMs);
+                    writeError(response, HttpServletResponse.SC_GATEWAY_TIMEOUT, "Authentication timed out");
+                    asyncContext.complete();
+                }
+            }
 
-            String accessToken = tokenResponse.getAccessToken();
+            @Override
+            public void onError(AsyncEvent event) {
+                finished.set(true);
+                logger.error("Google OAuth async error", event.getThrowable());
+            }
 
-            com.google.api.client.http.HttpRequest userInfoRequest = HTTP_TRANSPORT.createRequestFactory()
-                    .buildGetRequest(new GenericUrl(USERINFO_ENDPOINT));
-            userInfoRequest.getHeaders().setAuthorization("Bearer " + accessToken);
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
 
-            com.google.api.client.http.HttpResponse userInfoResponse = userInfoRequest.execute();
-            String userInfoJson = userInfoResponse.parseAsString();
-            com.google.gson.JsonObject userInfo = gson.fromJson(userInfoJson, com.google.gson.JsonObject.class);
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
 
-            String email = userInfo.get("email").getAsString();
-            String fullName = userInfo.has("name") ? userInfo.get("name").getAsString() : "Unknown";
+        try {
+            authExecutor.execute(() -> {
+                String email = null;
+                String fullName = null;
+                Exception failure = null;
+                try {
+                    JsonObject userInfo = fetchUserInfo(code, dynamicRedirectUri);
+                    email = userInfo.get("email").getAsString();
+                    fullName = userInfo.has("name") ? userInfo.get("name").getAsString() : "Unknown";
+                } catch (Exception e) {
+                    failure = e;
+                }
 
-            handleUserLogin(request.getSession(), email, fullName, response, request.getContextPath());
+                if (!finished.compareAndSet(false, true)) {
+                    return; // đã timeout, response đã được trả
+                }
+                try {
+                    if (failure != null) {
+                        logger.error("Google OAuth error", failure);
+                        writeError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Authentication failed");
+                    } else {
+                        handleUserLogin(session, email, fullName, response, contextPath, secure);
+                    }
+                } catch (Exception e) {
+                    logger.error("Google OAuth error", e);
+                } finally {
+                    asyncContext.complete();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (finished.compareAndSet(false, true)) {
+                logger.warn("Google OAuth callback rejected: executor saturated");
+                writeError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Login service busy, please retry");
+                asyncContext.complete();
+            }
+        }
+    }
 
-        } catch (Exception e) {
-            logger.error("Google OAuth error", e);
-            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            out.write(gson.toJson(Map.of("error", "Authentication failed")));
+    /**
+     * Exchanges the authorization code and fetches the userinfo document. Runs on {@link #authExecutor}.
+     */
+    private JsonObject fetchUserInfo(String code, String redirectUri) throws IOException {
+        TokenResponse tokenResponse = flow.newTokenRequest(code)
+                .setRedirectUri(redirectUri)
+                .execute();
+
+        HttpRequest userInfoRequest = httpTransport.createRequestFactory(flow.getRequestInitializer())
+                .buildGetRequest(new GenericUrl(userInfoEndpoint));
+        userInfoRequest.getHeaders().setAuthorization("Bearer " + tokenResponse.getAccessToken());
+
+        HttpResponse userInfoResponse = userInfoRequest.execute();
+        try {
+            return gson.fromJson(userInfoResponse.parseAsString(), JsonObject.class);
         } finally {
+            userInfoResponse.disconnect();
+        }
+    }
+
+    private void writeError(HttpServletResponse response, int status, String message) {
+        try {
+            response.setStatus(status);
+            response.setContentType("application/json;charset=UTF-8");
+            PrintWriter out = response.getWriter();
+            out.write(gson.toJson(Map.of("error", message)));
             out.flush();
+        } catch (IOException | IllegalStateException e) {
+            logger.warn("Could not write OAuth error response: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        authExecutor.shutdown();
+        try {
+            if (!authExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                authExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            authExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        try {
+            httpTransport.shutdown();
+        } catch (IOException e) {
+            logger.warn("Error shutting down OAuth HTTP transport", e);
         }
     }
 
@@ -135,24 +285,39 @@ public class GoogleAuthAPI extends HttpServlet {
                 "/api/google-auth";
     }
 
-    private void handleUserLogin(HttpSession session, String email, String fullName, HttpServletResponse response, String contextPath) throws IOException {
-        StudentDAO studentDAO = new StudentDAO();
-        TeacherDAO teacherDAO = new TeacherDAO();
-        StaffDAO staffDAO = new StaffDAO();
-
-        if (staffDAO.getStaffByEmail(email) != null) {
-            setupSession(session, email, fullName, "staff");
-            response.sendRedirect(contextPath + "/staff/home");
-        } else if (studentDAO.getStudentByEmail(email) != null) {
-            setupSession(session, email, fullName, "student");
-            response.sendRedirect(contextPath + "/student/home");
-        } else if (teacherDAO.getTeacherByEmail(email) != null) {
-            setupSession(session, email, fullName, "teacher");
-            response.sendRedirect(contextPath + "/teacher/home");
-        } else {
+    private void handleUserLogin(HttpSession session, String email, String fullName, HttpServletResponse response,
+                                 String contextPath, boolean secure) throws IOException {
+        AccountInfo account = accountDAO.findByEmail(email);
+
+        if (account == null) {
             logger.warn("Unauthorized email tried login: {}", email);
             response.sendRedirect(contextPath + "/");
+            return;
+        }
+
+        setupSession(session, email, fullName, account.getRole());
+        session.setAttribute("account_id", account.getAccountId());
+        issueStatelessToken(response, account, email, contextPath, secure);
+        response.sendRedirect(contextPath + "/" + account.getRole() + "/home");
+    }
+
+    /**
+     * Khi bật chế độ stateless, phát hành thêm cookie ký HMAC để node khác xác thực mà không cần session.
+     */
+    private void issueStatelessToken(HttpServletResponse response, AccountInfo account, String email,
+                                     String contextPath, boolean secure) {
+        SessionTokenService tokenService = SessionTokenService.getInstance();
+        if (!tokenService.isEnabled()) {
+            return;
         }
+        Cookie cookie = new Cookie(SessionTokenService.COOKIE_NAME,
+                tokenService.issue(account.getAccountId(), email, account.getRole()));
+        cookie.setHttpOnly(true);
+        cookie.setSecure(secure);
+        cookie.setPath(contextPath.isEmpty() ? "/" : contextPath);
+        cookie.setMaxAge((int) tokenService.getTtlSeconds());
+        cookie.setAttribute("SameSite", "Lax");
+        response.addCookie(cookie);
     }
 
     private void setupSession(HttpSession session, String email, String fullName, String role) {
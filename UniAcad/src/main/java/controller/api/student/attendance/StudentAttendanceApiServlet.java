@@ -28,7 +28,7 @@ public class StudentAttendanceApiServlet extends HttpServlet {
         response.setContentType("application/json");
 
         StudentDAO studentDAO = new StudentDAO();
-        String email = (String) request.getSession().getAttribute("email");
+        String email = (String) request.getAttribute("email"); // RoleFilter đặt, session hoặc cookie stateless
 
         if (email == null) {
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -41,7 +41,7 @@ public class StudentProfileApiServlet extends HttpServlet {
         response.setContentType("application/json");
 
         try {
-            String studentEmail = (String) request.getSession().getAttribute("email");
+            String studentEmail = (String) request.getAttribute("email"); // RoleFilter đặt, session hoặc cookie stateless
 
             if (studentEmail == null) {
                 sendError(response, HttpServletResponse.SC_UNAUTHORIZED, "Unauthorized: Please login first.");
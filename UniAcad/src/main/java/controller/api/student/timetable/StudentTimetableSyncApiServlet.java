@@ -0,0 +1,80 @@
+package controller.api.student.timetable;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import dao.ScheduleDAO;
+import dao.StudentDAO;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import model.database.Student;
+import model.datasupport.TimetableSync;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * Đồng bộ thời khóa biểu cả học kỳ.
+ * Lần đầu gọi không có token → trả về toàn bộ slot của học kỳ kèm syncToken.
+ * Các lần sau gửi lại ?token=... → chỉ trả về slot/điểm danh thay đổi kể từ token đó.
+ */
+@WebServlet(name = "StudentTimetableSyncApiServlet", urlPatterns = {"/api/student/timetable/sync"})
+public class StudentTimetableSyncApiServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(StudentTimetableSyncApiServlet.class);
+
+    private final ScheduleDAO scheduleDAO = new ScheduleDAO();
+    private final Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss").create();
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        response.setContentType("application/json");
+
+        String email = (String) request.getAttribute("email"); // RoleFilter đặt, session hoặc cookie stateless
+        if (email == null) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.getWriter().write("{\"error\": -1, \"message\": \"Unauthorized: Please login first\"}");
+            return;
+        }
+
+        Student student = new StudentDAO().getStudentByEmail(email);
+        if (student == null) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.getWriter().write("{\"error\": -1, \"message\": \"Student not found\"}");
+            return;
+        }
+
+        String termId = request.getParameter("term");
+        if (termId != null && termId.isBlank()) {
+            termId = null;
+        }
+
+        // Token dạng "<studentId>:<termId>:<rowversion>:<dấu vân tay>"; token của sinh viên/học kỳ khác → đồng bộ lại toàn bộ
+        String sinceToken = null;
+        String tokenPrefix = student.getStudentID() + ":" + (termId != null ? termId : "") + ":";
+        String token = request.getParameter("token");
+        if (token != null && token.startsWith(tokenPrefix)) {
+            sinceToken = token.substring(tokenPrefix.length());
+        }
+
+        try {
+            TimetableSync sync = scheduleDAO.syncTermSchedule(student.getStudentID(), termId, sinceToken);
+            sync.setSyncToken(tokenPrefix + sync.getSyncToken());
+            logger.debug("Timetable sync for {}: full={}, {} items", student.getStudentID(), sync.isFull(), sync.getItems().size());
+
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.getWriter().write(gson.toJson(sync));
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.getWriter().write("{\"error\": -1, \"message\": \"Invalid sync token\"}");
+        } catch (SQLException e) {
+            logger.error("Error syncing timetable for {}", student.getStudentID(), e);
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            response.getWriter().write("{\"error\": -1, \"message\": \"Server error\"}");
+        }
+    }
+}
@@ -31,7 +31,7 @@ public class StudentWeeklyTimetableApiServlet extends HttpServlet {
 
         try {
             StudentDAO studentDAO = new StudentDAO();
-            String email = (String) request.getSession().getAttribute("email");
+            String email = (String) request.getAttribute("email"); // RoleFilter đặt, session hoặc cookie stateless
 
             if (email == null) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -0,0 +1,274 @@
+package controller.filter;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Response wrapper nén gzip "lười": chỉ giữ tối đa {@code threshold} byte đầu tiên để quyết định.
+ * Nhỏ hơn ngưỡng → ghi thẳng không nén; vượt ngưỡng → bật gzip và stream phần còn lại,
+ * không bao giờ buffer cả response. flush() dùng SYNC_FLUSH nên endpoint stream vẫn đẩy dữ liệu ngay.
+ * Khi nén, ETag sẵn có (vd. của file tĩnh được forward tới) được thêm hậu tố -gzip để khác với bản gốc.
+ */
+class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+    private final HttpServletResponse response;
+    private final int threshold;
+    private final byte[] pending;
+    private int pendingCount;
+
+    private OutputStream target;      // null khi chưa quyết định
+    private boolean passThrough;      // true nếu response không nên nén
+    private long declaredLength = -1;
+    private boolean finishing;        // flush từ finish() không được tính là endpoint stream
+    private ServletOutputStream nonBlockingStream; // stream gốc khi đã đăng ký WriteListener
+
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    CompressingResponseWrapper(HttpServletResponse response, int threshold) {
+        super(response);
+        this.response = response;
+        this.threshold = threshold;
+        this.pending = new byte[threshold];
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        // Độ dài khai báo là của dữ liệu chưa nén; chỉ chuyển xuống nếu cuối cùng không nén
+        declaredLength = len;
+        if (passThrough) {
+            response.setContentLengthLong(len);
+        } else if (len >= 0 && len < threshold) {
+            passThrough = true;
+            response.setContentLengthLong(len);
+        }
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if ("Content-Length".equalsIgnoreCase(name)) {
+            setContentLengthLong(Long.parseLong(value));
+            return;
+        }
+        super.setHeader(name, value);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if ("Content-Length".equalsIgnoreCase(name)) {
+            setContentLengthLong(Long.parseLong(value));
+            return;
+        }
+        super.addHeader(name, value);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() has already been called");
+        }
+        if (outputStream == null) {
+            outputStream = new CompressingOutputStream();
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (outputStream != null && writer == null) {
+            throw new IllegalStateException("getOutputStream() has already been called");
+        }
+        if (writer == null) {
+            // Giữ nguyên hành vi của getWriter() gốc: charset được ghi vào Content-Type
+            response.setCharacterEncoding(getCharacterEncoding());
+            outputStream = new CompressingOutputStream();
+            writer = new PrintWriter(new OutputStreamWriter(outputStream, Charset.forName(getCharacterEncoding())));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        } else if (outputStream != null) {
+            outputStream.flush();
+        }
+        super.flushBuffer();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        resetState();
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        if (target == null) {
+            pendingCount = 0;
+        }
+    }
+
+    private void resetState() {
+        pendingCount = 0;
+        target = null;
+        passThrough = false;
+        declaredLength = -1;
+        finishing = false;
+        nonBlockingStream = null;
+        outputStream = null;
+        writer = null;
+    }
+
+    /**
+     * Được filter gọi sau khi chain chạy xong: ghi nốt phần đang giữ và đóng luồng gzip.
+     */
+    void finish() throws IOException {
+        if (writer != null) {
+            finishing = true;
+            writer.flush();
+        }
+        if (target == null) {
+            if (pendingCount == 0) {
+                return;
+            }
+            // Toàn bộ body nhỏ hơn ngưỡng → ghi nguyên bản
+            if (declaredLength < 0 && !response.isCommitted()) {
+                response.setContentLength(pendingCount);
+            }
+            response.getOutputStream().write(pending, 0, pendingCount);
+            pendingCount = 0;
+            return;
+        }
+        if (target instanceof GZIPOutputStream gzip) {
+            gzip.finish();
+        }
+        target.flush();
+    }
+
+    private void decide() throws IOException {
+        if (!passThrough && isCompressible()) {
+            response.setHeader("Content-Encoding", "gzip");
+            response.addHeader("Vary", "Accept-Encoding");
+            String etag = response.getHeader("ETag");
+            if (etag != null) {
+                response.setHeader("ETag", gzipEtag(etag));
+            }
+            target = new GZIPOutputStream(response.getOutputStream(), 8192, true);
+        } else {
+            if (declaredLength >= 0 && !response.isCommitted()) {
+                response.setContentLengthLong(declaredLength);
+            }
+            target = response.getOutputStream();
+        }
+        if (pendingCount > 0) {
+            target.write(pending, 0, pendingCount);
+            pendingCount = 0;
+        }
+    }
+
+    /**
+     * ETag của bản nén gzip: {@code "abc"} → {@code "abc-gzip"}, giữ tiền tố W/ nếu có.
+     */
+    static String gzipEtag(String etag) {
+        if (etag.endsWith("-gzip\"")) {
+            return etag;
+        }
+        return etag.endsWith("\"") ? etag.substring(0, etag.length() - 1) + "-gzip\"" : etag + "-gzip";
+    }
+
+    private boolean isCompressible() {
+        if (response.isCommitted() || response.containsHeader("Content-Encoding")) {
+            return false;
+        }
+        int status = response.getStatus();
+        if (status == SC_NO_CONTENT || status == SC_NOT_MODIFIED || status == SC_PARTIAL_CONTENT) {
+            return false;
+        }
+        return CompressionFilter.isCompressibleType(response.getContentType());
+    }
+
+    private class CompressingOutputStream extends ServletOutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            if (target == null) {
+                if (pendingCount < pending.length) {
+                    pending[pendingCount++] = (byte) b;
+                    return;
+                }
+                decide();
+            }
+            target.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (target == null) {
+                if (pendingCount + len <= pending.length) {
+                    System.arraycopy(b, off, pending, pendingCount, len);
+                    pendingCount += len;
+                    return;
+                }
+                decide();
+            }
+            target.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // Flush trước khi đủ ngưỡng: body nhỏ hoặc endpoint cần đẩy dữ liệu ngay → không nén
+            if (finishing && target == null) {
+                return;
+            }
+            if (target == null && pendingCount > 0) {
+                passThrough = true;
+                decide();
+            }
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        @Override
+        public boolean isReady() {
+            return nonBlockingStream == null || nonBlockingStream.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            // Non-blocking I/O: không nén, chuyển phần đã giữ và mọi lần ghi sau thẳng xuống stream gốc
+            try {
+                if (target == null) {
+                    passThrough = true;
+                    decide();
+                }
+                nonBlockingStream = response.getOutputStream();
+                nonBlockingStream.setWriteListener(writeListener);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not switch response to non-blocking output", e);
+            }
+        }
+    }
+}
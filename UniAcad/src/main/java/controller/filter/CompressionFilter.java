@@ -0,0 +1,110 @@
+package controller.filter;
+
+import jakarta.servlet.*;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.annotation.WebInitParam;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Nén gzip các response động (JSON API, trang forward) khi vượt ngưỡng, stream trực tiếp, không buffer cả body.
+ * File tĩnh đã được {@link StaticAssetFilter} trả bản nén sẵn (gzip hoặc Brotli) nên không đi qua đây.
+ * JVM không có encoder Brotli nên response động chỉ dùng gzip.
+ * Endpoint hoàn tất response trên thread khác (AsyncContext) phải nằm trong {@code asyncPaths}: wrapper không
+ * thread-safe và filter không thể ghi nốt gzip sau khi request async kết thúc.
+ */
+@WebFilter(filterName = "CompressionFilter", urlPatterns = {"/*"}, asyncSupported = true,
+        initParams = {
+                @WebInitParam(name = "threshold", value = "1024"),
+                @WebInitParam(name = "asyncPaths", value = "/api/google-auth")
+        })
+public class CompressionFilter implements Filter {
+    private static final Logger logger = LoggerFactory.getLogger(CompressionFilter.class);
+
+    private int threshold = 1024;
+    private Set<String> asyncPaths = Set.of("/api/google-auth");
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        String thresholdParam = filterConfig.getInitParameter("threshold");
+        if (thresholdParam != null) {
+            try {
+                threshold = Integer.parseInt(thresholdParam);
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid compression threshold {}, using {}", thresholdParam, threshold);
+            }
+        }
+        String asyncPathsParam = filterConfig.getInitParameter("asyncPaths");
+        if (asyncPathsParam != null) {
+            asyncPaths = Set.copyOf(Arrays.asList(asyncPathsParam.trim().split("\\s*,\\s*")));
+        }
+        logger.info("CompressionFilter initialized with threshold {} bytes, async paths {}", threshold, asyncPaths);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        if (!(request instanceof HttpServletRequest httpRequest) || !(response instanceof HttpServletResponse httpResponse)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // Endpoint async (vd. OAuth callback) hoàn tất trên thread khác → không bọc response
+        String path = httpRequest.getRequestURI().substring(httpRequest.getContextPath().length());
+        if (!accepts(httpRequest.getHeader("Accept-Encoding"), "gzip") || asyncPaths.contains(path)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        CompressingResponseWrapper wrapper = new CompressingResponseWrapper(httpResponse, threshold);
+        chain.doFilter(request, wrapper);
+        if (request.isAsyncStarted()) {
+            // Response chưa xong, thread async vẫn đang ghi qua wrapper → không đóng gzip ở đây
+            logger.warn("Async request {} went through compression; add it to asyncPaths", path);
+            return;
+        }
+        wrapper.finish();
+    }
+
+    /**
+     * Kiểm tra token trong Accept-Encoding, bỏ qua các mã hóa có q=0.
+     */
+    static boolean accepts(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String token = part.trim();
+            int semicolon = token.indexOf(';');
+            String name = semicolon >= 0 ? token.substring(0, semicolon).trim() : token;
+            if (name.equalsIgnoreCase(coding) || name.equals("*")) {
+                return semicolon < 0 || !token.substring(semicolon).replace(" ", "").matches(";q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    static boolean isCompressibleType(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase();
+        return type.startsWith("text/")
+                || type.startsWith("application/json")
+                || type.startsWith("application/javascript")
+                || type.startsWith("application/xml")
+                || type.startsWith("image/svg+xml");
+    }
+
+    @Override
+    public void destroy() {
+        logger.info("CompressionFilter destroyed");
+    }
+}
@@ -8,7 +8,7 @@ import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
 
-@WebFilter("/*") // Bắt tất cả URL
+@WebFilter(urlPatterns = "/*", asyncSupported = true) // Bắt tất cả URL
 public class GlobalExceptionFilter implements Filter {
 
     private final Gson gson = new Gson();
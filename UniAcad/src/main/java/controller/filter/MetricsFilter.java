@@ -0,0 +1,113 @@
+package controller.filter;
+
+import jakarta.servlet.*;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletMapping;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.service.audit.AuditLog;
+import util.service.metrics.RequestMetrics;
+
+import java.io.IOException;
+
+/**
+ * Ghi latency, status code và số request đang xử lý cho từng route, đồng thời đẩy một dòng access log vào {@link AuditLog}.
+ * Route là pattern của servlet mapping (vd. /api/student/timetable, /student/order/*), không phải URI,
+ * nên số lượng nhãn luôn hữu hạn. Được đặt đầu tiên trong web.xml để đo cả thời gian của các filter khác.
+ */
+@WebFilter(filterName = "MetricsFilter", urlPatterns = {"/*"}, asyncSupported = true)
+public class MetricsFilter implements Filter {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsFilter.class);
+
+    private final RequestMetrics metrics = RequestMetrics.getInstance();
+    private final AuditLog auditLog = AuditLog.getInstance();
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        logger.info("MetricsFilter initialized");
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        if (!(request instanceof HttpServletRequest httpRequest) || !(response instanceof HttpServletResponse httpResponse)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        RequestMetrics.RouteMetrics route = metrics.route(routeOf(httpRequest));
+        long start = System.nanoTime();
+        route.begin();
+        boolean recorded = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // Request async: ghi lại khi AsyncContext hoàn tất (kể cả timeout/lỗi)
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        long elapsed = System.nanoTime() - start;
+                        route.record(elapsed, httpResponse.getStatus());
+                        logAccess(httpRequest, httpResponse.getStatus(), elapsed);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+                recorded = true;
+            }
+        } catch (IOException | ServletException | RuntimeException e) {
+            long elapsed = System.nanoTime() - start;
+            route.record(elapsed, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            logAccess(httpRequest, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, elapsed);
+            recorded = true;
+            throw e;
+        } finally {
+            if (!recorded) {
+                long elapsed = System.nanoTime() - start;
+                route.record(elapsed, httpResponse.getStatus());
+                logAccess(httpRequest, httpResponse.getStatus(), elapsed);
+            }
+        }
+    }
+
+    private void logAccess(HttpServletRequest request, int status, long elapsedNanos) {
+        Object email = request.getAttribute("email");
+        HttpSession session = request.getSession(false);
+        if (email == null && session != null) {
+            try {
+                email = session.getAttribute("email");
+            } catch (IllegalStateException e) {
+                // session vừa bị invalidate trong request
+            }
+        }
+        auditLog.access(email != null ? email.toString() : request.getRemoteAddr(),
+                request.getMethod(), request.getRequestURI(), status, elapsedNanos);
+    }
+
+    private static String routeOf(HttpServletRequest request) {
+        HttpServletMapping mapping = request.getHttpServletMapping();
+        if (mapping == null || mapping.getPattern() == null || mapping.getPattern().isEmpty()) {
+            return "unmapped";
+        }
+        return mapping.getPattern();
+    }
+
+    @Override
+    public void destroy() {
+        logger.info("MetricsFilter destroyed");
+    }
+}
@@ -0,0 +1,151 @@
+package controller.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.Refill;
+import io.github.cdimascio.dotenv.Dotenv;
+import jakarta.servlet.*;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.service.security.SessionTokenService;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Giới hạn tần suất gọi API theo người dùng (email trong session/cookie stateless) hoặc theo IP nếu chưa đăng nhập.
+ * Mỗi route có chính sách riêng; bucket được giữ trong Caffeine có giới hạn kích thước nên bộ nhớ không tăng theo số client.
+ * Vượt giới hạn → 429 kèm Retry-After.
+ */
+@WebFilter(filterName = "RateLimitFilter", urlPatterns = {"/*"}, asyncSupported = true)
+public class RateLimitFilter implements Filter {
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private static final long MAX_TRACKED_KEYS = 100_000;
+
+    /**
+     * Chính sách cho các đường dẫn bắt đầu bằng {@code pathPrefix}; chính sách đầu tiên khớp được áp dụng.
+     * So khớp trên servlet path + path info (đã giải mã và chuẩn hóa như khi container chọn servlet), không phải
+     * URI thô, để "%6B" hay "/./" không lách được chính sách.
+     */
+    private record Policy(String name, String pathPrefix, long capacity, Duration period) {
+        Bucket newBucket() {
+            return Bucket.builder()
+                    .addLimit(Bandwidth.classic(capacity, Refill.greedy(capacity, period)))
+                    .build();
+        }
+    }
+
+    private static final List<Policy> POLICIES = List.of(
+            // Mỗi lần gọi là một request tới PayOS
+            new Policy("payment-link", "/student/create-payment-link", 5, Duration.ofMinutes(1)),
+            new Policy("order", "/student/order/", 10, Duration.ofMinutes(1)),
+            new Policy("warnings", "/api/warnings", 30, Duration.ofMinutes(1)),
+            new Policy("student-api", "/api/student/", 120, Duration.ofMinutes(1))
+    );
+
+    // Webhook xác nhận thanh toán do PayOS gọi từ server của họ, không giới hạn theo người dùng
+    private static final Set<String> EXEMPT_PATHS = Set.of("/student/order/confirm-webhook");
+
+    private Cache<String, Bucket> buckets;
+    private boolean enabled = true;
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        Dotenv dotenv = Dotenv.configure().filename("save.env").ignoreIfMissing().load();
+        enabled = Boolean.parseBoolean(dotenv.get("RATE_LIMIT_ENABLED", "true"));
+        long longestPeriod = POLICIES.stream().mapToLong(p -> p.period().toMillis()).max().orElse(60_000);
+        buckets = Caffeine.newBuilder()
+                .maximumSize(MAX_TRACKED_KEYS)
+                // Bucket không dùng quá một chu kỳ refill đã đầy lại, bỏ đi cũng không đổi hành vi
+                .expireAfterAccess(longestPeriod, TimeUnit.MILLISECONDS)
+                .build();
+        logger.info("RateLimitFilter initialized ({}), {} policies", enabled ? "enabled" : "disabled", POLICIES.size());
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        if (!enabled || !(request instanceof HttpServletRequest httpRequest) || !(response instanceof HttpServletResponse httpResponse)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String path = httpRequest.getServletPath() + (httpRequest.getPathInfo() != null ? httpRequest.getPathInfo() : "");
+        Policy policy = policyFor(path);
+        if (policy == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String key = policy.name() + "|" + principalOf(httpRequest);
+        Bucket bucket = buckets.get(key, k -> policy.newBucket());
+        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+        if (probe.isConsumed()) {
+            httpResponse.setHeader("X-RateLimit-Remaining", Long.toString(probe.getRemainingTokens()));
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill() + 999_999_999L));
+        logger.warn("Rate limit '{}' exceeded by {} on {}", policy.name(), key, path);
+        httpResponse.setStatus(429);
+        httpResponse.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+        httpResponse.setHeader("X-RateLimit-Remaining", "0");
+        httpResponse.setContentType("application/json");
+        httpResponse.getWriter().write("{\"error\": -1, \"message\": \"Too many requests, retry after "
+                + retryAfterSeconds + " seconds\"}");
+    }
+
+    private static Policy policyFor(String path) {
+        if (EXEMPT_PATHS.contains(path)) {
+            return null;
+        }
+        for (Policy policy : POLICIES) {
+            if (path.startsWith(policy.pathPrefix())) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Ưu tiên danh tính đã đăng nhập để nhiều người sau cùng NAT không dùng chung một bucket.
+     */
+    private static String principalOf(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session != null && session.getAttribute("email") != null) {
+            return "user:" + session.getAttribute("email");
+        }
+        SessionTokenService tokenService = SessionTokenService.getInstance();
+        if (tokenService.isEnabled() && request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (SessionTokenService.COOKIE_NAME.equals(cookie.getName())) {
+                    SessionTokenService.Claims claims = tokenService.verify(cookie.getValue());
+                    if (claims != null) {
+                        return "user:" + claims.email();
+                    }
+                }
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    @Override
+    public void destroy() {
+        buckets.invalidateAll();
+        logger.info("RateLimitFilter destroyed");
+    }
+}
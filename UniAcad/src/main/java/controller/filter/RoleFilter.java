@@ -5,19 +5,27 @@ import jakarta.servlet.annotation.WebFilter;
 import jakarta.servlet.http.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import util.service.audit.AuditLog;
+import util.service.security.SessionTokenService;
 
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Phân quyền theo role cho các trang /teacher/*, /student/*, /staff/* và API /api/student/*.
+ * Người dùng đã xác thực (qua HttpSession hoặc cookie stateless) được đặt vào request attribute
+ * "email", "role", "account_id"; servlet phía sau đọc từ đó thay vì từ session.
+ */
 @WebFilter(
         filterName = "RoleFilter",
-        urlPatterns = {"/teacher/*", "/student/*", "/staff/*"}
+        urlPatterns = {"/teacher/*", "/student/*", "/staff/*", "/api/student/*"}
 )
 public class RoleFilter implements Filter {
     private static final Logger logger = LoggerFactory.getLogger(RoleFilter.class);
 
     private static final Map<String, String> ROLE_PATH_PREFIXES = new HashMap<>();
+    private static final String API_PREFIX = "/api";
 
     static {
         ROLE_PATH_PREFIXES.put("staff", "/staff/");
@@ -26,6 +34,8 @@ public class RoleFilter implements Filter {
     }
 
     private long sessionTimeout = 30 * 60 * 1000L; // 30 phút default (ms)
+    SessionTokenService tokenService;
+    private final AuditLog auditLog = AuditLog.getInstance();
 
     @Override
     public void init(FilterConfig filterConfig) {
@@ -37,7 +47,9 @@ public class RoleFilter implements Filter {
                 logger.warn("Invalid sessionTimeout value in context, using default 30 minutes");
             }
         }
-        logger.info("RoleFilter initialized with session timeout {} seconds", sessionTimeout / 1000);
+        tokenService = SessionTokenService.getInstance();
+        logger.info("RoleFilter initialized with session timeout {} seconds, stateless auth {}",
+                sessionTimeout / 1000, tokenService.isEnabled() ? "on" : "off");
     }
 
     @Override
@@ -46,11 +58,21 @@ public class RoleFilter implements Filter {
 
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
-        HttpSession session = httpRequest.getSession(false);
         String contextPath = httpRequest.getContextPath();
         String requestURI = httpRequest.getRequestURI();
         String path = requestURI.substring(contextPath.length());
 
+        // Chế độ stateless: cookie ký HMAC hợp lệ thì không cần đụng tới HttpSession
+        if (tokenService.isEnabled()) {
+            SessionTokenService.Claims claims = tokenService.verify(readTokenCookie(httpRequest));
+            if (claims != null) {
+                authorize(httpRequest, httpResponse, chain, contextPath, path, claims.email(), claims.role(), claims.accountId());
+                return;
+            }
+        }
+
+        HttpSession session = httpRequest.getSession(false);
+
         if (session == null || session.getAttribute("email") == null || session.getAttribute("role") == null) {
             logger.warn("Unauthorized access to {}. Redirecting to login page", path);
             redirect(httpRequest, httpResponse, contextPath);
@@ -66,19 +88,40 @@ public class RoleFilter implements Filter {
 
         String email = (String) session.getAttribute("email");
         String role = (String) session.getAttribute("role");
+        authorize(httpRequest, httpResponse, chain, contextPath, path, email, role, (String) session.getAttribute("account_id"));
+    }
 
+    private void authorize(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+                           String contextPath, String path, String email, String role, String accountId)
+            throws IOException, ServletException {
         String allowedPrefix = ROLE_PATH_PREFIXES.get(role);
 
-        if (allowedPrefix == null || !path.startsWith(allowedPrefix)) {
-            logger.warn("Access denied for {} with role {} at path {}", email, role, path);
-            redirectError(httpRequest, httpResponse, contextPath);
+        if (allowedPrefix == null || !(path.startsWith(allowedPrefix) || path.startsWith(API_PREFIX + allowedPrefix))) {
+            auditLog.deny(email, role, path);
+            redirectError(request, response, contextPath);
             return;
         }
 
-        logger.debug("Access granted for {} with role {} at {}", email, role, path);
+        auditLog.grant(email, role, path);
+        request.setAttribute("email", email);
+        request.setAttribute("role", role);
+        request.setAttribute("account_id", accountId);
         chain.doFilter(request, response);
     }
 
+    private String readTokenCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (SessionTokenService.COOKIE_NAME.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
     private void redirect(HttpServletRequest req, HttpServletResponse resp, String contextPath) throws IOException {
         if (isAjaxRequest(req)) {
             resp.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -105,7 +148,8 @@ public class RoleFilter implements Filter {
 
     private boolean isAjaxRequest(HttpServletRequest request) {
         String requestedWith = request.getHeader("X-Requested-With");
-        return "XMLHttpRequest".equalsIgnoreCase(requestedWith);
+        return "XMLHttpRequest".equalsIgnoreCase(requestedWith)
+                || request.getRequestURI().startsWith(request.getContextPath() + API_PREFIX + "/");
     }
 
     @Override
@@ -11,7 +11,7 @@ import java.io.IOException;
 /**
  * A filter that adds essential security headers to all responses.
  */
-@WebFilter(filterName = "SecurityHeaderFilter", urlPatterns = {"/*"})
+@WebFilter(filterName = "SecurityHeaderFilter", urlPatterns = {"/*"}, asyncSupported = true)
 public class SecurityHeaderFilter implements Filter {
     private static final Logger logger = LoggerFactory.getLogger(SecurityHeaderFilter.class);
 
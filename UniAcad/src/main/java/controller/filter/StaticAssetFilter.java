@@ -0,0 +1,131 @@
+package controller.filter;
+
+import jakarta.servlet.*;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.annotation.WebInitParam;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.service.file.StaticAssetRegistry;
+
+import java.io.IOException;
+
+/**
+ * Phục vụ file tĩnh từ {@link StaticAssetRegistry}.
+ * File có hash trong tên → Cache-Control một năm, immutable.
+ * HTML và file gốc → no-cache, trình duyệt revalidate bằng ETag/Last-Modified và nhận 304 nếu không đổi.
+ * Với dispatch FORWARD (vd. /student/timetable forward tới StudentTimetable.html) chỉ trả bản gốc,
+ * việc nén do CompressionFilter của request ngoài đảm nhận (ETag khi đó mang hậu tố -gzip).
+ */
+@WebFilter(filterName = "StaticAssetFilter", urlPatterns = {"/*"}, asyncSupported = true,
+        dispatcherTypes = {DispatcherType.REQUEST, DispatcherType.FORWARD},
+        initParams = {@WebInitParam(name = "compressThreshold", value = "1024")})
+public class StaticAssetFilter implements Filter {
+    private static final Logger logger = LoggerFactory.getLogger(StaticAssetFilter.class);
+
+    private static final String IMMUTABLE_CACHE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE_CACHE = "no-cache";
+
+    private StaticAssetRegistry registry;
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        int threshold = 1024;
+        String thresholdParam = filterConfig.getInitParameter("compressThreshold");
+        if (thresholdParam != null) {
+            try {
+                threshold = Integer.parseInt(thresholdParam);
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid compressThreshold {}, using {}", thresholdParam, threshold);
+            }
+        }
+        registry = new StaticAssetRegistry(filterConfig.getServletContext(), threshold);
+        filterConfig.getServletContext().setAttribute(StaticAssetRegistry.CONTEXT_ATTRIBUTE, registry);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        if (!(request instanceof HttpServletRequest httpRequest) || !(response instanceof HttpServletResponse httpResponse)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String method = httpRequest.getMethod();
+        boolean head = "HEAD".equals(method);
+        if (!head && !"GET".equals(method)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String path = httpRequest.getServletPath() + (httpRequest.getPathInfo() != null ? httpRequest.getPathInfo() : "");
+        StaticAssetRegistry.Asset asset = registry.lookup(path);
+        if (asset == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String encoding = "identity";
+        byte[] body = asset.identity();
+        if (request.getDispatcherType() == DispatcherType.REQUEST) {
+            String acceptEncoding = httpRequest.getHeader("Accept-Encoding");
+            if (asset.brotli() != null && CompressionFilter.accepts(acceptEncoding, "br")) {
+                encoding = "br";
+                body = asset.brotli();
+            } else if (asset.gzip() != null && CompressionFilter.accepts(acceptEncoding, "gzip")) {
+                encoding = "gzip";
+                body = asset.gzip();
+            }
+            httpResponse.setHeader("Vary", "Accept-Encoding");
+        }
+
+        String etag = "\"" + asset.etag() + (encoding.equals("identity") ? "" : "-" + encoding) + "\"";
+        if (request.getDispatcherType() == DispatcherType.FORWARD) {
+            // Client đang giữ bản do CompressionFilter nén → revalidate theo ETag -gzip của bản đó
+            String gzipEtag = CompressingResponseWrapper.gzipEtag(etag);
+            String ifNoneMatch = httpRequest.getHeader("If-None-Match");
+            if (ifNoneMatch != null && ifNoneMatch.contains(gzipEtag)) {
+                etag = gzipEtag;
+            }
+        }
+        httpResponse.setHeader("ETag", etag);
+        httpResponse.setDateHeader("Last-Modified", asset.lastModified());
+        httpResponse.setHeader("Cache-Control", asset.immutable() ? IMMUTABLE_CACHE : REVALIDATE_CACHE);
+
+        if (isNotModified(httpRequest, etag, asset.lastModified())) {
+            httpResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        httpResponse.setContentType(asset.contentType());
+        if (!encoding.equals("identity")) {
+            httpResponse.setHeader("Content-Encoding", encoding);
+        }
+        httpResponse.setContentLength(body.length);
+        if (!head) {
+            httpResponse.getOutputStream().write(body);
+        }
+    }
+
+    private boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            // If-None-Match được ưu tiên hơn If-Modified-Since (RFC 9110)
+            return ifNoneMatch.equals("*") || ifNoneMatch.contains(etag);
+        }
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = request.getDateHeader("If-Modified-Since");
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return ifModifiedSince >= 0 && lastModified > 0 && lastModified <= ifModifiedSince;
+    }
+
+    @Override
+    public void destroy() {
+        logger.info("StaticAssetFilter destroyed");
+    }
+}
@@ -0,0 +1,23 @@
+package controller.listener;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+import util.service.audit.AuditLog;
+
+/**
+ * Khởi động thread ghi access/audit log cùng ứng dụng và ghi nốt buffer trước khi undeploy.
+ */
+@WebListener
+public class AuditLogListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        AuditLog.getInstance();
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        AuditLog.getInstance().shutdown();
+    }
+}
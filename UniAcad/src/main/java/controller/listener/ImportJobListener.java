@@ -0,0 +1,26 @@
+package controller.listener;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+import util.service.excel.ExcelService;
+import util.service.excel.ImportJobService;
+
+/**
+ * Tạo ImportJobService dùng chung khi ứng dụng khởi động; dừng các job đang chạy và pool lưu ảnh Excel khi undeploy.
+ */
+@WebListener
+public class ImportJobListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        ImportJobService.initShared(sce.getServletContext());
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        sce.getServletContext().removeAttribute(ImportJobService.CONTEXT_ATTRIBUTE);
+        ImportJobService.shutdownShared();
+        ExcelService.shutdownImagePool();
+    }
+}
@@ -0,0 +1,38 @@
+package controller.listener;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.service.email.EmailOutboxWorker;
+import util.service.email.MailService;
+
+/**
+ * Tạo một MailService dùng chung và khởi động EmailOutboxWorker khi ứng dụng khởi động; dừng cả hai khi undeploy.
+ */
+@WebListener
+public class MailServiceListener implements ServletContextListener {
+    private static final Logger logger = LoggerFactory.getLogger(MailServiceListener.class);
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        try {
+            MailService mailService = MailService.initShared(sce.getServletContext());
+            if (EmailOutboxWorker.isEnabled()) {
+                EmailOutboxWorker.start(mailService);
+            }
+        } catch (RuntimeException e) {
+            // Thiếu cấu hình SMTP không được làm hỏng cả ứng dụng; lần gửi đầu tiên sẽ thử lại và báo lỗi
+            logger.error("Could not initialize MailService: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        // Dừng worker trước để lô đang gửi còn dùng được executor của MailService
+        EmailOutboxWorker.stop();
+        sce.getServletContext().removeAttribute(MailService.CONTEXT_ATTRIBUTE);
+        MailService.shutdownShared();
+    }
+}
@@ -0,0 +1,79 @@
+package controller.servlet.metrics;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.service.metrics.RequestMetrics;
+import util.service.security.SessionTokenService;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Xuất metrics theo định dạng Prometheus tại /metrics.
+ * Chỉ cho phép staff đã đăng nhập (session hoặc cookie stateless), hoặc scraper gửi "Authorization: Bearer &lt;METRICS_TOKEN&gt;" (save.env).
+ */
+@WebServlet(name = "MetricsServlet", urlPatterns = {"/metrics"})
+public class MetricsServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsServlet.class);
+
+    private byte[] scrapeToken;
+
+    @Override
+    public void init() {
+        Dotenv dotenv = Dotenv.configure().filename("save.env").ignoreIfMissing().load();
+        String token = dotenv.get("METRICS_TOKEN");
+        scrapeToken = token != null && !token.isBlank() ? token.getBytes(StandardCharsets.UTF_8) : null;
+        if (scrapeToken == null) {
+            logger.info("METRICS_TOKEN not set, /metrics is only available to logged-in staff");
+        }
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        if (!isAuthorized(request)) {
+            logger.warn("Rejected /metrics request from {}", request.getRemoteAddr());
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\": -1, \"message\": \"Access Denied\"}");
+            return;
+        }
+
+        response.setContentType("text/plain; version=0.0.4; charset=utf-8");
+        response.setHeader("Cache-Control", "no-store");
+        response.getWriter().write(RequestMetrics.getInstance().scrape());
+    }
+
+    private boolean isAuthorized(HttpServletRequest request) {
+        String authorization = request.getHeader("Authorization");
+        if (scrapeToken != null && authorization != null && authorization.startsWith("Bearer ")) {
+            byte[] presented = authorization.substring(7).getBytes(StandardCharsets.UTF_8);
+            return MessageDigest.isEqual(presented, scrapeToken);
+        }
+        HttpSession session = request.getSession(false);
+        if (session != null && "staff".equals(session.getAttribute("role"))) {
+            return true;
+        }
+        SessionTokenService tokenService = SessionTokenService.getInstance();
+        if (tokenService.isEnabled() && request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (SessionTokenService.COOKIE_NAME.equals(cookie.getName())) {
+                    SessionTokenService.Claims claims = tokenService.verify(cookie.getValue());
+                    if (claims != null && "staff".equals(claims.role())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
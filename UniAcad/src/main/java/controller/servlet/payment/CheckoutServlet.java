@@ -10,7 +10,6 @@ import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 import model.database.Fee;
 import model.database.Student;
 import org.slf4j.Logger;
@@ -39,8 +38,7 @@ public class CheckoutServlet extends HttpServlet {
         StudentDAO studentDAO = new StudentDAO();
         Student student = null;
         try {
-            HttpSession session = request.getSession();
-            student = studentDAO.getStudentByEmail(session.getAttribute("email").toString());
+            student = studentDAO.getStudentByEmail(request.getAttribute("email").toString());
         } catch (Exception e) {
             logger.error("Error retrieving student information", e);
         }
@@ -66,8 +64,7 @@ public class CheckoutServlet extends HttpServlet {
 
         JsonObject resJson = new JsonObject();
         try {
-            HttpSession session = request.getSession();
-            Student student = new StudentDAO().getStudentByEmail(session.getAttribute("email").toString());
+            Student student = new StudentDAO().getStudentByEmail(request.getAttribute("email").toString());
 
             Fee fee = new FeeDAO().findUnpaidFeeByStudentId(student.getStudentID());
             if (fee == null) {
@@ -13,6 +13,9 @@ import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.service.audit.AuditLog;
 import vn.payos.PayOS;
 import vn.payos.type.CheckoutResponseData;
 import vn.payos.type.ItemData;
@@ -26,8 +29,10 @@ import java.util.Map;
 
 @WebServlet(name = "OrderServlet", urlPatterns = {"/student/order/create", "/student/order/*", "/student/order/confirm-webhook"})
 public class OrderServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(OrderServlet.class);
 
     private final PayOS payOS;
+    private final AuditLog auditLog = AuditLog.getInstance();
     private final Gson gson = new GsonBuilder().create();
 
     public OrderServlet() {
@@ -59,7 +64,7 @@ public class OrderServlet extends HttpServlet {
                 final int price = requestBody.getPrice();
                 FeeDAO feeDAO = new FeeDAO();
                 StudentDAO studentDAO= new StudentDAO();
-                Student student = studentDAO.getStudentByEmail(request.getParameter("email"));
+                Student student = studentDAO.getStudentByEmail((String) request.getAttribute("email"));
                 long orderCode = feeDAO.findUnpaidFeeByStudentId(student.getStudentID()).getId();
                 ItemData item = ItemData.builder().name(productName).price(price).quantity(1).build();
                 PaymentData paymentData = PaymentData.builder()
@@ -72,12 +77,15 @@ public class OrderServlet extends HttpServlet {
                         .build();
 
                 CheckoutResponseData data = payOS.createPaymentLink(paymentData);
+                auditLog.audit(student.getStudentID(), "order.create", String.valueOf(orderCode), "amount=" + price);
 
                 responseJson.addProperty("error", 0);
                 responseJson.addProperty("message", "success");
                 responseJson.add("data", gson.toJsonTree(data));
             } catch (Exception e) {
-                e.printStackTrace();
+                logger.error("PayOS order.create failed: {}", e.getMessage());
+                // Principal do RoleFilter xác thực, không lấy từ tham số client gửi lên
+                auditLog.error((String) request.getAttribute("email"), "order.create", "/order/create", e);
                 responseJson.addProperty("error", -1);
                 responseJson.addProperty("message", "fail");
                 responseJson.add("data", null);
@@ -99,7 +107,8 @@ public class OrderServlet extends HttpServlet {
                 responseJson.addProperty("message", "ok");
                 responseJson.add("data", gson.toJsonTree(str));
             } catch (Exception e) {
-                e.printStackTrace();
+                logger.error("PayOS order.confirm-webhook failed: {}", e.getMessage());
+                auditLog.error(null, "order.confirm-webhook", "/order/confirm-webhook", e);
                 responseJson.addProperty("error", -1);
                 responseJson.addProperty("message", e.getMessage());
                 responseJson.add("data", null);
@@ -125,7 +134,8 @@ public class OrderServlet extends HttpServlet {
                 responseJson.addProperty("message", "ok");
                 responseJson.add("data", gson.toJsonTree(order));
             } catch (Exception e) {
-                e.printStackTrace();
+                logger.error("PayOS order.get failed: {}", e.getMessage());
+                auditLog.error(null, "order.get", pathInfo, e);
                 responseJson.addProperty("error", -1);
                 responseJson.addProperty("message", e.getMessage());
                 responseJson.add("data", null);
@@ -151,7 +161,8 @@ public class OrderServlet extends HttpServlet {
                 responseJson.addProperty("message", "ok");
                 responseJson.add("data", gson.toJsonTree(order));
             } catch (Exception e) {
-                e.printStackTrace();
+                logger.error("PayOS order.cancel failed: {}", e.getMessage());
+                auditLog.error(null, "order.cancel", pathInfo, e);
                 responseJson.addProperty("error", -1);
                 responseJson.addProperty("message", e.getMessage());
                 responseJson.add("data", null);
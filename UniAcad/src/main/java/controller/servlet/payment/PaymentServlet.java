@@ -10,6 +10,9 @@ import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.service.audit.AuditLog;
 import vn.payos.PayOS;
 import vn.payos.type.Webhook;
 import vn.payos.type.WebhookData;
@@ -20,10 +23,12 @@ import java.math.BigDecimal;
 
 @WebServlet(name = "PaymentServlet", urlPatterns = {"/student/payment/payos_transfer_handler"})
 public class PaymentServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(PaymentServlet.class);
 
     private final PayOS payOS;
     private final Gson gson = new GsonBuilder().create();
     private final PaymentService paymentService = new PaymentService(); // ✅ Thêm PaymentService
+    private final AuditLog auditLog = AuditLog.getInstance();
 
     public PaymentServlet() {
         this.payOS = PayOSConfig.getPayOS();
@@ -47,7 +52,8 @@ public class PaymentServlet extends HttpServlet {
 
             // 2. Verify Webhook
             WebhookData data = payOS.verifyPaymentWebhookData(webhookBody);
-            System.out.println("Webhook received: " + data);
+            auditLog.audit("payos", "payment.webhook", String.valueOf(data.getOrderCode()),
+                    "code=" + data.getCode() + " amount=" + data.getAmount() + " ref=" + data.getReference());
 
             // 3. Check if successful
             if ("00".equals(data.getCode())) {  // PayOS success code
@@ -56,9 +62,9 @@ public class PaymentServlet extends HttpServlet {
 
                 // 4. Use PaymentService to handle
                 paymentService.payFee((int) orderCode, paidAmount); // 👈 Xài service luôn
-                System.out.println("Payment processed successfully for orderCode: " + orderCode);
+                auditLog.audit("payos", "payment.paid", String.valueOf(orderCode), "amount=" + paidAmount);
             } else {
-                System.out.println("Payment not successful, code: " + data.getCode());
+                logger.warn("Payment not successful for orderCode {}, code: {}", data.getOrderCode(), data.getCode());
             }
 
             // 5. Return OK
@@ -67,7 +73,8 @@ public class PaymentServlet extends HttpServlet {
             responseJson.add("data", null);
 
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error handling PayOS webhook: {}", e.getMessage());
+            auditLog.error("payos", "payment.webhook", null, e);
             responseJson.addProperty("error", -1);
             responseJson.addProperty("message", "Error handling webhook: " + e.getMessage());
             responseJson.add("data", null);
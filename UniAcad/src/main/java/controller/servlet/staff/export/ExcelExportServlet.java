@@ -0,0 +1,122 @@
+package controller.servlet.staff.export;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import dao.CourseDAO;
+import dao.GradeDAO;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.service.excel.ExcelExportService;
+import util.service.excel.ExcelExportService.ExportDataset;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+
+/**
+ * Xuất Excel cho staff, ghi thẳng workbook vào response:
+ * <ul>
+ *     <li>GET ?type=class-list&amp;courseId=... : danh sách lớp của Course</li>
+ *     <li>GET ?type=grade-sheet&amp;gradeId=... : bảng điểm của Grade</li>
+ *     <li>GET ?type=fees[&amp;termId=...] : bảng kê học phí (mọi kỳ nếu không có termId)</li>
+ * </ul>
+ * Lỗi tham số trả JSON như các API khác; lỗi DB sau khi đã bắt đầu gửi file thì chỉ ghi log.
+ */
+@WebServlet(name = "ExcelExportServlet", urlPatterns = {"/staff/export"})
+public class ExcelExportServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(ExcelExportServlet.class);
+    private static final String XLSX_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    private final Gson gson = new Gson();
+    private final ExcelExportService exportService = new ExcelExportService();
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        ExportDataset dataset;
+        try {
+            dataset = resolveDataset(request);
+        } catch (NumberFormatException e) {
+            sendError(response, HttpServletResponse.SC_BAD_REQUEST, "Invalid id parameter.");
+            return;
+        } catch (IllegalArgumentException e) {
+            sendError(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        if (dataset == null) {
+            sendError(response, HttpServletResponse.SC_NOT_FOUND, "Nothing to export.");
+            return;
+        }
+
+        response.setContentType(XLSX_CONTENT_TYPE);
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + dataset.fileName + "\"");
+        response.setHeader("Cache-Control", "no-store");
+        try {
+            OutputStream out = response.getOutputStream();
+            exportService.export(dataset, out);
+            out.flush();
+        } catch (SQLException e) {
+            logger.error("Export {} failed: {}", dataset.fileName, e.getMessage(), e);
+            if (!response.isCommitted()) {
+                response.reset();
+                sendError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Could not read export data.");
+            }
+        }
+    }
+
+    /**
+     * @return dataset cần xuất, null nếu Course/Grade không tồn tại
+     */
+    private ExportDataset resolveDataset(HttpServletRequest request) {
+        String type = request.getParameter("type");
+        if (type == null) {
+            throw new IllegalArgumentException("Missing type parameter.");
+        }
+        switch (type) {
+            case "class-list": {
+                int courseId = Integer.parseInt(requireParameter(request, "courseId"));
+                return new CourseDAO().getCourseById(courseId) != null ? exportService.classList(courseId) : null;
+            }
+            case "grade-sheet": {
+                int gradeId = Integer.parseInt(requireParameter(request, "gradeId"));
+                return new GradeDAO().getGradeById(gradeId) != null ? exportService.gradeSheet(gradeId) : null;
+            }
+            case "fees": {
+                String termId = request.getParameter("termId");
+                if (termId == null || termId.isBlank()) {
+                    return exportService.feeStatements(null);
+                }
+                termId = termId.trim();
+                if (!termId.matches("[A-Za-z0-9]{1,4}")) {
+                    throw new IllegalArgumentException("Invalid termId parameter.");
+                }
+                return exportService.feeStatements(termId);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown export type: " + type);
+        }
+    }
+
+    private static String requireParameter(HttpServletRequest request, String name) {
+        String value = request.getParameter(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing " + name + " parameter.");
+        }
+        return value.trim();
+    }
+
+    private void sendError(HttpServletResponse response, int statusCode, String message) throws IOException {
+        JsonObject errorJson = new JsonObject();
+        errorJson.addProperty("error", -1);
+        errorJson.addProperty("message", message);
+        errorJson.add("data", null);
+
+        response.setStatus(statusCode);
+        response.setContentType("application/json;charset=UTF-8");
+        response.getWriter().write(gson.toJson(errorJson));
+    }
+}
@@ -0,0 +1,163 @@
+package controller.servlet.staff.importjob;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.MultipartConfig;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.Part;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.service.excel.ExcelService.ProcessingError;
+import util.service.excel.ImportJob;
+import util.service.excel.ImportJobService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+
+/**
+ * Import Student từ Excel chạy nền.
+ * <p>
+ * POST (multipart, field "file") lưu file và trả về 202 kèm jobId ngay lập tức. Field "mode=upsert" để nhập lại
+ * file đã sửa: Student đã có được cập nhật nếu có thay đổi thay vì báo lỗi trùng.
+ * GET ?jobId=... trả tiến độ của job (số dòng đã parse/hợp lệ/đã thêm, lỗi, số dòng mỗi giây) để client poll;
+ * GET không có jobId trả danh sách job gần đây. Chỉ thấy job do chính mình gửi vì lỗi từng dòng có SSN, email.
+ */
+@WebServlet(name = "StudentImportServlet", urlPatterns = {"/staff/import/students"})
+@MultipartConfig(maxFileSize = 50 * 1024 * 1024, maxRequestSize = 55 * 1024 * 1024, fileSizeThreshold = 1024 * 1024)
+public class StudentImportServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(StudentImportServlet.class);
+    private static final int MAX_ERRORS_IN_RESPONSE = 50;
+
+    private final Gson gson = new Gson();
+
+    private ImportJobService importJobService() {
+        Object service = getServletContext().getAttribute(ImportJobService.CONTEXT_ATTRIBUTE);
+        return service instanceof ImportJobService ? (ImportJobService) service : ImportJobService.getShared();
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setContentType("application/json;charset=UTF-8");
+        Part filePart = request.getPart("file");
+        if (filePart == null || filePart.getSize() == 0) {
+            sendError(response, HttpServletResponse.SC_BAD_REQUEST, "Missing file.");
+            return;
+        }
+        String fileName = filePart.getSubmittedFileName();
+        if (fileName == null || !fileName.toLowerCase().endsWith(".xlsx")) {
+            sendError(response, HttpServletResponse.SC_BAD_REQUEST, "Only .xlsx files are supported.");
+            return;
+        }
+
+        String modeParam = request.getParameter("mode");
+        ImportJob.Mode mode;
+        if (modeParam == null || modeParam.isBlank() || modeParam.equalsIgnoreCase("insert")) {
+            mode = ImportJob.Mode.INSERT;
+        } else if (modeParam.equalsIgnoreCase("upsert")) {
+            mode = ImportJob.Mode.UPSERT;
+        } else {
+            sendError(response, HttpServletResponse.SC_BAD_REQUEST, "Unknown import mode: " + modeParam);
+            return;
+        }
+
+        String submittedBy = (String) request.getAttribute("email");
+        ImportJob job;
+        try (InputStream in = filePart.getInputStream()) {
+            job = importJobService().submitStudentImport(in, fileName, submittedBy, mode);
+        } catch (IOException e) {
+            logger.error("Could not start student import for {}: {}", fileName, e.getMessage(), e);
+            sendError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Could not store uploaded file.");
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_ACCEPTED);
+        response.setHeader("Location", request.getRequestURI() + "?jobId=" + job.getId());
+        response.getWriter().write(gson.toJson(success(toJson(job, false))));
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setContentType("application/json;charset=UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+        String email = (String) request.getAttribute("email");
+        String jobId = request.getParameter("jobId");
+        if (jobId == null || jobId.isBlank()) {
+            JsonArray jobs = new JsonArray();
+            for (ImportJob job : importJobService().getJobs(email)) {
+                jobs.add(toJson(job, false));
+            }
+            response.getWriter().write(gson.toJson(success(jobs)));
+            return;
+        }
+
+        ImportJob job = importJobService().getJob(jobId);
+        // Job của người khác trả 404 như job không tồn tại
+        if (job == null || !Objects.equals(job.getSubmittedBy(), email)) {
+            sendError(response, HttpServletResponse.SC_NOT_FOUND, "Import job not found.");
+            return;
+        }
+        response.getWriter().write(gson.toJson(success(toJson(job, true))));
+    }
+
+    private JsonObject toJson(ImportJob job, boolean withErrors) {
+        JsonObject json = new JsonObject();
+        json.addProperty("jobId", job.getId());
+        json.addProperty("fileName", job.getFileName());
+        json.addProperty("mode", job.getMode().name());
+        json.addProperty("status", job.getStatus().name());
+        json.addProperty("message", job.getMessage());
+        json.addProperty("createdAt", job.getCreatedAt().toString());
+        json.addProperty("startedAt", job.getStartedAt() != null ? job.getStartedAt().toString() : null);
+        json.addProperty("finishedAt", job.getFinishedAt() != null ? job.getFinishedAt().toString() : null);
+        json.addProperty("parsedRows", job.getParsedRows());
+        json.addProperty("validRows", job.getValidRows());
+        json.addProperty("insertedRows", job.getInsertedRows());
+        if (job.getMode() == ImportJob.Mode.UPSERT) {
+            json.addProperty("updatedRows", job.getUpdatedRows());
+            json.addProperty("unchangedRows", job.getUnchangedRows());
+            JsonObject fieldChanges = new JsonObject();
+            job.getFieldChanges().forEach(fieldChanges::addProperty);
+            json.add("fieldChanges", fieldChanges);
+        }
+        json.addProperty("errorCount", job.getErrorCount());
+        json.addProperty("rowsPerSecond", Math.round(job.getRowsPerSecond()));
+        if (withErrors) {
+            JsonArray errors = new JsonArray();
+            for (ProcessingError error : job.getErrors()) {
+                if (errors.size() >= MAX_ERRORS_IN_RESPONSE) break;
+                JsonObject item = new JsonObject();
+                item.addProperty("row", error.rowIndex);
+                item.addProperty("column", error.columnIndex);
+                item.addProperty("message", error.message);
+                errors.add(item);
+            }
+            json.add("errors", errors);
+        }
+        return json;
+    }
+
+    private static JsonObject success(JsonElement data) {
+        JsonObject json = new JsonObject();
+        json.addProperty("error", 0);
+        json.addProperty("message", "success");
+        json.add("data", data);
+        return json;
+    }
+
+    private void sendError(HttpServletResponse response, int statusCode, String message) throws IOException {
+        JsonObject errorJson = new JsonObject();
+        errorJson.addProperty("error", -1);
+        errorJson.addProperty("message", message);
+        errorJson.add("data", null);
+
+        response.setStatus(statusCode);
+        response.getWriter().write(gson.toJson(errorJson));
+    }
+}
@@ -0,0 +1,58 @@
+package dao;
+
+import model.datasupport.AccountInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.service.database.DBContext;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Tra cứu tài khoản theo email trên cả ba bảng Staff, Student, Teacher trong một truy vấn.
+ */
+public class AccountDAO extends DBContext {
+    private static final Logger logger = LoggerFactory.getLogger(AccountDAO.class);
+
+    // Thứ tự ưu tiên giống luồng đăng nhập cũ: staff → student → teacher
+    private static final String FIND_BY_EMAIL = """
+            SELECT TOP 1 Role, AccountID, DisplayName
+            FROM (
+                SELECT 1 AS Priority, 'staff' AS Role, StaffID AS AccountID, StaffName AS DisplayName
+                FROM Staff WHERE StaffEmail = ?
+                UNION ALL
+                SELECT 2, 'student', StudentID, StudentName
+                FROM Student WHERE StudentEmail = ?
+                UNION ALL
+                SELECT 3, 'teacher', TeacherID, TeacherName
+                FROM Teacher WHERE TeacherEmail = ?
+            ) accounts
+            ORDER BY Priority
+            """;
+
+    public AccountDAO() {
+        super();
+    }
+
+    /**
+     * @return tài khoản ứng với email, null nếu email không thuộc bảng nào
+     */
+    public AccountInfo findByEmail(String email) {
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(FIND_BY_EMAIL)) {
+            statement.setString(1, email);
+            statement.setString(2, email);
+            statement.setString(3, email);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (rs.next()) {
+                    return new AccountInfo(rs.getString("Role"), rs.getString("AccountID"), rs.getString("DisplayName"));
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error resolving account by email: {}", email, e);
+        }
+        return null;
+    }
+}
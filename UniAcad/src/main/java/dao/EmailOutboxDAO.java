@@ -0,0 +1,173 @@
+package dao;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import model.datasupport.OutboxMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.service.database.DBContext;
+
+import java.lang.reflect.Type;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Truy cập bảng EmailOutbox. Nhiều worker (nhiều instance ứng dụng) có thể claim cùng lúc:
+ * READPAST + UPDLOCK bỏ qua các dòng đã bị worker khác khóa thay vì chờ.
+ */
+public class EmailOutboxDAO extends DBContext {
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxDAO.class);
+    private static final Gson gson = new Gson();
+    private static final Type VARIABLES_TYPE = new TypeToken<Map<String, Object>>() {}.getType();
+    private static final Type IMAGE_MAP_TYPE = new TypeToken<Map<String, String>>() {}.getType();
+    private static final Type PATHS_TYPE = new TypeToken<List<String>>() {}.getType();
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    /**
+     * Ghi nhiều email vào outbox trong một transaction.
+     * Email có DedupKey trùng với một email chưa DEAD trong outbox thì bỏ qua. UPDLOCK + HOLDLOCK giữ khóa khoảng
+     * trên key tới hết transaction nên hai instance ghi cùng key sẽ chờ nhau thay vì cùng chèn; index UNIQUE có lọc
+     * IX_EmailOutbox_DedupKey là chốt chặn cuối.
+     *
+     * @return số email đã ghi, -1 nếu lỗi
+     */
+    public int enqueue(List<OutboxMessage> messages) {
+        if (messages.isEmpty()) return 0;
+        String query = "INSERT INTO EmailOutbox (Recipient, TemplateName, Subject, Variables, ImageMap, AttachmentPaths, DedupKey) "
+                + "SELECT ?, ?, ?, ?, ?, ?, ? "
+                + "WHERE ? IS NULL OR NOT EXISTS (SELECT 1 FROM EmailOutbox WITH (UPDLOCK, HOLDLOCK) "
+                + "WHERE DedupKey = ? AND Status <> 'DEAD')";
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            connection.setAutoCommit(false);
+            for (OutboxMessage message : messages) {
+                statement.setString(1, message.getRecipient());
+                statement.setString(2, message.getTemplateName());
+                statement.setString(3, message.getSubject());
+                statement.setString(4, gson.toJson(message.getVariables()));
+                statement.setString(5, message.getImageMap() != null ? gson.toJson(message.getImageMap()) : null);
+                statement.setString(6, message.getAttachmentPaths() != null ? gson.toJson(message.getAttachmentPaths()) : null);
+                statement.setString(7, message.getDedupKey());
+                statement.setString(8, message.getDedupKey());
+                statement.setString(9, message.getDedupKey());
+                statement.addBatch();
+            }
+            int inserted = 0;
+            for (int count : statement.executeBatch()) {
+                inserted += Math.max(count, 0);
+            }
+            connection.commit();
+            logger.debug("Queued {} emails", inserted);
+            return inserted;
+        } catch (SQLException e) {
+            logger.error("Error queueing {} emails", messages.size(), e);
+        }
+        return -1;
+    }
+
+    /**
+     * Claim tối đa {@code limit} email đến hạn: chuyển sang SENDING, tăng Attempts và giữ lease
+     * {@code leaseSeconds} giây. Email SENDING quá hạn lease (worker chết giữa chừng) được claim lại.
+     */
+    public List<OutboxMessage> claimBatch(int limit, int leaseSeconds) {
+        String query = """
+                WITH Due AS (
+                    SELECT TOP (?) * FROM EmailOutbox WITH (ROWLOCK, UPDLOCK, READPAST)
+                    WHERE (Status = 'PENDING' AND NextAttemptAt <= SYSUTCDATETIME())
+                       OR (Status = 'SENDING' AND LockedUntil < SYSUTCDATETIME())
+                    ORDER BY NextAttemptAt
+                )
+                UPDATE Due
+                SET Status = 'SENDING', Attempts = Attempts + 1,
+                    LockedUntil = DATEADD(SECOND, ?, SYSUTCDATETIME())
+                OUTPUT inserted.OutboxID, inserted.Recipient, inserted.TemplateName, inserted.Subject,
+                       inserted.Variables, inserted.ImageMap, inserted.AttachmentPaths, inserted.Attempts
+                """;
+        List<OutboxMessage> messages = new ArrayList<>();
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setInt(1, limit);
+            statement.setInt(2, leaseSeconds);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    String imageMap = rs.getString("ImageMap");
+                    String attachmentPaths = rs.getString("AttachmentPaths");
+                    OutboxMessage message = new OutboxMessage(
+                            rs.getString("Recipient"),
+                            rs.getString("TemplateName"),
+                            rs.getString("Subject"),
+                            gson.fromJson(rs.getString("Variables"), VARIABLES_TYPE),
+                            imageMap != null ? gson.fromJson(imageMap, IMAGE_MAP_TYPE) : null,
+                            attachmentPaths != null ? gson.fromJson(attachmentPaths, PATHS_TYPE) : null);
+                    message.setId(rs.getLong("OutboxID"));
+                    message.setAttempts(rs.getInt("Attempts"));
+                    messages.add(message);
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error claiming outbox batch", e);
+        }
+        return messages;
+    }
+
+    public void markSent(List<Long> ids) {
+        if (ids.isEmpty()) return;
+        String query = "UPDATE EmailOutbox SET Status = 'SENT', SentAt = SYSUTCDATETIME(), LockedUntil = NULL, "
+                + "LastError = NULL WHERE OutboxID = ?";
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            connection.setAutoCommit(false);
+            for (long id : ids) {
+                statement.setLong(1, id);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            // Lease hết hạn thì email sẽ bị gửi lại một lần nữa; chấp nhận trùng hơn là mất thư
+            logger.error("Error marking {} outbox emails as sent", ids.size(), e);
+        }
+    }
+
+    /**
+     * Trả email về PENDING, lần thử tiếp theo sau {@code delaySeconds} giây.
+     */
+    public void markRetry(long id, long delaySeconds, String error) {
+        String query = "UPDATE EmailOutbox SET Status = 'PENDING', LockedUntil = NULL, LastError = ?, "
+                + "NextAttemptAt = DATEADD(SECOND, ?, SYSUTCDATETIME()) WHERE OutboxID = ?";
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setString(1, truncate(error));
+            statement.setLong(2, delaySeconds);
+            statement.setLong(3, id);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Error rescheduling outbox email {}", id, e);
+        }
+    }
+
+    /**
+     * Dead-letter: không gửi lại nữa, giữ lại lỗi cuối để xem xét.
+     */
+    public void markDead(long id, String error) {
+        String query = "UPDATE EmailOutbox SET Status = 'DEAD', LockedUntil = NULL, LastError = ? WHERE OutboxID = ?";
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setString(1, truncate(error));
+            statement.setLong(2, id);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Error dead-lettering outbox email {}", id, e);
+        }
+    }
+
+    private static String truncate(String error) {
+        if (error == null) return null;
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
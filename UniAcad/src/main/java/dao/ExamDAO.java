@@ -8,9 +8,12 @@ import org.slf4j.LoggerFactory;
 import util.service.database.DBContext;
 
 import java.sql.*;
+import java.time.Instant;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ExamDAO extends DBContext {
     private static final Logger logger = LoggerFactory.getLogger(ExamDAO.class);
@@ -63,6 +66,121 @@ public class ExamDAO extends DBContext {
         return exams;
     }
 
+    /**
+     * @throws RuntimeException nếu lỗi DB (không trả về danh sách thiếu)
+     */
+    public List<Exam> getExamsByTerm(String termId) {
+        List<Exam> exams = new ArrayList<>();
+        String query = """
+            SELECT e.*
+            FROM Exam e
+            JOIN Grade g ON e.GradeID = g.GradeID
+            JOIN Course c ON g.CourseID = c.CourseID
+            WHERE c.TermID = ?
+            """;
+        try (Connection connection = getConnection();
+             PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setString(1, termId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    exams.add(mapResult(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error retrieving exams for TermID: " + termId, e);
+        }
+        return exams;
+    }
+
+    /**
+     * Gán phòng cho nhiều exam trong một batch, trên kết nối/transaction của người gọi (không commit).
+     *
+     * @param roomByExam ExamID → RoomID
+     * @return số exam đã cập nhật
+     */
+    public int updateExamRooms(Connection connection, Map<Integer, String> roomByExam) throws SQLException {
+        if (roomByExam.isEmpty()) return 0;
+        String query = "UPDATE Exam SET RoomID = ? WHERE ExamID = ?";
+        try (PreparedStatement ps = connection.prepareStatement(query)) {
+            for (Map.Entry<Integer, String> entry : roomByExam.entrySet()) {
+                ps.setString(1, entry.getValue());
+                ps.setInt(2, entry.getKey());
+                ps.addBatch();
+            }
+            int updated = 0;
+            for (int count : ps.executeBatch()) {
+                updated += Math.max(count, 0);
+            }
+            return updated;
+        }
+    }
+
+    /**
+     * Lấy danh sách sinh viên dự thi của từng exam trong học kỳ (Exam → Grade → Course → Study)
+     * trong một truy vấn.
+     *
+     * @return ExamID → danh sách StudentID
+     * @throws RuntimeException nếu lỗi DB (không trả về map thiếu)
+     */
+    public Map<Integer, List<String>> getExamStudentsByTerm(String termId) {
+        Map<Integer, List<String>> studentsByExam = new HashMap<>();
+        String query = """
+            SELECT e.ExamID, st.StudentID
+            FROM Exam e
+            JOIN Grade g ON e.GradeID = g.GradeID
+            JOIN Course c ON g.CourseID = c.CourseID
+            JOIN Study st ON st.CourseID = c.CourseID
+            WHERE c.TermID = ?
+            ORDER BY e.ExamID
+            """;
+        try (Connection connection = getConnection();
+             PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setString(1, termId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    studentsByExam.computeIfAbsent(rs.getInt("ExamID"), k -> new ArrayList<>())
+                            .add(rs.getString("StudentID"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error retrieving exam students for TermID: " + termId, e);
+        }
+        return studentsByExam;
+    }
+
+    /**
+     * Cập nhật ngày giờ thi cho nhiều exam trong một batch (một transaction).
+     *
+     * @param dateByExam ExamID → ExamDate
+     * @return số exam đã cập nhật
+     * @throws RuntimeException nếu lỗi DB; transaction đã được rollback nên không exam nào bị đổi giờ
+     */
+    public int updateExamDates(Map<Integer, Instant> dateByExam) {
+        if (dateByExam.isEmpty()) return 0;
+        String query = "UPDATE Exam SET ExamDate = ? WHERE ExamID = ?";
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(query)) {
+                for (Map.Entry<Integer, Instant> entry : dateByExam.entrySet()) {
+                    ps.setTimestamp(1, Timestamp.from(entry.getValue()));
+                    ps.setInt(2, entry.getKey());
+                    ps.addBatch();
+                }
+                int updated = 0;
+                for (int count : ps.executeBatch()) {
+                    updated += Math.max(count, 0);
+                }
+                connection.commit();
+                return updated;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating dates for " + dateByExam.size() + " exams", e);
+        }
+    }
+
     public boolean createExam(Exam exam) {
         String query = "INSERT INTO Exam (ExamName, GradeID, ExamDate, ExamDuration, RoomID, ExamType) VALUES (?, ?, ?, ?, ?, ?)";
         try (PreparedStatement ps = getConnection().prepareStatement(query)) {
@@ -4,10 +4,13 @@ import model.database.Fee;
 import model.database.Student;
 import model.database.Term;
 import util.service.database.DBContext;
+import util.service.database.RowCallback;
 
+import java.io.IOException;
 import java.sql.*;
 
 public class FeeDAO {
+    private static final int CURSOR_FETCH_SIZE = 500;
 
     public Fee findById(Integer id) {
         String sql = "SELECT * FROM Fee WHERE FeeID = ?";
@@ -111,6 +114,37 @@ public class FeeDAO {
         }
     }
 
+    /**
+     * Bảng kê học phí theo kỳ ({@code termId} null = mọi kỳ), kèm số tiền đã thanh toán thành công.
+     * Thứ tự cột: FeeID, StudentID, StudentName, TermID, Amount, AmountPaid, DueDate, FeeStatus (chữ).
+     * Đọc tuần tự bằng cursor forward-only, mỗi dòng chuyển ngay cho {@code callback}, không gom vào List.
+     *
+     * @return số dòng đã đọc
+     */
+    public int forEachFeeStatementRow(String termId, RowCallback callback) throws SQLException, IOException {
+        String query = "SELECT f.FeeID, f.StudentID, s.StudentName, f.TermID, f.Amount, " +
+                "COALESCE(p.AmountPaid, 0) AS AmountPaid, f.DueDate, " +
+                "CASE f.FeeStatus WHEN 1 THEN 'Paid' ELSE 'Unpaid' END AS FeeStatus " +
+                "FROM Fee f JOIN Student s ON s.StudentID = f.StudentID " +
+                "LEFT JOIN (SELECT FeeID, SUM(AmountPaid) AS AmountPaid FROM Payment WHERE PaymentStatus = 1 GROUP BY FeeID) p " +
+                "ON p.FeeID = f.FeeID " +
+                "WHERE (? IS NULL OR f.TermID = ?) ORDER BY f.TermID, f.StudentID";
+        try (Connection conn = DBContext.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(CURSOR_FETCH_SIZE);
+            ps.setString(1, termId);
+            ps.setString(2, termId);
+            int rows = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    callback.accept(rs);
+                    rows++;
+                }
+            }
+            return rows;
+        }
+    }
+
     private Fee mapResultSetToFee(ResultSet rs) throws SQLException {
         Fee fee = new Fee();
         fee.setId(rs.getInt("FeeID"));
@@ -6,18 +6,49 @@ import model.database.Student;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import util.service.database.DBContext;
+import util.service.database.RowCallback;
 
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 
 public class MarkDAO extends DBContext {
     private static final Logger logger = LoggerFactory.getLogger(MarkDAO.class);
+    private static final int CURSOR_FETCH_SIZE = 500;
 
     public MarkDAO() {
         super();
     }
 
+    /**
+     * Bảng điểm của một Grade: mọi sinh viên học Course của Grade đó, kể cả chưa có điểm (Mark null).
+     * Thứ tự cột: StudentID, StudentName, GradeName, GradePercent, Mark.
+     * Đọc tuần tự bằng cursor forward-only, mỗi dòng chuyển ngay cho {@code callback}, không gom vào List.
+     *
+     * @return số dòng đã đọc
+     */
+    public int forEachGradeSheetRow(int gradeId, RowCallback callback) throws SQLException, IOException {
+        String query = "SELECT s.StudentID, s.StudentName, g.GradeName, g.GradePercent, m.Mark " +
+                "FROM Grade g JOIN Study st ON st.CourseID = g.CourseID " +
+                "JOIN Student s ON s.StudentID = st.StudentID " +
+                "LEFT JOIN Mark m ON m.GradeID = g.GradeID AND m.StudentID = s.StudentID " +
+                "WHERE g.GradeID = ? ORDER BY s.StudentID";
+        try (Connection conn = DBContext.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(CURSOR_FETCH_SIZE);
+            ps.setInt(1, gradeId);
+            int rows = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    callback.accept(rs);
+                    rows++;
+                }
+            }
+            return rows;
+        }
+    }
+
     private Mark mapResult(ResultSet rs) throws SQLException {
         Mark mark = new Mark();
         Grade grade = new Grade();
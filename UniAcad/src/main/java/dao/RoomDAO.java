@@ -51,6 +51,26 @@ public class RoomDAO extends DBContext {
         return rooms;
     }
 
+    /**
+     * Mã của mọi phòng.
+     *
+     * @throws RuntimeException nếu lỗi DB (không trả về danh sách thiếu như {@link #getAllRooms()})
+     */
+    public List<String> getAllRoomIds() {
+        List<String> roomIds = new ArrayList<>();
+        String query = "SELECT RoomID FROM Room";
+        try (Connection connection = getConnection();
+             PreparedStatement ps = connection.prepareStatement(query);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                roomIds.add(rs.getString("RoomID"));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error retrieving room IDs", e);
+        }
+        return roomIds;
+    }
+
     public boolean createRoom(Room room) {
         String query = "INSERT INTO Room (RoomID) VALUES (?)";
         try (PreparedStatement ps = getConnection().prepareStatement(query)) {
@@ -1,6 +1,7 @@
 package dao;
 
 import model.datasupport.ScheduleItem;
+import model.datasupport.TimetableSync;
 import util.service.database.DBContext;
 
 import java.sql.*;
@@ -53,6 +54,107 @@ public class ScheduleDAO extends DBContext {
         return schedule;
     }
 
+    /**
+     * Đồng bộ thời khóa biểu của cả học kỳ trong một truy vấn.
+     * Nếu sinceVersion == null thì trả về toàn bộ học kỳ, ngược lại chỉ trả về các slot
+     * có Slot/Study/Attendent thay đổi (theo cột RowVer) kể từ token đó.
+     * Token mới lấy từ MIN_ACTIVE_ROWVERSION() trước khi đọc dữ liệu nên không bỏ sót
+     * các giao dịch đang chạy; một slot có thể bị gửi lại nhưng client chỉ ghi đè theo key.
+     * <p>
+     * RowVer không báo được slot bị xóa hay môn bị rút, nên token còn kèm dấu vân tay (số slot + checksum các key
+     * CourseID/SlotNumber); dấu vân tay khác với lần trước thì trả về toàn bộ học kỳ (full) để client bỏ slot cũ.
+     * Token có dạng {@code <rowversion>:<dấu vân tay>}.
+     *
+     * @param termId     học kỳ cần lấy, null = mọi course đang mở
+     * @param sinceToken token từ lần đồng bộ trước, null = lấy toàn bộ
+     */
+    public TimetableSync syncTermSchedule(String studentId, String termId, String sinceToken) throws SQLException {
+        Long sinceVersion = null;
+        String sinceFingerprint = null;
+        // Token cũ không có dấu vân tay → đồng bộ toàn bộ
+        int separator = sinceToken != null ? sinceToken.indexOf(':') : -1;
+        if (separator >= 0) {
+            sinceVersion = Long.parseLong(sinceToken.substring(0, separator));
+            sinceFingerprint = sinceToken.substring(separator + 1);
+        }
+
+        String from = "FROM Slot s " +
+                "JOIN Course c ON s.CourseID = c.CourseID " +
+                "JOIN [Subject] su ON c.SubjectID = su.SubjectID " +
+                "JOIN Study st ON c.CourseID = st.CourseID " +
+                "JOIN Room r ON s.RoomID = r.RoomID ";
+        String where = "WHERE st.StudentID = ? " +
+                "AND c.CourseStatus = 0 " +
+                (termId != null ? "AND c.TermID = ? " : "");
+
+        List<ScheduleItem> items = new ArrayList<>();
+        long currentVersion;
+        String fingerprint;
+        try (Connection conn = getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement("SELECT CAST(MIN_ACTIVE_ROWVERSION() AS BIGINT)");
+                 ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                currentVersion = rs.getLong(1);
+            }
+
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT COUNT(*), CHECKSUM_AGG(BINARY_CHECKSUM(s.CourseID, s.SlotNumber)) " + from + where)) {
+                ps.setString(1, studentId);
+                if (termId != null) {
+                    ps.setString(2, termId);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    fingerprint = rs.getInt(1) + "-" + rs.getInt(2);
+                }
+            }
+            if (sinceFingerprint != null && !sinceFingerprint.equals(fingerprint)) {
+                // Có slot bị xóa hoặc thêm/bớt môn: đồng bộ lại toàn bộ
+                sinceVersion = null;
+            }
+
+            String sql = "SELECT s.CourseID, s.SlotNumber, su.SubjectName, r.RoomID, s.StartTime, s.Duration, a.Status " +
+                    from +
+                    "LEFT JOIN Attendent a ON a.StudentID = st.StudentID AND a.CourseID = s.CourseID AND a.SlotNumber = s.SlotNumber " +
+                    where +
+                    (sinceVersion != null
+                            ? "AND (CAST(s.RowVer AS BIGINT) >= ? OR CAST(st.RowVer AS BIGINT) >= ? OR CAST(a.RowVer AS BIGINT) >= ?) "
+                            : "") +
+                    "ORDER BY s.StartTime";
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                int idx = 1;
+                ps.setString(idx++, studentId);
+                if (termId != null) {
+                    ps.setString(idx++, termId);
+                }
+                if (sinceVersion != null) {
+                    ps.setLong(idx++, sinceVersion);
+                    ps.setLong(idx++, sinceVersion);
+                    ps.setLong(idx, sinceVersion);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Boolean attendStatus = null;
+                        boolean statusValue = rs.getBoolean("Status");
+                        if (!rs.wasNull()) {
+                            attendStatus = statusValue;
+                        }
+
+                        items.add(new ScheduleItem(
+                                rs.getInt("CourseID"),
+                                rs.getInt("SlotNumber"),
+                                rs.getString("SubjectName"),
+                                rs.getString("RoomID"),
+                                rs.getTimestamp("StartTime"),
+                                rs.getTime("Duration"),
+                                attendStatus));
+                    }
+                }
+            }
+        }
+        return new TimetableSync(studentId, termId, currentVersion + ":" + fingerprint, sinceVersion == null, items);
+    }
+
 
     public static void main(String[] args) {
         try {
@@ -5,6 +5,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import util.service.database.DBContext;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -14,6 +15,7 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class SlotDAO extends DBContext {
     private static final Logger logger = LoggerFactory.getLogger(SlotDAO.class);
@@ -105,6 +107,59 @@ public class SlotDAO extends DBContext {
         return slots;
     }
 
+    /**
+     * Các slot đã có giờ học của học kỳ.
+     *
+     * @throws RuntimeException nếu lỗi DB (không trả về danh sách thiếu)
+     */
+    public List<Slot> getSlotsByTerm(String termId) {
+        List<Slot> slots = new ArrayList<>();
+        String query = """
+            SELECT s.SlotNumber, s.StartTime, s.Duration, s.CourseID, s.RoomID, s.TeacherID
+            FROM Slot s
+            JOIN Course c ON s.CourseID = c.CourseID
+            WHERE c.TermID = ? AND s.StartTime IS NOT NULL AND s.Duration IS NOT NULL
+            """;
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setString(1, termId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    slots.add(resultMap(resultSet));
+                }
+            }
+            logger.debug("Retrieved {} slots for TermID: {}", slots.size(), termId);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error retrieving slots for TermID: " + termId, e);
+        }
+        return slots;
+    }
+
+    /**
+     * Gán phòng cho nhiều slot trong một batch, trên kết nối/transaction của người gọi (không commit).
+     *
+     * @param roomBySlot SlotId → RoomID
+     * @return số slot đã cập nhật
+     */
+    public int updateSlotRooms(Connection connection, Map<SlotId, String> roomBySlot) throws SQLException {
+        if (roomBySlot.isEmpty()) return 0;
+        String query = "UPDATE Slot SET RoomID = ? WHERE CourseID = ? AND SlotNumber = ?";
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            for (Map.Entry<SlotId, String> entry : roomBySlot.entrySet()) {
+                statement.setString(1, entry.getValue());
+                statement.setInt(2, entry.getKey().getCourseID());
+                statement.setInt(3, entry.getKey().getSlotNumber());
+                statement.addBatch();
+            }
+            int updated = 0;
+            for (int count : statement.executeBatch()) {
+                updated += Math.max(count, 0);
+            }
+            logger.debug("Updated room for {} slots", updated);
+            return updated;
+        }
+    }
+
     public List<String> checkTimetableConflicts(String studentId, String startDate, String endDate) {
         List<Slot> slots = getStudentWeeklyTimetable(studentId, startDate, endDate);
         List<String> conflicts = new ArrayList<>();
@@ -5,16 +5,35 @@ import model.database.Student;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import util.service.database.DBContext;
-import util.service.normalization.NormalizationService;
-import util.service.security.VerifyChecking;
+import util.service.normalization.StudentNormalizer;
 
 import java.sql.*;
-import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class StudentDAO extends DBContext {
     private static final Logger logger = LoggerFactory.getLogger(StudentDAO.class);
-    private final VerifyChecking verifyChecking = new VerifyChecking();
-    private final NormalizationService normalizationService = new NormalizationService();
+    private final StudentNormalizer studentNormalizer = new StudentNormalizer();
+    private static final int IN_CHUNK_SIZE = 1000;
+    // Như phép = của SQL Server trên cột CI: bỏ khoảng trắng đầu/cuối, không phân biệt hoa thường
+    private static final Comparator<String> LOOKUP_ORDER = (a, b) -> String.CASE_INSENSITIVE_ORDER.compare(a.trim(), b.trim());
+    private static final String INSERT_STUDENT = "INSERT INTO Student (StudentID, StudentName, StudentSSN, StudentEmail, StudentPhone, CurriculumID, StudentGender, Address, StudentDoB, StudentStatus) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    // Cùng thứ tự tham số với INSERT_STUDENT; khi cập nhật không đụng StudentStatus (file import không có cột này)
+    private static final String MERGE_STUDENT = "MERGE Student WITH (HOLDLOCK) AS t " +
+            "USING (VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)) AS s (StudentID, StudentName, StudentSSN, StudentEmail, StudentPhone, CurriculumID, StudentGender, Address, StudentDoB, StudentStatus) " +
+            "ON t.StudentID = s.StudentID " +
+            "WHEN MATCHED THEN UPDATE SET StudentName = s.StudentName, StudentSSN = s.StudentSSN, StudentEmail = s.StudentEmail, " +
+            "StudentPhone = s.StudentPhone, CurriculumID = s.CurriculumID, StudentGender = s.StudentGender, Address = s.Address, StudentDoB = s.StudentDoB " +
+            "WHEN NOT MATCHED THEN INSERT (StudentID, StudentName, StudentSSN, StudentEmail, StudentPhone, CurriculumID, StudentGender, Address, StudentDoB, StudentStatus) " +
+            "VALUES (s.StudentID, s.StudentName, s.StudentSSN, s.StudentEmail, s.StudentPhone, s.CurriculumID, s.StudentGender, s.Address, s.StudentDoB, s.StudentStatus);";
 
     public StudentDAO() {
         super();
@@ -59,6 +78,88 @@ public class StudentDAO extends DBContext {
         return null;
     }
 
+    /**
+     * Tên sinh viên theo email cho cả danh sách, tra bằng các câu IN theo lô thay vì một query mỗi email.
+     *
+     * @return email → StudentName, tra không phân biệt hoa thường và khoảng trắng đầu/cuối; email không tồn tại
+     * thì không có trong map
+     * @throws RuntimeException nếu lỗi DB (không trả về kết quả thiếu)
+     */
+    public Map<String, String> getNamesByEmails(Collection<String> emails) {
+        Map<String, String> names = new TreeMap<>(LOOKUP_ORDER);
+        queryInChunks("SELECT StudentEmail, StudentName FROM Student WHERE StudentEmail IN ", emails,
+                rs -> names.put(rs.getString("StudentEmail").trim(), rs.getString("StudentName")));
+        return names;
+    }
+
+    /**
+     * Email sinh viên theo StudentID cho cả danh sách.
+     *
+     * @return StudentID → StudentEmail, tra như {@link #getNamesByEmails}; ID không tồn tại thì không có trong map
+     * @throws RuntimeException nếu lỗi DB (không trả về kết quả thiếu)
+     */
+    public Map<String, String> getEmailsByIds(Collection<String> studentIds) {
+        Map<String, String> emails = new TreeMap<>(LOOKUP_ORDER);
+        queryInChunks("SELECT StudentID, StudentEmail FROM Student WHERE StudentID IN ", studentIds,
+                rs -> emails.put(rs.getString("StudentID").trim(), rs.getString("StudentEmail")));
+        return emails;
+    }
+
+    /**
+     * Student hiện có theo StudentID cho cả danh sách (mỗi lô IN_CHUNK_SIZE ID là một query). Curriculum chỉ có
+     * CurriculumID, không tra thêm bảng Curriculum cho từng dòng.
+     *
+     * @return StudentID → Student, tra như {@link #getNamesByEmails}; ID không tồn tại thì không có trong map
+     * @throws RuntimeException nếu lỗi DB (không trả về kết quả thiếu)
+     */
+    public Map<String, Student> getStudentsByIds(Collection<String> studentIds) {
+        Map<String, Student> students = new TreeMap<>(LOOKUP_ORDER);
+        queryInChunks("SELECT * FROM Student WHERE StudentID IN ", studentIds, rs -> {
+            Student student = mapShallow(rs);
+            students.put(student.getStudentID(), student);
+        });
+        return students;
+    }
+
+    @FunctionalInterface
+    private interface RowHandler {
+        void accept(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Chạy {@code prefix (?, ?, ...)} cho từng lô tối đa IN_CHUNK_SIZE giá trị (SQL Server giới hạn 2100 tham số),
+     * dùng chung một kết nối cho mọi lô. Giá trị được trim trước khi gửi; lỗi ở bất kỳ lô nào làm hỏng cả lần tra.
+     */
+    private void queryInChunks(String prefix, Collection<String> values, RowHandler handler) {
+        if (values == null || values.isEmpty()) return;
+        LinkedHashSet<String> trimmed = new LinkedHashSet<>();
+        for (String value : values) {
+            if (value != null && !value.isBlank()) {
+                trimmed.add(value.trim());
+            }
+        }
+        if (trimmed.isEmpty()) return;
+        List<String> distinct = new ArrayList<>(trimmed);
+        try (Connection connection = getConnection()) {
+            for (int from = 0; from < distinct.size(); from += IN_CHUNK_SIZE) {
+                List<String> chunk = distinct.subList(from, Math.min(from + IN_CHUNK_SIZE, distinct.size()));
+                String query = prefix + "(" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+                try (PreparedStatement statement = connection.prepareStatement(query)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        statement.setString(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            handler.accept(rs);
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error running bulk student lookup for " + distinct.size() + " values", e);
+        }
+    }
+
     private Student mapResult(ResultSet rs) throws SQLException {
         CurriculumDAO curriculumDAO = new CurriculumDAO();
         Curriculum curriculum = curriculumDAO.getCurriculumById(rs.getString("CurriculumID"));
@@ -77,6 +178,24 @@ public class StudentDAO extends DBContext {
         );
     }
 
+    private static Student mapShallow(ResultSet rs) throws SQLException {
+        Curriculum curriculum = new Curriculum();
+        curriculum.setCurriculumID(rs.getString("CurriculumID"));
+        Date dob = rs.getDate("StudentDoB");
+        return new Student(
+                rs.getString("StudentID").trim(),
+                rs.getString("StudentName"),
+                rs.getString("StudentSSN"),
+                rs.getString("StudentEmail"),
+                rs.getString("StudentPhone"),
+                curriculum,
+                rs.getBoolean("StudentGender"),
+                rs.getString("Address"),
+                dob != null ? dob.toLocalDate() : null,
+                rs.getObject("StudentStatus", Integer.class)
+        );
+    }
+
     public Student getStudentByEmail(String email) {
         String query = "SELECT * FROM Student WHERE StudentEmail = ?";
         try (PreparedStatement statement = getConnection().prepareStatement(query)) {
@@ -109,46 +228,16 @@ public class StudentDAO extends DBContext {
             return false;
         }
 
-        // Chuẩn hóa dữ liệu đầu vào
-        String email = normalizationService.normalizationEmail(student.getStudentEmail());
-        String phone = student.getStudentPhone().trim();
-        String name = normalizationService.normalizationFullName(student.getStudentName());
-        String ssn = student.getStudentSSN().trim();
-        String address = (student.getAddress() != null) ? student.getAddress().trim() : null;
-        LocalDate dob = student.getStudentDoB();
-        Integer status = student.getStudentStatus();
-        Boolean gender = student.getStudentGender();
-        Curriculum curriculum = student.getCurriculumID();
-
-        // Validate dữ liệu sau khi chuẩn hóa
-        if (!verifyChecking.verifyEmail(email)) {
-            logger.error("Invalid email after normalization: {}", email);
-            return false;
-        }
-        if (!verifyChecking.verifyPhoneNumber(phone)) {
-            logger.error("Invalid phone number after normalization: {}", phone);
-            return false;
-        }
-        if (!verifyChecking.verifyFullName(name)) {
-            logger.error("Invalid full name after normalization: {}", name);
+        // Chuẩn hóa và validate dữ liệu đầu vào
+        String error = studentNormalizer.normalize(student);
+        if (error != null) {
+            logger.error("Invalid student {}: {}", student.getStudentID(), error);
             return false;
         }
 
-        String query = "INSERT INTO Student (StudentID, StudentName, StudentSSN, StudentEmail, StudentPhone, CurriculumID, StudentGender, Address, StudentDoB, StudentStatus) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-        try (PreparedStatement ps = getConnection().prepareStatement(query)) {
-            ps.setString(1, student.getStudentID());
-            ps.setString(2, name);
-            ps.setString(3, ssn);
-            ps.setString(4, email);
-            ps.setString(5, phone);
-            ps.setString(6, curriculum.getCurriculumID());
-            ps.setBoolean(7, gender);
-            ps.setString(8, address);
-            ps.setDate(9, Date.valueOf(dob));
-            ps.setObject(10, status);
-
+        try (Connection connection = getConnection();
+             PreparedStatement ps = connection.prepareStatement(INSERT_STUDENT)) {
+            bindInsert(ps, student);
             int rowsAffected = ps.executeUpdate();
             return rowsAffected > 0;
         } catch (SQLException e) {
@@ -157,6 +246,74 @@ public class StudentDAO extends DBContext {
         return false;
     }
 
+    /**
+     * Thêm nhiều Student (đã chuẩn hóa bằng StudentNormalizer) trong một transaction batch.
+     * Nếu batch lỗi (trùng khóa, vi phạm FK...) thì rollback và thêm lại từng dòng để biết dòng nào lỗi.
+     *
+     * @return StudentID → lý do lỗi của các dòng không thêm được
+     */
+    public Map<String, String> addStudents(List<Student> students) {
+        return executeStudentBatch(INSERT_STUDENT, students);
+    }
+
+    /**
+     * Thêm mới hoặc cập nhật nhiều Student (đã chuẩn hóa) bằng MERGE theo batch trong một transaction; Student đã
+     * có thì cập nhật mọi cột trừ StudentStatus. Lỗi batch được xử lý như {@link #addStudents(List)}.
+     *
+     * @return StudentID → lý do lỗi của các dòng không ghi được
+     */
+    public Map<String, String> upsertStudents(List<Student> students) {
+        return executeStudentBatch(MERGE_STUDENT, students);
+    }
+
+    private Map<String, String> executeStudentBatch(String sql, List<Student> students) {
+        Map<String, String> failed = new LinkedHashMap<>();
+        if (students.isEmpty()) return failed;
+        try (Connection connection = getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            connection.setAutoCommit(false);
+            try {
+                for (Student student : students) {
+                    bindInsert(ps, student);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                connection.commit();
+                return failed;
+            } catch (SQLException e) {
+                connection.rollback();
+                ps.clearBatch();
+                logger.debug("Student batch of {} failed, retrying row by row: {}", students.size(), e.getMessage());
+            }
+            connection.setAutoCommit(true);
+            for (Student student : students) {
+                try {
+                    bindInsert(ps, student);
+                    ps.executeUpdate();
+                } catch (SQLException e) {
+                    failed.put(student.getStudentID(), e.getMessage());
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error writing {} students", students.size(), e);
+            students.forEach(student -> failed.putIfAbsent(student.getStudentID(), e.getMessage()));
+        }
+        return failed;
+    }
+
+    private static void bindInsert(PreparedStatement ps, Student student) throws SQLException {
+        ps.setString(1, student.getStudentID());
+        ps.setString(2, student.getStudentName());
+        ps.setString(3, student.getStudentSSN());
+        ps.setString(4, student.getStudentEmail());
+        ps.setString(5, student.getStudentPhone());
+        ps.setString(6, student.getCurriculumID().getCurriculumID());
+        ps.setBoolean(7, student.getStudentGender());
+        ps.setString(8, student.getAddress());
+        ps.setDate(9, Date.valueOf(student.getStudentDoB()));
+        ps.setObject(10, student.getStudentStatus());
+    }
+
     public static void main(String[] args) {
         StudentDAO studentDAO = new StudentDAO();
         String email = "khai1234sd@gmail.com";
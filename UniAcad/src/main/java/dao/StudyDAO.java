@@ -6,18 +6,50 @@ import model.database.Course;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import util.service.database.DBContext;
+import util.service.database.RowCallback;
 
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 
 public class StudyDAO extends DBContext {
     private static final Logger logger = LoggerFactory.getLogger(StudyDAO.class);
+    private static final int CURSOR_FETCH_SIZE = 500;
 
     public StudyDAO() {
         super();
     }
 
+    /**
+     * Danh sách lớp của một Course, theo thứ tự cột: StudentID, StudentName, StudentEmail, StudentPhone,
+     * StudentDoB, Gender (Male/Female), StudentStatus (chữ), CurriculumID.
+     * Đọc tuần tự bằng cursor forward-only, mỗi dòng chuyển ngay cho {@code callback}, không gom vào List.
+     *
+     * @return số dòng đã đọc
+     */
+    public int forEachClassListRow(int courseId, RowCallback callback) throws SQLException, IOException {
+        String query = "SELECT s.StudentID, s.StudentName, s.StudentEmail, s.StudentPhone, s.StudentDoB, " +
+                "CASE s.StudentGender WHEN 1 THEN 'Female' ELSE 'Male' END AS Gender, " +
+                "CASE s.StudentStatus WHEN 0 THEN 'Enrolled' WHEN 1 THEN 'On leave' WHEN 2 THEN 'Suspended' " +
+                "WHEN 3 THEN 'Dropped out' WHEN 4 THEN 'Graduated' ELSE 'Unknown' END AS StudentStatus, s.CurriculumID " +
+                "FROM Study st JOIN Student s ON s.StudentID = st.StudentID " +
+                "WHERE st.CourseID = ? ORDER BY s.StudentID";
+        try (Connection conn = DBContext.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(CURSOR_FETCH_SIZE);
+            ps.setInt(1, courseId);
+            int rows = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    callback.accept(rs);
+                    rows++;
+                }
+            }
+            return rows;
+        }
+    }
+
     private Study mapResult(ResultSet rs) throws SQLException {
         Study study = new Study();
         Student student = new Student();
@@ -0,0 +1,20 @@
+package model.datasupport;
+
+/**
+ * Thông tin tài khoản tối thiểu để đăng nhập: vai trò, mã và tên hiển thị.
+ */
+public class AccountInfo {
+    private final String role; // staff, student, teacher
+    private final String accountId;
+    private final String displayName;
+
+    public AccountInfo(String role, String accountId, String displayName) {
+        this.role = role;
+        this.accountId = accountId;
+        this.displayName = displayName;
+    }
+
+    public String getRole() { return role; }
+    public String getAccountId() { return accountId; }
+    public String getDisplayName() { return displayName; }
+}
@@ -0,0 +1,42 @@
+package model.datasupport;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Một email trong bảng EmailOutbox: đủ thông tin để render template và gửi lại sau khi restart.
+ */
+public class OutboxMessage {
+    private long id;
+    private String recipient;
+    private String templateName;
+    private String subject;
+    private Map<String, Object> variables;
+    private Map<String, String> imageMap;
+    private List<String> attachmentPaths;
+    private int attempts;
+    private String dedupKey;
+
+    public OutboxMessage(String recipient, String templateName, String subject, Map<String, Object> variables,
+                         Map<String, String> imageMap, List<String> attachmentPaths) {
+        this.recipient = recipient;
+        this.templateName = templateName;
+        this.subject = subject;
+        this.variables = variables;
+        this.imageMap = imageMap;
+        this.attachmentPaths = attachmentPaths;
+    }
+
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+    public String getRecipient() { return recipient; }
+    public String getTemplateName() { return templateName; }
+    public String getSubject() { return subject; }
+    public Map<String, Object> getVariables() { return variables; }
+    public Map<String, String> getImageMap() { return imageMap; }
+    public List<String> getAttachmentPaths() { return attachmentPaths; }
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+    public String getDedupKey() { return dedupKey; }
+    public void setDedupKey(String dedupKey) { this.dedupKey = dedupKey; }
+}
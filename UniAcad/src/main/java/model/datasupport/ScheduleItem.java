@@ -4,6 +4,8 @@ import java.sql.Time;
 import java.sql.Timestamp;
 
 public class ScheduleItem {
+    private int courseId;
+    private int slotNumber;
     private String subjectName;
     private String roomId;
     private java.sql.Timestamp startTime;
@@ -25,7 +27,19 @@ public class ScheduleItem {
         this.duration = duration;
     }
 
+    public ScheduleItem(int courseId, int slotNumber, String subjectName, String roomId, Timestamp startTime, Time duration, Boolean attendStatus) {
+        this(subjectName, roomId, startTime, duration, attendStatus);
+        this.courseId = courseId;
+        this.slotNumber = slotNumber;
+    }
+
     // Getter và Setter
+    public int getCourseId() { return courseId; }
+    public void setCourseId(int courseId) { this.courseId = courseId; }
+
+    public int getSlotNumber() { return slotNumber; }
+    public void setSlotNumber(int slotNumber) { this.slotNumber = slotNumber; }
+
     public String getSubjectName() { return subjectName; }
     public void setSubjectName(String subjectName) { this.subjectName = subjectName; }
 
@@ -0,0 +1,30 @@
+package model.datasupport;
+
+import java.util.List;
+
+/**
+ * Kết quả đồng bộ thời khóa biểu: toàn bộ học kỳ (full = true) hoặc chỉ các slot
+ * đã thay đổi kể từ syncToken client gửi lên (full = false).
+ */
+public class TimetableSync {
+    private String studentId;
+    private String termId;
+    private String syncToken;
+    private boolean full;
+    private List<ScheduleItem> items;
+
+    public TimetableSync(String studentId, String termId, String syncToken, boolean full, List<ScheduleItem> items) {
+        this.studentId = studentId;
+        this.termId = termId;
+        this.syncToken = syncToken;
+        this.full = full;
+        this.items = items;
+    }
+
+    public String getStudentId() { return studentId; }
+    public String getTermId() { return termId; }
+    public String getSyncToken() { return syncToken; }
+    public void setSyncToken(String syncToken) { this.syncToken = syncToken; }
+    public boolean isFull() { return full; }
+    public List<ScheduleItem> getItems() { return items; }
+}
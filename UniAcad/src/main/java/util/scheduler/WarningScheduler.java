@@ -7,7 +7,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import util.service.warning.WarningService;
 import util.service.email.EmailTemplateService;
-import jakarta.servlet.ServletContext;
 import java.util.List;
 import model.datasupport.WarningInfo;
 
@@ -19,9 +18,6 @@ public class WarningScheduler {
     @Inject
     private WarningService warningService;
 
-    @Inject
-    private ServletContext servletContext;  // inject servlet context để dùng trong EmailTemplateService
-
     @Schedule(hour = "*", minute = "0", persistent = false) // mỗi giờ quét một lần
     public void checkAndSendWarnings() {
         logger.info("[WarningScheduler] Running scheduled task to check warnings...");
@@ -33,11 +29,11 @@ public class WarningScheduler {
                 return;
             }
 
-            EmailTemplateService emailService = new EmailTemplateService(servletContext);
+            // Chỉ ghi vào outbox, EmailOutboxWorker gửi ở nền
+            EmailTemplateService emailService = new EmailTemplateService();
             emailService.sendWarningEmails(warningList);
-            emailService.shutdown();
 
-            logger.info("[WarningScheduler] Sent warning emails successfully to {} students.", warningList.size());
+            logger.info("[WarningScheduler] Queued warning emails for {} students.", warningList.size());
         } catch (Exception e) {
             logger.error("[WarningScheduler] Error during scheduled warning task: {}", e.getMessage(), e);
         }
@@ -0,0 +1,422 @@
+package util.service.allocation;
+
+import dao.ExamDAO;
+import dao.RoomDAO;
+import dao.SlotDAO;
+import model.database.Exam;
+import model.database.Slot;
+import model.database.SlotId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.service.database.DBContext;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * RoomAllocationService: tự động gán phòng cho Slot và Exam chưa có phòng trong một học kỳ.
+ * <p>
+ * Toàn bộ slot/exam của học kỳ được nạp một lần vào bộ nhớ. Các booking được tách thành
+ * những cụm rời nhau theo thời gian (không chồng giờ giữa các cụm) và mỗi cụm được giải
+ * song song: greedy best-fit theo thời gian bắt đầu, sau đó local search (đẩy một booking
+ * đang chặn sang phòng khác) cho những booking chưa xếp được, trong giới hạn thời gian.
+ * Booking đã có phòng được giữ nguyên và coi như chiếm chỗ cố định.
+ * Kết quả (phòng của slot và exam) được ghi trong cùng một transaction.
+ */
+public class RoomAllocationService {
+    private static final Logger logger = LoggerFactory.getLogger(RoomAllocationService.class);
+    private static final Duration DEFAULT_TIME_BUDGET = Duration.ofSeconds(10);
+
+    private final SlotDAO slotDAO;
+    private final ExamDAO examDAO;
+    private final RoomDAO roomDAO;
+    private final int threadCount;
+
+    public RoomAllocationService() {
+        this(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public RoomAllocationService(int threadCount) {
+        this.slotDAO = new SlotDAO();
+        this.examDAO = new ExamDAO();
+        this.roomDAO = new RoomDAO();
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Gán phòng cho mọi Slot/Exam chưa có phòng của học kỳ và lưu kết quả xuống DB.
+     *
+     * @throws IllegalStateException nếu không nạp đủ dữ liệu hoặc không lưu được; khi đó không slot/exam nào bị đổi phòng
+     */
+    public AllocationResult allocateTerm(String termId, Duration timeBudget) {
+        // Thiếu slot thì exam sẽ được xếp vào phòng mà slot đang giữ, nên lỗi nạp phải dừng cả lần xếp
+        List<Booking> bookings = new ArrayList<>();
+        List<String> rooms;
+        try {
+            for (Slot slot : slotDAO.getSlotsByTerm(termId)) {
+                bookings.add(Booking.ofSlot(slot));
+            }
+            for (Exam exam : examDAO.getExamsByTerm(termId)) {
+                bookings.add(Booking.ofExam(exam));
+            }
+            rooms = roomDAO.getAllRoomIds();
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Could not load slots, exams and rooms for term " + termId
+                    + "; nothing was saved", e);
+        }
+
+        AllocationResult result = solve(bookings, rooms, timeBudget);
+
+        Map<SlotId, String> slotRooms = new HashMap<>();
+        Map<Integer, String> examRooms = new HashMap<>();
+        for (Booking booking : result.assigned) {
+            if (booking.kind == BookingKind.SLOT) {
+                SlotId slotId = new SlotId();
+                slotId.setCourseID(booking.id);
+                slotId.setSlotNumber(booking.slotNumber);
+                slotRooms.put(slotId, booking.roomId);
+            } else {
+                examRooms.put(booking.id, booking.roomId);
+            }
+        }
+        int updatedSlots;
+        int updatedExams;
+        try (Connection connection = DBContext.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                updatedSlots = slotDAO.updateSlotRooms(connection, slotRooms);
+                updatedExams = examDAO.updateExamRooms(connection, examRooms);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not save room allocation for term " + termId, e);
+        }
+        logger.info("Term {}: assigned {} slots, {} exams, {} left unassigned in {} ms{}",
+                termId, updatedSlots, updatedExams, result.unassigned.size(), result.elapsedMillis,
+                result.timedOut ? " (time budget reached)" : "");
+        return result;
+    }
+
+    /**
+     * Giải bài toán gán phòng hoàn toàn trong bộ nhớ, không đụng tới DB.
+     *
+     * @param bookings   mọi slot/exam trong học kỳ; booking có roomId != null là cố định
+     * @param rooms      danh sách phòng có thể dùng
+     * @param timeBudget thời gian tối đa cho cả greedy và local search
+     */
+    public AllocationResult solve(List<Booking> bookings, List<String> rooms, Duration timeBudget) {
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + (timeBudget != null ? timeBudget : DEFAULT_TIME_BUDGET).toNanos();
+
+        Map<String, Integer> roomIndex = new HashMap<>();
+        for (String room : rooms) {
+            roomIndex.putIfAbsent(room, roomIndex.size());
+        }
+        String[] roomIds = new String[roomIndex.size()];
+        roomIndex.forEach((roomId, index) -> roomIds[index] = roomId);
+
+        List<List<Booking>> components = splitIndependent(bookings);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        List<Booking> assigned = new ArrayList<>();
+        List<Booking> unassigned = new ArrayList<>();
+        boolean timedOut = false;
+        try {
+            List<Future<ComponentResult>> futures = new ArrayList<>(components.size());
+            for (List<Booking> component : components) {
+                futures.add(executor.submit(() -> new ComponentSolver(component, roomIds, roomIndex, deadline).solve()));
+            }
+            for (Future<ComponentResult> future : futures) {
+                ComponentResult part = future.get();
+                assigned.addAll(part.assigned);
+                unassigned.addAll(part.unassigned);
+                timedOut |= part.timedOut;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Room allocation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Room allocation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        logger.debug("Solved {} bookings in {} components with {} rooms: {} assigned, {} unassigned, {} ms",
+                bookings.size(), components.size(), roomIds.length, assigned.size(), unassigned.size(), elapsedMillis);
+        return new AllocationResult(assigned, unassigned, elapsedMillis, timedOut);
+    }
+
+    /**
+     * Tách booking thành các cụm không chồng giờ nhau (sweep theo thời gian bắt đầu).
+     */
+    private List<List<Booking>> splitIndependent(List<Booking> bookings) {
+        List<Booking> sorted = new ArrayList<>(bookings);
+        sorted.sort(Comparator.comparingLong((Booking b) -> b.start).thenComparingLong(b -> b.end));
+
+        List<List<Booking>> components = new ArrayList<>();
+        List<Booking> current = new ArrayList<>();
+        long currentEnd = Long.MIN_VALUE;
+        for (Booking booking : sorted) {
+            if (!current.isEmpty() && booking.start >= currentEnd) {
+                components.add(current);
+                current = new ArrayList<>();
+            }
+            current.add(booking);
+            currentEnd = Math.max(currentEnd, booking.end);
+        }
+        if (!current.isEmpty()) {
+            components.add(current);
+        }
+        return components;
+    }
+
+    /**
+     * Lịch của một phòng: start → các booking bắt đầu lúc đó (có thể nhiều booking cố định trùng giờ bắt đầu).
+     * Booking chồng giờ với [start, end) phải bắt đầu trong (start - maxDuration, end), nên chỉ cần quét khoảng đó.
+     */
+    private static final class RoomSchedule {
+        private final TreeMap<Long, List<Booking>> byStart = new TreeMap<>();
+        private long maxDuration;
+
+        void add(Booking booking) {
+            byStart.computeIfAbsent(booking.start, key -> new ArrayList<>(1)).add(booking);
+            maxDuration = Math.max(maxDuration, booking.end - booking.start);
+        }
+
+        void remove(Booking booking) {
+            List<Booking> atStart = byStart.get(booking.start);
+            if (atStart != null && atStart.remove(booking) && atStart.isEmpty()) {
+                byStart.remove(booking.start);
+            }
+        }
+
+        /**
+         * Tối đa {@code limit} booking chồng giờ với [start, end).
+         */
+        List<Booking> overlapping(long start, long end, int limit) {
+            List<Booking> found = new ArrayList<>(limit);
+            for (List<Booking> atStart : byStart.subMap(start - maxDuration, false, end, false).values()) {
+                for (Booking other : atStart) {
+                    if (other.end > start) {
+                        found.add(other);
+                        if (found.size() >= limit) return found;
+                    }
+                }
+            }
+            return found;
+        }
+
+        boolean isFree(long start, long end) {
+            return overlapping(start, end, 1).isEmpty();
+        }
+
+        /**
+         * Giờ kết thúc muộn nhất của các booking bắt đầu ngay trước {@code start}, null nếu không có.
+         */
+        Long previousEnd(long start) {
+            Map.Entry<Long, List<Booking>> previous = byStart.lowerEntry(start);
+            if (previous == null) return null;
+            long end = Long.MIN_VALUE;
+            for (Booking booking : previous.getValue()) {
+                end = Math.max(end, booking.end);
+            }
+            return end;
+        }
+    }
+
+    /**
+     * Giải một cụm booking, mỗi phòng một {@link RoomSchedule}.
+     */
+    private static class ComponentSolver {
+        private final List<Booking> bookings;
+        private final String[] roomIds;
+        private final Map<String, Integer> roomIndex;
+        private final long deadline;
+        private final List<RoomSchedule> occupancy;
+
+        ComponentSolver(List<Booking> bookings, String[] roomIds, Map<String, Integer> roomIndex, long deadline) {
+            this.bookings = bookings;
+            this.roomIds = roomIds;
+            this.roomIndex = roomIndex;
+            this.deadline = deadline;
+            this.occupancy = new ArrayList<>(roomIds.length);
+            for (int i = 0; i < roomIds.length; i++) {
+                occupancy.add(new RoomSchedule());
+            }
+        }
+
+        ComponentResult solve() {
+            List<Booking> pending = new ArrayList<>();
+            for (Booking booking : bookings) {
+                if (booking.fixed) {
+                    Integer room = roomIndex.get(booking.roomId);
+                    if (room != null) {
+                        occupancy.get(room).add(booking);
+                    }
+                } else {
+                    pending.add(booking);
+                }
+            }
+
+            // Greedy best-fit: chọn phòng trống mà booking trước đó kết thúc gần giờ bắt đầu nhất.
+            // Hết giờ giữa chừng thì các booking còn lại để chưa xếp
+            List<Booking> leftover = new ArrayList<>();
+            boolean timedOut = false;
+            for (Booking booking : pending) {
+                if (!timedOut && System.nanoTime() > deadline) {
+                    timedOut = true;
+                }
+                int room = timedOut ? -1 : bestFitRoom(booking);
+                if (room >= 0) {
+                    place(booking, room);
+                } else {
+                    leftover.add(booking);
+                }
+            }
+
+            // Local search: đẩy booking duy nhất đang chặn sang phòng khác để lấy chỗ
+            boolean progress = !timedOut && !leftover.isEmpty();
+            while (progress && !leftover.isEmpty()) {
+                progress = false;
+                Iterator<Booking> iterator = leftover.iterator();
+                while (iterator.hasNext()) {
+                    if (System.nanoTime() > deadline) {
+                        timedOut = true;
+                        break;
+                    }
+                    if (tryEject(iterator.next())) {
+                        iterator.remove();
+                        progress = true;
+                    }
+                }
+                if (timedOut) break;
+            }
+
+            List<Booking> assigned = new ArrayList<>(pending.size() - leftover.size());
+            for (Booking booking : pending) {
+                if (booking.roomId != null) {
+                    assigned.add(booking);
+                }
+            }
+            return new ComponentResult(assigned, leftover, timedOut);
+        }
+
+        private int bestFitRoom(Booking booking) {
+            int best = -1;
+            long bestGap = Long.MAX_VALUE;
+            for (int room = 0; room < roomIds.length; room++) {
+                if (!occupancy.get(room).isFree(booking.start, booking.end)) continue;
+                Long previousEnd = occupancy.get(room).previousEnd(booking.start);
+                long gap = previousEnd == null ? Long.MAX_VALUE - 1 : booking.start - previousEnd;
+                if (gap < bestGap) {
+                    bestGap = gap;
+                    best = room;
+                }
+            }
+            return best;
+        }
+
+        private boolean tryEject(Booking booking) {
+            for (int room = 0; room < roomIds.length; room++) {
+                Booking blocker = singleBlocker(room, booking);
+                if (blocker == null || blocker.fixed) continue;
+                for (int target = 0; target < roomIds.length; target++) {
+                    if (target == room || !occupancy.get(target).isFree(blocker.start, blocker.end)) continue;
+                    occupancy.get(room).remove(blocker);
+                    place(blocker, target);
+                    place(booking, room);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Trả về booking duy nhất trong phòng chồng giờ với booking, null nếu không có hoặc có nhiều hơn một.
+         */
+        private Booking singleBlocker(int room, Booking booking) {
+            List<Booking> blockers = occupancy.get(room).overlapping(booking.start, booking.end, 2);
+            return blockers.size() == 1 ? blockers.get(0) : null;
+        }
+
+        private void place(Booking booking, int room) {
+            booking.roomId = roomIds[room];
+            occupancy.get(room).add(booking);
+        }
+    }
+
+    private record ComponentResult(List<Booking> assigned, List<Booking> unassigned, boolean timedOut) {
+    }
+
+    public enum BookingKind {
+        SLOT, EXAM
+    }
+
+    /**
+     * Một khoảng thời gian cần phòng: Slot (id = CourseID, slotNumber) hoặc Exam (id = ExamID).
+     * Thời gian tính bằng phút kể từ epoch; booking không có thời lượng vẫn chiếm phút bắt đầu của nó.
+     */
+    public static class Booking {
+        public final BookingKind kind;
+        public final int id;
+        public final int slotNumber;
+        public final long start;
+        public final long end;
+        public final boolean fixed;
+        public String roomId;
+
+        public Booking(BookingKind kind, int id, int slotNumber, long start, long end, String roomId) {
+            this.kind = kind;
+            this.id = id;
+            this.slotNumber = slotNumber;
+            this.start = start;
+            this.end = Math.max(end, start + 1);
+            this.roomId = roomId;
+            this.fixed = roomId != null;
+        }
+
+        public static Booking ofSlot(Slot slot) {
+            long start = toMinutes(slot.getStartTime());
+            String roomId = slot.getRoomID() != null ? slot.getRoomID().getRoomID() : null;
+            return new Booking(BookingKind.SLOT, slot.getId().getCourseID(), slot.getId().getSlotNumber(),
+                    start, start + durationMinutes(slot.getDuration()), roomId);
+        }
+
+        public static Booking ofExam(Exam exam) {
+            long start = toMinutes(exam.getExamDate());
+            String roomId = exam.getRoomID() != null ? exam.getRoomID().getRoomID() : null;
+            return new Booking(BookingKind.EXAM, exam.getId(), 0,
+                    start, start + durationMinutes(exam.getExamDuration()), roomId);
+        }
+
+        private static long toMinutes(Instant instant) {
+            return instant.getEpochSecond() / 60;
+        }
+
+        private static long durationMinutes(LocalTime duration) {
+            return duration == null ? 0 : duration.getHour() * 60L + duration.getMinute();
+        }
+    }
+
+    public static class AllocationResult {
+        public final List<Booking> assigned;
+        public final List<Booking> unassigned;
+        public final long elapsedMillis;
+        public final boolean timedOut;
+
+        public AllocationResult(List<Booking> assigned, List<Booking> unassigned, long elapsedMillis, boolean timedOut) {
+            this.assigned = assigned;
+            this.unassigned = unassigned;
+            this.elapsedMillis = elapsedMillis;
+            this.timedOut = timedOut;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package util.service.audit;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Access/audit log bất đồng bộ.
+ * <p>
+ * Thread xử lý request chỉ ghi vài field vào một slot đã cấp phát sẵn trong ring buffer
+ * (giành slot bằng CAS, không lock, không format chuỗi). Một thread nền đọc theo lô,
+ * format và ghi ra file xoay vòng theo ngày và theo kích thước.
+ * Khi buffer đầy, sự kiện bị bỏ và tăng bộ đếm drop thay vì chặn request.
+ */
+public final class AuditLog {
+    private static final Logger logger = LoggerFactory.getLogger(AuditLog.class);
+
+    private static final int DEFAULT_CAPACITY = 1 << 14;
+    private static final int BATCH_SIZE = 512;
+    private static final long IDLE_PARK_NANOS = 2_000_000L;
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+
+    public enum Type {
+        ACCESS, GRANT, DENY, AUDIT, ERROR
+    }
+
+    /**
+     * Slot cố định trong ring buffer; được tái sử dụng, không tạo mới mỗi sự kiện.
+     */
+    private static final class Event {
+        long timestamp;
+        Type type;
+        String principal;
+        String action;
+        String target;
+        int status;
+        long durationMicros;
+        String detail;
+        Throwable error;
+
+        void clear() {
+            principal = null;
+            action = null;
+            target = null;
+            detail = null;
+            error = null;
+        }
+    }
+
+    private static volatile AuditLog instance;
+
+    private final Event[] ring;
+    private final int mask;
+    private final AtomicLongArray published;   // published[i] = sequence đã ghi xong vào slot i
+    private final AtomicLong claimSequence = new AtomicLong(0);
+    private final AtomicLong consumeSequence = new AtomicLong(0);
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    private final Path directory;
+    private final String filePrefix;
+    private final long maxFileBytes;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    // Chỉ thread ghi dùng các field dưới đây
+    private BufferedWriter out;
+    private LocalDate currentDay;
+    private long currentFileBytes;
+    private long cachedSecond = -1;
+    private String cachedSecondText;
+
+    public static AuditLog getInstance() {
+        AuditLog local = instance;
+        if (local == null) {
+            synchronized (AuditLog.class) {
+                local = instance;
+                if (local == null) {
+                    Dotenv dotenv = Dotenv.configure().filename("save.env").ignoreIfMissing().load();
+                    local = new AuditLog(
+                            Path.of(dotenv.get("AUDIT_LOG_DIR", "logs")),
+                            "access",
+                            Integer.parseInt(dotenv.get("AUDIT_LOG_BUFFER", String.valueOf(DEFAULT_CAPACITY))),
+                            Long.parseLong(dotenv.get("AUDIT_LOG_MAX_FILE_MB", "50")) * 1024 * 1024);
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    public AuditLog(Path directory, String filePrefix, int capacity, long maxFileBytes) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new Event[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Event();
+        }
+        this.mask = size - 1;
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.directory = directory;
+        this.filePrefix = filePrefix;
+        this.maxFileBytes = maxFileBytes;
+        this.writerThread = new Thread(this::drainLoop, "audit-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Ghi một dòng access log cho request đã hoàn tất.
+     */
+    public void access(String principal, String method, String path, int status, long durationNanos) {
+        publish(Type.ACCESS, principal, method, path, status, durationNanos / 1000, null, null);
+    }
+
+    public void grant(String principal, String role, String path) {
+        publish(Type.GRANT, principal, role, path, 0, 0, null, null);
+    }
+
+    public void deny(String principal, String role, String path) {
+        publish(Type.DENY, principal, role, path, 0, 0, null, null);
+    }
+
+    /**
+     * Sự kiện nghiệp vụ cần lưu vết (vd. webhook thanh toán).
+     */
+    public void audit(String principal, String action, String target, String detail) {
+        publish(Type.AUDIT, principal, action, target, 0, 0, detail, null);
+    }
+
+    /**
+     * Lỗi kèm exception; stack trace được format trên thread nền, không phải trên thread request.
+     */
+    public void error(String principal, String action, String target, Throwable error) {
+        publish(Type.ERROR, principal, action, target, 0, 0, error.getMessage(), error);
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    private void publish(Type type, String principal, String action, String target, int status,
+                         long durationMicros, String detail, Throwable error) {
+        long sequence;
+        do {
+            sequence = claimSequence.get();
+            if (sequence - consumeSequence.get() >= ring.length) {
+                dropped.increment();
+                return;
+            }
+        } while (!claimSequence.compareAndSet(sequence, sequence + 1));
+
+        int index = (int) (sequence & mask);
+        Event event = ring[index];
+        event.timestamp = System.currentTimeMillis();
+        event.type = type;
+        event.principal = principal;
+        event.action = action;
+        event.target = target;
+        event.status = status;
+        event.durationMicros = durationMicros;
+        event.detail = detail;
+        event.error = error;
+        published.set(index, sequence); // volatile write: công bố slot cho thread ghi
+    }
+
+    private void drainLoop() {
+        StringBuilder line = new StringBuilder(256);
+        while (running || consumeSequence.get() < claimSequence.get()) {
+            int drained = 0;
+            long sequence = consumeSequence.get();
+            try {
+                while (drained < BATCH_SIZE) {
+                    int index = (int) (sequence & mask);
+                    if (published.get(index) != sequence) {
+                        break; // slot chưa được producer ghi xong
+                    }
+                    Event event = ring[index];
+                    long timestamp = event.timestamp;
+                    line.setLength(0);
+                    format(event, line);
+                    event.clear();
+                    sequence++;
+                    consumeSequence.lazySet(sequence); // trả slot cho producer
+                    write(line, timestamp);
+                    drained++;
+                }
+                if (drained > 0) {
+                    out.flush();
+                    written.add(drained);
+                } else {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            } catch (IOException e) {
+                logger.error("Audit log write failed, events in this batch are lost", e);
+                closeQuietly();
+                LockSupport.parkNanos(1_000_000_000L);
+            }
+        }
+        closeQuietly();
+    }
+
+    private void format(Event event, StringBuilder line) {
+        long second = event.timestamp / 1000;
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedSecondText = TIMESTAMP.format(Instant.ofEpochSecond(second));
+        }
+        int millis = (int) (event.timestamp % 1000);
+        line.append(cachedSecondText).append('.')
+                .append((char) ('0' + millis / 100)).append((char) ('0' + millis / 10 % 10)).append((char) ('0' + millis % 10))
+                .append(' ').append(event.type)
+                .append(' ').append(event.principal != null ? event.principal : "-")
+                .append(' ').append(event.action != null ? event.action : "-")
+                .append(' ').append(event.target != null ? event.target : "-");
+        if (event.type == Type.ACCESS) {
+            line.append(' ').append(event.status).append(' ').append(event.durationMicros).append("us");
+        }
+        if (event.detail != null) {
+            line.append(" \"").append(event.detail.replace('\n', ' ')).append('"');
+        }
+        line.append('\n');
+        if (event.error != null) {
+            StringWriter trace = new StringWriter();
+            event.error.printStackTrace(new PrintWriter(trace));
+            line.append(trace);
+        }
+    }
+
+    private void write(CharSequence line, long timestamp) throws IOException {
+        LocalDate day = Instant.ofEpochMilli(timestamp).atZone(ZoneId.systemDefault()).toLocalDate();
+        if (out == null || !day.equals(currentDay) || currentFileBytes >= maxFileBytes) {
+            roll(day);
+        }
+        out.append(line);
+        currentFileBytes += line.length();
+    }
+
+    /**
+     * File theo ngày: access-2025-06-01.log; khi vượt kích thước thì chuyển sang access-2025-06-01.1.log, .2.log...
+     */
+    private void roll(LocalDate day) throws IOException {
+        closeQuietly();
+        Files.createDirectories(directory);
+        Path file = directory.resolve(filePrefix + "-" + day + ".log");
+        for (int part = 1; Files.exists(file) && Files.size(file) >= maxFileBytes; part++) {
+            file = directory.resolve(filePrefix + "-" + day + "." + part + ".log");
+        }
+        out = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        currentDay = day;
+        currentFileBytes = Files.size(file);
+    }
+
+    private void closeQuietly() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                logger.warn("Error closing audit log file", e);
+            }
+            out = null;
+        }
+    }
+
+    /**
+     * Dừng thread ghi sau khi đã ghi hết các sự kiện còn trong buffer.
+     */
+    public void shutdown() {
+        running = false;
+        try {
+            writerThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Audit log stopped: {} events written, {} dropped", getWrittenCount(), getDroppedCount());
+    }
+}
@@ -4,6 +4,7 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 
 /**
@@ -14,6 +15,10 @@ public class DBContext {
     private static final String NAME_CLASS = "DBContext";
     private static final Properties properties = new Properties();
 
+    // Số liệu kết nối cho /metrics; Connection trả về là của driver, không bọc, nên không đếm được close()
+    private static final LongAdder openedConnections = new LongAdder();
+    private static final LongAdder acquireNanos = new LongAdder();
+
     static {
         try {
             properties.load(DBContext.class.getResourceAsStream("/database.properties"));
@@ -31,10 +36,22 @@ public class DBContext {
      * @throws SQLException if a database access error occurs
      */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(
+        long start = System.nanoTime();
+        Connection connection = DriverManager.getConnection(
                 properties.getProperty("DB_URL"),
                 properties.getProperty("DB_USERNAME"),
                 properties.getProperty("DB_PASSWORD")
         );
+        acquireNanos.add(System.nanoTime() - start);
+        openedConnections.increment();
+        return connection;
+    }
+
+    public static long getOpenedConnections() {
+        return openedConnections.sum();
+    }
+
+    public static long getAcquireNanos() {
+        return acquireNanos.sum();
     }
 }
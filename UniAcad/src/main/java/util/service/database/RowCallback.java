@@ -0,0 +1,14 @@
+package util.service.database;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Callback cho các truy vấn dạng cursor của DAO: được gọi một lần cho mỗi dòng, ResultSet đã đứng ở dòng đó.
+ * Không giữ tham chiếu tới ResultSet sau khi hàm trả về.
+ */
+@FunctionalInterface
+public interface RowCallback {
+    void accept(ResultSet rs) throws SQLException, IOException;
+}
@@ -0,0 +1,213 @@
+package util.service.email;
+
+import dao.EmailOutboxDAO;
+import io.github.cdimascio.dotenv.Dotenv;
+import jakarta.mail.MessagingException;
+import model.datasupport.OutboxMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Thread nền gửi email từ bảng EmailOutbox.
+ * <p>
+ * Mỗi vòng claim một lô email đến hạn, gửi song song qua MailService rồi ghi trạng thái từng email:
+ * thành công → SENT; lỗi tạm thời → PENDING với backoff lũy thừa (có jitter); quá số lần thử
+ * hoặc lỗi vĩnh viễn → DEAD. Hết việc thì ngủ tới lần poll sau hoặc tới khi {@link #wakeUp()}.
+ */
+public class EmailOutboxWorker {
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxWorker.class);
+
+    private static final boolean ENABLED = Boolean.parseBoolean(
+            Dotenv.configure().filename("save.env").ignoreIfMissing().load().get("EMAIL_OUTBOX_ENABLED", "true"));
+
+    private static volatile EmailOutboxWorker instance;
+
+    private final MailService mailService;
+    private final EmailOutboxDAO outboxDAO = new EmailOutboxDAO();
+    private final int batchSize;
+    private final int leaseSeconds;
+    private final int maxAttempts;
+    private final long baseBackoffSeconds;
+    private final long maxBackoffSeconds;
+    private final long pollNanos;
+    private Thread thread;
+    private volatile boolean running = true;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+
+    public EmailOutboxWorker(MailService mailService) {
+        Dotenv dotenv = Dotenv.configure().filename("save.env").ignoreIfMissing().load();
+        this.mailService = mailService;
+        this.batchSize = Integer.parseInt(dotenv.get("EMAIL_OUTBOX_BATCH_SIZE", "50"));
+        this.leaseSeconds = Integer.parseInt(dotenv.get("EMAIL_OUTBOX_LEASE_SECONDS", "300"));
+        this.maxAttempts = Integer.parseInt(dotenv.get("EMAIL_OUTBOX_MAX_ATTEMPTS", "6"));
+        this.baseBackoffSeconds = Long.parseLong(dotenv.get("EMAIL_OUTBOX_BACKOFF_SECONDS", "30"));
+        this.maxBackoffSeconds = Long.parseLong(dotenv.get("EMAIL_OUTBOX_MAX_BACKOFF_SECONDS", "3600"));
+        this.pollNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(dotenv.get("EMAIL_OUTBOX_POLL_MS", "5000")));
+    }
+
+    /**
+     * EMAIL_OUTBOX_ENABLED trong save.env: node này có chạy worker gửi outbox hay không.
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public static synchronized EmailOutboxWorker start(MailService mailService) {
+        if (instance == null) {
+            EmailOutboxWorker worker = new EmailOutboxWorker(mailService);
+            worker.thread = new Thread(worker::run, "email-outbox");
+            worker.thread.setDaemon(true);
+            worker.thread.start();
+            instance = worker;
+            logger.info("Email outbox worker started");
+        }
+        return instance;
+    }
+
+    public static EmailOutboxWorker getInstance() {
+        return instance;
+    }
+
+    /**
+     * Báo cho worker có email mới để gửi ngay thay vì đợi tới lần poll sau.
+     * Outbox bật mà worker không chạy (vd. MailService khởi tạo lỗi) thì ghi lỗi: email sẽ nằm lại PENDING.
+     */
+    public static void wakeUp() {
+        EmailOutboxWorker local = instance;
+        if (local != null) {
+            LockSupport.unpark(local.thread);
+        } else if (ENABLED) {
+            logger.error("Email queued but the outbox worker is not running; it stays pending until the worker starts");
+        }
+    }
+
+    public static synchronized void stop() {
+        if (instance != null) {
+            instance.running = false;
+            LockSupport.unpark(instance.thread);
+            try {
+                instance.thread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            logger.info("Email outbox worker stopped: {} sent, {} retried, {} dead-lettered",
+                    instance.getSentCount(), instance.getRetriedCount(), instance.getDeadLetteredCount());
+            instance = null;
+        }
+    }
+
+    private void run() {
+        while (running) {
+            int processed;
+            try {
+                processed = drainOnce();
+            } catch (RuntimeException e) {
+                logger.error("Email outbox iteration failed: {}", e.getMessage(), e);
+                processed = 0;
+            }
+            // Lô đầy thì có thể còn email đến hạn, claim tiếp ngay
+            if (processed < batchSize && running) {
+                LockSupport.parkNanos(pollNanos);
+            }
+        }
+    }
+
+    /**
+     * Claim và gửi một lô.
+     *
+     * @return số email đã claim
+     */
+    public int drainOnce() {
+        List<OutboxMessage> batch = outboxDAO.claimBatch(batchSize, leaseSeconds);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // Các email trong lô thường dùng chung ảnh/đính kèm: mã hóa mỗi bộ một lần cho cả lô
+        Map<List<Object>, SharedMimeParts> partsCache = new HashMap<>();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(batch.size());
+        for (OutboxMessage message : batch) {
+            CompletableFuture<Void> task;
+            try {
+                List<Object> partsKey = Arrays.asList(message.getImageMap(), message.getAttachmentPaths());
+                SharedMimeParts parts = partsCache.get(partsKey);
+                if (parts == null) {
+                    parts = mailService.prepareParts(message.getImageMap(),
+                            mailService.loadAttachments(message.getAttachmentPaths()));
+                    partsCache.put(partsKey, parts);
+                }
+                task = mailService.sendAsync(message.getTemplateName(), message.getSubject(), message.getRecipient(),
+                        message.getVariables(), parts);
+            } catch (IOException | MessagingException | RuntimeException e) {
+                task = CompletableFuture.failedFuture(e);
+            }
+            tasks.add(task);
+        }
+
+        List<Long> sentIds = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxMessage message = batch.get(i);
+            try {
+                tasks.get(i).join();
+                sentIds.add(message.getId());
+            } catch (CompletionException e) {
+                handleFailure(message, e.getCause() != null ? e.getCause() : e);
+            }
+        }
+        outboxDAO.markSent(sentIds);
+        sent.add(sentIds.size());
+        return batch.size();
+    }
+
+    private void handleFailure(OutboxMessage message, Throwable error) {
+        String reason = error.getClass().getSimpleName() + ": " + error.getMessage();
+        if (!mailService.isRetryable(error) || message.getAttempts() >= maxAttempts) {
+            logger.error("Email {} to {} dead-lettered after {} attempts: {}",
+                    message.getId(), message.getRecipient(), message.getAttempts(), reason);
+            outboxDAO.markDead(message.getId(), reason);
+            deadLettered.increment();
+            return;
+        }
+        long delay = backoffSeconds(message.getAttempts());
+        logger.warn("Email {} attempt {} failed, retrying in {}s: {}", message.getId(), message.getAttempts(), delay, reason);
+        outboxDAO.markRetry(message.getId(), delay, reason);
+        retried.increment();
+    }
+
+    /**
+     * base * 2^(attempt-1), chặn trên bởi max, nhân jitter 50–100% để các email lỗi cùng lúc không thử lại cùng lúc.
+     */
+    private long backoffSeconds(int attempt) {
+        long delay = baseBackoffSeconds << Math.min(attempt - 1, 20);
+        delay = Math.min(delay, maxBackoffSeconds);
+        return Math.max(1, (long) (delay * (0.5 + ThreadLocalRandom.current().nextDouble() * 0.5)));
+    }
+
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    public long getRetriedCount() {
+        return retried.sum();
+    }
+
+    public long getDeadLetteredCount() {
+        return deadLettered.sum();
+    }
+}
@@ -1,39 +1,49 @@
 package util.service.email;
 
+import dao.EmailOutboxDAO;
 import dao.StudentDAO;
+import model.datasupport.OutboxMessage;
 import model.datasupport.WarningInfo;
 import io.github.cdimascio.dotenv.Dotenv;
-import jakarta.servlet.ServletContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service to send email templates like Welcome emails and Warning emails.
+ * Email chỉ được ghi vào bảng EmailOutbox; EmailOutboxWorker gửi ở nền, có retry và dead-letter.
  */
 public class EmailTemplateService {
     private static final Logger logger = LoggerFactory.getLogger(EmailTemplateService.class);
-    private final MailService mailService;
     private final StudentDAO studentDAO;
+    private final EmailOutboxDAO outboxDAO;
     private final String appURL;
+    private final boolean digestWarnings;
+    private final int warningDedupDays;
 
-    public EmailTemplateService(ServletContext context) {
-        this.mailService = new MailService(context);
+    public EmailTemplateService() {
         this.studentDAO = new StudentDAO();
+        this.outboxDAO = new EmailOutboxDAO();
         Dotenv dotenv = Dotenv.configure()
                 .filename("save.env")
                 .ignoreIfMissing()
                 .load();
         this.appURL = dotenv.get("APP_BASE_URL", "http://localhost:9090/UniAcad_war");
+        this.digestWarnings = Boolean.parseBoolean(dotenv.get("EMAIL_WARNING_DIGEST", "true"));
+        this.warningDedupDays = Math.max(1, Integer.parseInt(dotenv.get("EMAIL_WARNING_DEDUP_DAYS", "30")));
     }
 
     /**
      * Send Welcome Emails
      */
-    public Map<String, String> sendWelcomeEmails(List<String> emails) throws IOException {
+    public Map<String, String> sendWelcomeEmails(List<String> emails) {
         if (emails == null || emails.isEmpty()) {
             throw new IllegalArgumentException("Email list cannot be null or empty");
         }
@@ -41,13 +51,22 @@ public class EmailTemplateService {
         Map<String, Map<String, Object>> variables = new HashMap<>();
         AtomicInteger tokenCounter = new AtomicInteger(1);
 
+        // Một lần tra cho cả danh sách thay vì 2 query mỗi email
+        Map<String, String> namesByEmail;
+        try {
+            namesByEmail = studentDAO.getNamesByEmails(emails);
+        } catch (RuntimeException e) {
+            logger.error("Could not look up students for welcome emails: {}", e.getMessage(), e);
+            return Map.of("error", "Could not look up students");
+        }
+
         for (String email : emails) {
-            if (!studentDAO.checkEmailExists(email)) {
+            if (!namesByEmail.containsKey(email)) {
                 logger.warn("Skipping email {}: not found in Student table", email);
                 continue;
             }
 
-            String fullName = studentDAO.getNameByEmail(email);
+            String fullName = namesByEmail.get(email);
             if (fullName == null || fullName.isBlank()) {
                 logger.warn("Skipping email {}: could not retrieve student name", email);
                 continue;
@@ -61,7 +80,7 @@ public class EmailTemplateService {
             emailVars.put("token", token);
             emailVars.put("verificationLink", verificationLink);
 
-            variables.put(email, emailVars);
+            variables.put(email.trim(), emailVars);
         }
 
         if (variables.isEmpty()) {
@@ -69,17 +88,10 @@ public class EmailTemplateService {
             return Map.of("error", "No valid student emails found");
         }
 
-        Map<String, String> failedRecipients = mailService.sendPersonalized(
-                "welcome",
-                "Welcome to UniAcad!",
-                variables,
-                null,
-                null,
-                10
-        );
+        Map<String, String> failedRecipients = enqueue("welcome", "Welcome to UniAcad!", variables);
 
         if (failedRecipients.isEmpty()) {
-            logger.info("Welcome emails sent successfully to {} recipients", variables.size());
+            logger.info("Welcome emails queued for {} recipients", variables.size());
         } else {
             logger.warn("Some welcome emails failed: {}", failedRecipients);
         }
@@ -88,66 +100,130 @@ public class EmailTemplateService {
     }
 
     /**
-     * Send Academic Warning Emails
+     * Send Academic Warning Emails.
+     * Mặc định (EMAIL_WARNING_DIGEST=true) gộp mọi cảnh báo của một sinh viên thành một email tổng hợp;
+     * ngược lại gửi một email cho mỗi môn. Email trùng với một email đã có trong outbox
+     * (cùng sinh viên, cùng bộ cảnh báo, cùng khoảng EMAIL_WARNING_DEDUP_DAYS ngày, chưa DEAD) không được ghi lại
+     * ở các lần quét sau.
      */
-    public Map<String, String> sendWarningEmails(List<WarningInfo> warningInfos) throws IOException {
+    public Map<String, String> sendWarningEmails(List<WarningInfo> warningInfos) {
         if (warningInfos == null || warningInfos.isEmpty()) {
             throw new IllegalArgumentException("Warning list cannot be null or empty");
         }
 
-        Map<String, Map<String, Object>> variables = new HashMap<>();
-
+        // Gom theo sinh viên, giữ thứ tự xuất hiện
+        Map<String, List<WarningInfo>> warningsByStudent = new LinkedHashMap<>();
         for (WarningInfo warning : warningInfos) {
-            String email = studentDAO.getEmailById(warning.getStudentId());
+            warningsByStudent.computeIfAbsent(warning.getStudentId(), id -> new ArrayList<>()).add(warning);
+        }
+        Map<String, String> emailsById;
+        try {
+            emailsById = studentDAO.getEmailsByIds(warningsByStudent.keySet());
+        } catch (RuntimeException e) {
+            logger.error("Could not look up student emails for warnings: {}", e.getMessage(), e);
+            return Map.of("error", "Could not look up students");
+        }
+
+        List<OutboxMessage> messages = new ArrayList<>();
+        for (Map.Entry<String, List<WarningInfo>> entry : warningsByStudent.entrySet()) {
+            String email = emailsById.get(entry.getKey());
             if (email == null || email.isBlank()) {
-                logger.warn("No email found for StudentID: {}", warning.getStudentId());
+                logger.warn("No email found for StudentID: {}", entry.getKey());
                 continue;
             }
-
-            Map<String, Object> emailVars = new HashMap<>();
-            emailVars.put("name", warning.getStudentName());
-            emailVars.put("subject", warning.getSubjectName());
-            emailVars.put("warningType", warning.getWarningType());
-            emailVars.put("absentRate", String.format("%.2f%%", warning.getAbsentRate() * 100));
-            emailVars.put("mark", String.format("%.1f", warning.getMark()));
-
-            variables.put(email, emailVars);
+            List<WarningInfo> warnings = entry.getValue();
+            if (digestWarnings) {
+                List<Map<String, Object>> rows = new ArrayList<>(warnings.size());
+                for (WarningInfo warning : warnings) {
+                    rows.add(warningRow(warning));
+                }
+                Map<String, Object> emailVars = new HashMap<>();
+                emailVars.put("name", warnings.get(0).getStudentName());
+                emailVars.put("warnings", rows);
+                OutboxMessage message = new OutboxMessage(email, "warning-digest", "Academic Warning Summary",
+                        emailVars, null, null);
+                message.setDedupKey(warningDedupKey(entry.getKey(), warnings));
+                messages.add(message);
+            } else {
+                for (WarningInfo warning : warnings) {
+                    Map<String, Object> emailVars = warningRow(warning);
+                    emailVars.put("name", warning.getStudentName());
+                    OutboxMessage message = new OutboxMessage(email, "warning", "Academic Warning Notification",
+                            emailVars, null, null);
+                    message.setDedupKey(warningDedupKey(entry.getKey(), List.of(warning)));
+                    messages.add(message);
+                }
+            }
         }
 
-        if (variables.isEmpty()) {
+        if (messages.isEmpty()) {
             logger.error("No valid students to send warning emails");
             return Map.of("error", "No valid student warnings");
         }
 
-        Map<String, String> failedRecipients = mailService.sendPersonalized(
-                "warning",
-                "Academic Warning Notification",
-                variables,
-                null,
-                null,
-                10
-        );
-
-        if (failedRecipients.isEmpty()) {
-            logger.info("Warning emails sent successfully to {} students", variables.size());
-        } else {
-            logger.warn("Some warning emails failed: {}", failedRecipients);
+        int queued = outboxDAO.enqueue(messages);
+        if (queued < 0) {
+            Map<String, String> failed = new HashMap<>();
+            messages.forEach(message -> failed.put(message.getRecipient(), "Could not queue email"));
+            logger.warn("Some warning emails failed: {}", failed);
+            return failed;
         }
+        EmailOutboxWorker.wakeUp();
+        logger.info("Warning emails queued: {} new, {} already sent earlier ({} warnings, {} students)",
+                queued, messages.size() - queued, warningInfos.size(), warningsByStudent.size());
+        return Collections.emptyMap();
+    }
 
-        return failedRecipients;
+    private static Map<String, Object> warningRow(WarningInfo warning) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("subject", warning.getSubjectName());
+        row.put("warningType", warning.getWarningType());
+        row.put("absentRate", String.format("%.2f%%", warning.getAbsentRate() * 100));
+        row.put("mark", warning.getMark() != null ? String.format("%.1f", warning.getMark()) : "-");
+        return row;
+    }
+
+    /**
+     * Key cho cùng một sinh viên với cùng tập (môn, loại cảnh báo), không phụ thuộc thứ tự, trong cùng một khoảng
+     * EMAIL_WARNING_DEDUP_DAYS ngày: cảnh báo còn nguyên (hoặc lặp lại khi học lại môn) được gửi lại ở khoảng sau.
+     */
+    private String warningDedupKey(String studentId, List<WarningInfo> warnings) {
+        List<String> items = new ArrayList<>(warnings.size());
+        for (WarningInfo warning : warnings) {
+            items.add(warning.getSubjectName() + "|" + warning.getWarningType());
+        }
+        Collections.sort(items);
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(String.join("\n", items).getBytes(StandardCharsets.UTF_8));
+            long window = LocalDate.now(ZoneOffset.UTC).toEpochDay() / warningDedupDays;
+            return "warning:" + studentId.trim() + ":" + window + ":" + HexFormat.of().formatHex(hash, 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
-     * Shutdown Mail Service
+     * Ghi tất cả email vào outbox trong một transaction.
+     *
+     * @return email không ghi được (rỗng nếu thành công)
      */
-    public void shutdown() {
-        mailService.shutdown();
+    private Map<String, String> enqueue(String templateName, String subject, Map<String, Map<String, Object>> variables) {
+        List<OutboxMessage> messages = new ArrayList<>(variables.size());
+        variables.forEach((email, vars) -> messages.add(new OutboxMessage(email, templateName, subject, vars, null, null)));
+        if (outboxDAO.enqueue(messages) < 0) {
+            Map<String, String> failed = new HashMap<>();
+            variables.keySet().forEach(email -> failed.put(email, "Could not queue email"));
+            return failed;
+        }
+        EmailOutboxWorker.wakeUp();
+        return Collections.emptyMap();
     }
 
     public static void main(String[] args) {
         try {
-            // Khởi tạo EmailTemplateService (không cần ServletContext khi chạy demo)
-            EmailTemplateService emailService = new EmailTemplateService(null);
+            EmailOutboxWorker worker = EmailOutboxWorker.start(MailService.getShared());
+            EmailTemplateService emailService = new EmailTemplateService();
             ArrayList<String> emails = new ArrayList<>();
             emails.add("khainhce182286@fpt.edu.vn");
             emails.add("khai1234sd@gmail.com");
@@ -180,12 +256,13 @@ public class EmailTemplateService {
 //                failedRecipients.forEach((email, reason) -> System.out.println(email + ": " + reason));
 //            }
 
-            // Shutdown service
-            emailService.shutdown();
-
-        } catch (IOException e) {
-            System.err.println("⚠️ Error sending warning emails: " + e.getMessage());
-            e.printStackTrace();
+            // Gửi hết outbox rồi dừng
+            while (worker.drainOnce() > 0) {
+                logger.info("Outbox batch processed");
+            }
+        } finally {
+            EmailOutboxWorker.stop();
+            MailService.shutdownShared();
         }
     }
 
@@ -6,10 +6,8 @@ import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
 import io.github.bucket4j.Refill;
 import io.github.cdimascio.dotenv.Dotenv;
-import jakarta.activation.DataHandler;
 import jakarta.mail.*;
 import jakarta.mail.internet.*;
-import jakarta.mail.util.ByteArrayDataSource;
 import jakarta.servlet.ServletContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,17 +18,28 @@ import org.thymeleaf.templateresolver.FileTemplateResolver;
 import util.service.file.FileService;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.BinaryOperator;
 
-// Lớp MailService giữ nguyên phần lớn code từ phiên bản trước, chỉ cập nhật các phần cần thiết
+/**
+ * Gửi email theo template Thymeleaf.
+ * Một instance dùng chung cho cả ứng dụng (tạo bởi MailServiceListener lúc khởi động, lấy qua {@link #getShared()})
+ * để thread pool, TemplateEngine và cache tài nguyên được giữ nóng giữa các lần gửi.
+ */
 public class MailService {
     private static final Logger logger = LoggerFactory.getLogger(MailService.class);
+    public static final String CONTEXT_ATTRIBUTE = MailService.class.getName();
+
+    private static volatile MailService shared;
     private static final int DEFAULT_BATCH_SIZE = 50;
     private static final long DEFAULT_MAX_ATTACHMENT_SIZE = 10 * 1024 * 1024; // 10MB
     private static final long DEFAULT_MAX_IMAGE_SIZE = 2 * 1024 * 1024; // 2MB
+    private static final int MAX_SEND_ATTEMPTS = 3;
 
     private final String username;
     private final String password;
@@ -38,32 +47,59 @@ public class MailService {
     private final Session session;
     private final FileService fileService;
     private final TemplateEngine templateEngine;
+    // Optional.empty(): template không biên dịch được hoặc kết quả khác Thymeleaf → dùng Thymeleaf
+    private final ConcurrentHashMap<String, Optional<PrecompiledTemplate>> precompiledTemplates = new ConcurrentHashMap<>();
+    private final boolean precompileTemplates;
+    private final Map<String, Object> globalVariables;
     private final Bucket rateLimiter;
     private final ExecutorService executor;
+    private final SmtpTransportPool transportPool;
     private final Cache<String, byte[]> resourceCache;
     private final long maxAttachmentSize;
     private final long maxImageSize;
+    private volatile SendObserver sendObserver;
+
+    /**
+     * Nhận kết quả từng thư của {@link #sendPersonalized}; dùng cho benchmark, production không đặt.
+     */
+    public interface SendObserver {
+        void onSent(long latencyNanos, int attempts);
+
+        void onFailed(int attempts);
+    }
 
     public MailService(ServletContext context) {
+        this(context, Map.of());
+    }
+
+    /**
+     * @param overrides cấu hình ưu tiên hơn save.env (vd. trỏ SMTP_HOST/SMTP_PORT vào LocalSmtpSink khi benchmark)
+     */
+    public MailService(ServletContext context, Map<String, String> overrides) {
         Dotenv dotenv = Dotenv.configure().filename("save.env").ignoreIfMissing().load();
-        this.username = dotenv.get("SMTP_USERNAME");
-        this.password = dotenv.get("SMTP_PASSWORD");
-        String smtpHost = dotenv.get("SMTP_HOST", "smtp.gmail.com");
-        int smtpPort = Integer.parseInt(dotenv.get("SMTP_PORT", "587"));
-        this.baseUrl = dotenv.get("APP_BASE_URL", "http://localhost:8080");
-        this.maxAttachmentSize = Long.parseLong(dotenv.get("MAX_ATTACHMENT_SIZE", String.valueOf(DEFAULT_MAX_ATTACHMENT_SIZE)));
-        this.maxImageSize = Long.parseLong(dotenv.get("MAX_IMAGE_SIZE", String.valueOf(DEFAULT_MAX_IMAGE_SIZE)));
-        int threadCount = Integer.parseInt(dotenv.get("EMAIL_THREAD_COUNT",
+        BinaryOperator<String> config = (key, defaultValue) ->
+                overrides.containsKey(key) ? overrides.get(key) : dotenv.get(key, defaultValue);
+        this.username = config.apply("SMTP_USERNAME", null);
+        this.password = config.apply("SMTP_PASSWORD", null);
+        String smtpHost = config.apply("SMTP_HOST", "smtp.gmail.com");
+        int smtpPort = Integer.parseInt(config.apply("SMTP_PORT", "587"));
+        this.baseUrl = config.apply("APP_BASE_URL", "http://localhost:8080");
+        this.globalVariables = Map.of("baseUrl", baseUrl);
+        // Chỉ có tác dụng với template không có th:each/th:if; mặc định (warning-digest, welcome) vẫn dùng Thymeleaf
+        this.precompileTemplates = Boolean.parseBoolean(config.apply("EMAIL_PRECOMPILED_TEMPLATES", "true"));
+        this.maxAttachmentSize = Long.parseLong(config.apply("MAX_ATTACHMENT_SIZE", String.valueOf(DEFAULT_MAX_ATTACHMENT_SIZE)));
+        this.maxImageSize = Long.parseLong(config.apply("MAX_IMAGE_SIZE", String.valueOf(DEFAULT_MAX_IMAGE_SIZE)));
+        int threadCount = Integer.parseInt(config.apply("EMAIL_THREAD_COUNT",
                 String.valueOf(Math.max(4, Runtime.getRuntime().availableProcessors()))));
-        long cacheSizeBytes = Long.parseLong(dotenv.get("CACHE_SIZE_BYTES", String.valueOf(50 * 1024 * 1024)));
-        long cacheDurationHours = Long.parseLong(dotenv.get("CACHE_DURATION_HOURS", "2"));
-        long rateLimit = Long.parseLong(dotenv.get("EMAIL_RATE_LIMIT", "100")); // Giảm xuống 100 để an toàn với Gmail
+        long cacheSizeBytes = Long.parseLong(config.apply("CACHE_SIZE_BYTES", String.valueOf(50 * 1024 * 1024)));
+        long cacheDurationHours = Long.parseLong(config.apply("CACHE_DURATION_HOURS", "2"));
+        long rateLimit = Long.parseLong(config.apply("EMAIL_RATE_LIMIT", "100")); // Giảm xuống 100 để an toàn với Gmail
 
         if (username == null || password == null) {
             throw new IllegalStateException("Missing SMTP credentials in env");
         }
 
-        this.fileService = context != null ? new FileService(context) : new FileService(dotenv.get("FILE_STORAGE_PATH"));
+        this.fileService = context != null ? new FileService(context) : new FileService(config.apply("FILE_STORAGE_PATH", null));
 
         Properties smtpProps = new Properties();
         smtpProps.put("mail.smtp.auth", "true");
@@ -79,6 +115,13 @@ public class MailService {
             }
         };
         this.session = Session.getInstance(smtpProps, auth);
+        // Mỗi thread gửi cần một kết nối riêng, pool lớn hơn số thread là thừa
+        int poolSize = Integer.parseInt(config.apply("SMTP_POOL_SIZE", String.valueOf(threadCount)));
+        this.transportPool = new SmtpTransportPool(session,
+                Math.min(poolSize, threadCount),
+                Integer.parseInt(config.apply("SMTP_MAX_MESSAGES_PER_CONNECTION", "100")),
+                Long.parseLong(config.apply("SMTP_MAX_IDLE_SECONDS", "60")),
+                Long.parseLong(config.apply("SMTP_BORROW_TIMEOUT_MS", "30000")));
 
         this.resourceCache = Caffeine.newBuilder()
                 .maximumWeight(cacheSizeBytes)
@@ -101,6 +144,46 @@ public class MailService {
         this.templateEngine.setTemplateResolver(resolver);
     }
 
+    /**
+     * Tạo instance dùng chung khi ứng dụng khởi động và gắn vào ServletContext.
+     */
+    public static synchronized MailService initShared(ServletContext context) {
+        if (shared == null) {
+            shared = new MailService(context);
+            logger.info("Shared MailService initialized");
+        }
+        if (context != null) {
+            context.setAttribute(CONTEXT_ATTRIBUTE, shared);
+        }
+        return shared;
+    }
+
+    /**
+     * Instance dùng chung; nếu chạy ngoài container (main, job độc lập) thì tạo lười không có ServletContext.
+     */
+    public static MailService getShared() {
+        MailService local = shared;
+        if (local == null) {
+            local = initShared(null);
+        }
+        return local;
+    }
+
+    /**
+     * Instance dùng chung nếu đã được tạo, không tự khởi tạo (dùng cho metrics).
+     */
+    public static MailService peekShared() {
+        return shared;
+    }
+
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            shared.shutdown();
+            shared = null;
+            logger.info("Shared MailService shut down");
+        }
+    }
+
     public Map<String, String> sendPersonalizedWithAttachments(String templateName, String subject,
                                                                Map<String, Map<String, Object>> variables,
                                                                Map<String, String> imageMap, List<String> attachmentPaths,
@@ -119,84 +202,145 @@ public class MailService {
         }
 
         Map<String, String> failed = new ConcurrentHashMap<>();
+        SharedMimeParts sharedParts;
+        try {
+            // Ảnh và file đính kèm mã hóa một lần cho cả lần gửi, mỗi thư chỉ render phần HTML
+            sharedParts = prepareParts(imageMap, attachments);
+        } catch (MessagingException ex) {
+            logger.error("Failed to prepare images/attachments: {}", ex.getMessage(), ex);
+            variables.keySet().forEach(email -> failed.put(email, ex.getMessage()));
+            return failed;
+        }
+
         batchSize = batchSize <= 0 ? DEFAULT_BATCH_SIZE : batchSize;
         List<List<String>> batches = partition(new ArrayList<>(variables.keySet()), batchSize);
 
         for (List<String> batch : batches) {
-            sendBatch(batch, templateName, subject, variables, imageMap, attachments, failed);
+            sendBatch(batch, templateName, subject, variables, sharedParts, failed);
         }
         return failed;
     }
 
+    /**
+     * Gửi song song một batch: mỗi thư là một task trên executor, mượn một kết nối riêng từ pool khi gửi.
+     * Chờ cả batch xong rồi mới trả về để batch sau không chồng lên batch trước.
+     */
     private void sendBatch(List<String> batch, String templateName, String subject,
-                           Map<String, Map<String, Object>> variables, Map<String, String> imageMap,
-                           List<Attachment> attachments, Map<String, String> failed) {
-        int maxRetries = 3;
-        Map<String, Integer> retryCounts = new ConcurrentHashMap<>();
-
-        try (Transport transport = session.getTransport("smtp")) {
-            connectTransport(transport); // Kết nối ban đầu
-            List<CompletableFuture<Void>> tasks = new ArrayList<>();
-            for (String email : batch) {
-                CompletableFuture<Void> task = CompletableFuture.runAsync(() -> {
-                    int retries = retryCounts.computeIfAbsent(email, k -> 0);
-                    if (retries >= maxRetries) {
-                        failed.put(email, "Max retries reached");
-                        logger.error("Failed to send to {}: Max retries reached", maskEmail(email));
-                        return;
-                    }
-                    try {
-                        rateLimiter.asBlocking().consume(1);
-                        // Kiểm tra và tái kết nối nếu cần
-                        if (!transport.isConnected()) {
-                            logger.warn("Transport disconnected, reconnecting for {}", maskEmail(email));
-                            connectTransport(transport);
-                        }
-                        MimeMessage msg = createMessage(templateName, subject, email,
-                                variables.getOrDefault(email, Collections.emptyMap()), imageMap, attachments);
-                        transport.sendMessage(msg, msg.getAllRecipients());
-                        logger.info("Email sent to {}", maskEmail(email));
-                    } catch (MessagingException ex) {
-                        if (isTransientError(ex)) {
-                            retryCounts.compute(email, (k, v) -> (v == null ? 0 : v) + 1);
-                            throw new RuntimeException("Retry needed for " + maskEmail(email), ex);
-                        } else {
-                            logger.error("Failed to send to {}: {}", maskEmail(email), ex.getMessage());
-                            failed.put(email, ex.getMessage());
-                        }
-                    } catch (InterruptedException e) {
-                        throw new RuntimeException(e);
-                    }
-                }, executor);
-                tasks.add(task);
+                           Map<String, Map<String, Object>> variables, SharedMimeParts sharedParts,
+                           Map<String, String> failed) {
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(batch.size());
+        for (String email : batch) {
+            tasks.add(CompletableFuture.runAsync(() -> sendOne(email, templateName, subject,
+                    variables.getOrDefault(email, Collections.emptyMap()), sharedParts, failed), executor));
+        }
+        try {
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException ex) {
+            logger.error("Batch processing error: {}", ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Đọc (qua resourceCache) và mã hóa sẵn ảnh inline và file đính kèm để dùng chung cho nhiều thư.
+     */
+    public SharedMimeParts prepareParts(Map<String, String> imageMap, List<Attachment> attachments) throws MessagingException {
+        if ((imageMap == null || imageMap.isEmpty()) && (attachments == null || attachments.isEmpty())) {
+            return SharedMimeParts.EMPTY;
+        }
+        SharedMimeParts.Builder builder = SharedMimeParts.builder();
+        if (imageMap != null) {
+            for (Map.Entry<String, String> entry : imageMap.entrySet()) {
+                try {
+                    builder.inlineImage(loadResource(entry.getKey()), detectMime(entry.getKey()), entry.getValue());
+                } catch (IOException ex) {
+                    throw new MessagingException("Failed to load image: " + entry.getKey(), ex);
+                }
             }
-            CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0]))
-                    .whenComplete((result, ex) -> {
-                        if (ex != null) {
-                            logger.error("Batch processing error: {}", ex.getMessage(), ex);
-                        }
-                    });
-        } catch (MessagingException ex) {
-            logger.error("Transport error: {}", ex.getMessage(), ex);
-            batch.forEach(email -> failed.put(email, "SMTP transport error: " + ex.getMessage()));
         }
+        if (attachments != null) {
+            for (Attachment att : attachments) {
+                builder.attachment(att.content, att.mimeType, att.fileName);
+            }
+        }
+        SharedMimeParts parts = builder.build();
+        logger.debug("Prepared {} shared MIME parts ({} bytes encoded)", parts.size(), parts.getEncodedBytes());
+        return parts;
     }
 
-    private void connectTransport(Transport transport) throws MessagingException {
-        try {
-            if (!transport.isConnected()) {
-                transport.connect();
-                logger.info("SMTP transport connected");
+    /**
+     * Gửi một email trên executor của MailService (qua rate limiter và pool SMTP), không tự retry:
+     * người gọi (EmailOutboxWorker) tự quyết định thử lại hay dead-letter dựa trên lỗi trả về.
+     */
+    public CompletableFuture<Void> sendAsync(String templateName, String subject, String recipient,
+                                             Map<String, Object> vars, SharedMimeParts sharedParts) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                MimeMessage msg = createMessage(templateName, subject, recipient,
+                        vars != null ? vars : Collections.emptyMap(), sharedParts);
+                rateLimiter.asBlocking().consume(1);
+                transportPool.send(msg);
+                logger.debug("Email sent to {}", maskEmail(recipient));
+            } catch (MessagingException ex) {
+                throw new CompletionException(ex);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
             }
+        }, executor);
+    }
+
+    /**
+     * Lỗi tạm thời (mất kết nối, timeout, bị ngắt khi shutdown) đáng thử lại; lỗi địa chỉ, template thì không.
+     */
+    public boolean isRetryable(Throwable error) {
+        if (error instanceof MessagingException) {
+            // Outbox còn nhiều lần thử với backoff dài nên chỉ loại các lỗi chắc chắn không tự hết
+            return !(error instanceof SendFailedException) && !(error instanceof AddressException)
+                    || SmtpErrors.isTemporaryRejection(error);
+        }
+        return error instanceof InterruptedException;
+    }
+
+    private void sendOne(String email, String templateName, String subject, Map<String, Object> vars,
+                         SharedMimeParts sharedParts, Map<String, String> failed) {
+        long start = System.nanoTime();
+        SendObserver observer = sendObserver;
+        MimeMessage msg;
+        try {
+            msg = createMessage(templateName, subject, email, vars, sharedParts);
         } catch (MessagingException ex) {
-            logger.error("Failed to connect SMTP transport: {}", ex.getMessage(), ex);
-            throw ex;
+            logger.error("Failed to build email for {}: {}", maskEmail(email), ex.getMessage());
+            failed.put(email, ex.getMessage());
+            if (observer != null) observer.onFailed(0);
+            return;
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                rateLimiter.asBlocking().consume(1);
+                transportPool.send(msg);
+                logger.debug("Email sent to {}", maskEmail(email));
+                if (observer != null) observer.onSent(System.nanoTime() - start, attempt);
+                return;
+            } catch (MessagingException ex) {
+                if (isTransientError(ex) && attempt < MAX_SEND_ATTEMPTS) {
+                    logger.warn("Transient error sending to {} (attempt {}): {}", maskEmail(email), attempt, ex.getMessage());
+                    continue;
+                }
+                logger.error("Failed to send to {}: {}", maskEmail(email), ex.getMessage());
+                failed.put(email, attempt >= MAX_SEND_ATTEMPTS ? "Max retries reached: " + ex.getMessage() : ex.getMessage());
+                if (observer != null) observer.onFailed(attempt);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.put(email, "Interrupted");
+                if (observer != null) observer.onFailed(attempt);
+                return;
+            }
         }
     }
 
     private MimeMessage createMessage(String templateName, String subject, String recipient,
-                                      Map<String, Object> vars, Map<String, String> imageMap,
-                                      List<Attachment> attachments) throws MessagingException {
+                                      Map<String, Object> vars, SharedMimeParts sharedParts) throws MessagingException {
         InternetAddress addr = new InternetAddress(recipient);
         addr.validate();
 
@@ -209,30 +353,7 @@ public class MailService {
         MimeBodyPart htmlPart = new MimeBodyPart();
         htmlPart.setContent(renderTemplate(templateName, vars), "text/html; charset=UTF-8");
         multipart.addBodyPart(htmlPart);
-
-        if (imageMap != null) {
-            for (Map.Entry<String, String> entry : imageMap.entrySet()) {
-                MimeBodyPart imgPart = new MimeBodyPart();
-                String fileName = Paths.get(entry.getKey()).getFileName().toString();
-                try (InputStream in = fileService.getFileInputStream(fileName, FileService.FileType.IMAGE)) {
-                    imgPart.setDataHandler(new DataHandler(new ByteArrayDataSource(in, detectMime(entry.getKey()))));
-                    imgPart.setHeader("Content-ID", "<" + entry.getValue() + ">");
-                    imgPart.setDisposition(MimeBodyPart.INLINE);
-                    multipart.addBodyPart(imgPart);
-                } catch (IOException ex) {
-                    throw new MessagingException("Failed to load image: " + fileName, ex);
-                }
-            }
-        }
-
-        if (attachments != null) {
-            for (Attachment att : attachments) {
-                MimeBodyPart attPart = new MimeBodyPart();
-                attPart.setDataHandler(new DataHandler(new ByteArrayDataSource(att.content, att.mimeType)));
-                attPart.setFileName(att.fileName);
-                multipart.addBodyPart(attPart);
-            }
-        }
+        sharedParts.addTo(multipart);
 
         msg.setContent(multipart);
         return msg;
@@ -246,12 +367,46 @@ public class MailService {
     }
 
     private String renderTemplate(String templateName, Map<String, Object> vars) {
+        if (precompileTemplates) {
+            Optional<PrecompiledTemplate> precompiled = precompiledTemplates.computeIfAbsent(templateName, this::precompile);
+            if (precompiled.isPresent()) {
+                return precompiled.get().render(vars, globalVariables);
+            }
+        }
+        return renderWithThymeleaf(templateName, vars);
+    }
+
+    private String renderWithThymeleaf(String templateName, Map<String, Object> vars) {
         Context ctx = new Context();
         ctx.setVariable("baseUrl", baseUrl);
         vars.forEach(ctx::setVariable);
         return templateEngine.process(templateName, ctx);
     }
 
+    /**
+     * Biên dịch template một lần; chỉ dùng bản biên dịch nếu render giá trị mẫu ra đúng như Thymeleaf.
+     */
+    private Optional<PrecompiledTemplate> precompile(String templateName) {
+        try {
+            String path = fileService.getAbsolutePath(templateName + ".html", FileService.FileType.TEMPLATE);
+            PrecompiledTemplate template = PrecompiledTemplate.compile(Files.readString(Paths.get(path), StandardCharsets.UTF_8));
+            if (template == null) {
+                logger.info("Template '{}' uses features beyond simple substitution, rendering with Thymeleaf", templateName);
+                return Optional.empty();
+            }
+            Map<String, Object> sample = template.sampleVariables();
+            if (!template.render(sample, globalVariables).equals(renderWithThymeleaf(templateName, sample))) {
+                logger.warn("Precompiled template '{}' differs from Thymeleaf output, rendering with Thymeleaf", templateName);
+                return Optional.empty();
+            }
+            logger.info("Template '{}' precompiled ({} slots)", templateName, template.getSlotCount());
+            return Optional.of(template);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not precompile template '{}': {}", templateName, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
     private byte[] loadResource(String relativePath) throws IOException {
         byte[] cached = resourceCache.getIfPresent(relativePath);
         if (cached != null) {
@@ -277,7 +432,7 @@ public class MailService {
         }
     }
 
-    private List<Attachment> loadAttachments(List<String> paths) throws IOException {
+    public List<Attachment> loadAttachments(List<String> paths) throws IOException {
         if (paths == null || paths.isEmpty()) {
             return Collections.emptyList();
         }
@@ -336,8 +491,15 @@ public class MailService {
     }
 
     private boolean isTransientError(MessagingException ex) {
-        String message = ex.getMessage().toLowerCase();
-        return message.contains("timeout") || message.contains("connection") || message.contains("not connected");
+        if (ex instanceof SendFailedException) {
+            return SmtpErrors.isTemporaryRejection(ex);
+        }
+        if (ex.getCause() instanceof IOException) {
+            return true;
+        }
+        String message = ex.getMessage() == null ? "" : ex.getMessage().toLowerCase();
+        return message.contains("timeout") || message.contains("timed out")
+                || message.contains("connection") || message.contains("not connected");
     }
 
     private static String maskEmail(String email) {
@@ -346,6 +508,9 @@ public class MailService {
         return email.substring(0, 3) + "****" + email.substring(atIndex);
     }
 
+    /**
+     * Chỉ gọi cho instance tự tạo; instance dùng chung được đóng bởi {@link #shutdownShared()}.
+     */
     public void shutdown() {
         executor.shutdown();
         try {
@@ -356,6 +521,15 @@ public class MailService {
             executor.shutdownNow();
             Thread.currentThread().interrupt();
         }
+        transportPool.close();
+    }
+
+    public void setSendObserver(SendObserver sendObserver) {
+        this.sendObserver = sendObserver;
+    }
+
+    public SmtpTransportPool getTransportPool() {
+        return transportPool;
     }
 
     public Map<String, String> buildImageMap(List<String> imagePaths, List<String> contentIds) throws IOException {
@@ -385,11 +559,10 @@ public class MailService {
         }
     }
     public static void main(String[] args) {
-        ServletContext context = null; // Replace with actual ServletContext in a web application
         MailService mailService = null;
         try {
             // Khởi tạo MailService
-            mailService = new MailService(context);
+            mailService = MailService.getShared();
             logger.info("MailService initialized successfully");
 
             // Tạo dữ liệu mẫu cho email cá nhân hóa
@@ -447,10 +620,7 @@ public class MailService {
             e.printStackTrace();
         } finally {
             // Đóng MailService an toàn
-            if (mailService != null) {
-                mailService.shutdown();
-                logger.info("MailService shut down");
-            }
+            MailService.shutdownShared();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,186 @@
+package util.service.email;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Template email đơn giản được biên dịch sẵn thành các đoạn tĩnh xen kẽ các slot biến.
+ * <p>
+ * Chỉ hỗ trợ {@code th:text="${var}"} (nội dung thẻ là text thuần) và {@code th:href/src/alt/title/value="${var}"}.
+ * Template có th:each, th:if, biểu thức phức tạp hoặc inline {@code [[...]]} thì {@link #compile} trả về null
+ * và MailService dùng Thymeleaf như cũ. Render chỉ nối chuỗi vào một StringBuilder tái sử dụng theo thread.
+ * <p>
+ * Với các template hiện có, chỉ warning.html (một email mỗi môn, EMAIL_WARNING_DIGEST=false) đi được đường này:
+ * welcome.html và warning-digest.html (mặc định) đều có th:each nên luôn render bằng Thymeleaf.
+ */
+public final class PrecompiledTemplate {
+
+    private static final Pattern START_TAG = Pattern.compile("<([a-zA-Z][a-zA-Z0-9-]*)((?:\\s+[^<>]*?)?)(/?)>");
+    private static final Pattern TH_ATTRIBUTE = Pattern.compile("\\s+(?:xmlns:th|th:([a-zA-Z-]+))\\s*=\\s*\"([^\"]*)\"");
+    // "th:" đứng sau khoảng trắng; tránh nhầm với style="width:100%"
+    private static final Pattern ANY_TH_ATTRIBUTE = Pattern.compile("\\s(?:xmlns:th|th:)");
+    private static final Pattern SIMPLE_EXPRESSION = Pattern.compile("\\$\\{\\s*([A-Za-z_][A-Za-z0-9_]*)\\s*}");
+    private static final List<String> SUBSTITUTABLE_ATTRIBUTES = List.of("href", "src", "alt", "title", "value");
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(8192));
+
+    private final String[] statics;      // statics.length == slots.length + 1
+    private final String[] slotNames;
+    private final String[] slotAttributes; // null: slot nội dung thẻ; khác null: tên attribute
+    private final int estimatedLength;
+
+    private PrecompiledTemplate(List<String> statics, List<String> slotNames, List<String> slotAttributes) {
+        this.statics = statics.toArray(new String[0]);
+        this.slotNames = slotNames.toArray(new String[0]);
+        this.slotAttributes = slotAttributes.toArray(new String[0]);
+        int length = 0;
+        for (String part : this.statics) {
+            length += part.length();
+        }
+        this.estimatedLength = length + 64 * this.slotNames.length;
+    }
+
+    /**
+     * Biên dịch template; null nếu template dùng tính năng ngoài phạm vi hỗ trợ.
+     */
+    public static PrecompiledTemplate compile(String html) {
+        if (html.contains("[[") || html.contains("[(")) {
+            return null;
+        }
+        List<String> statics = new ArrayList<>();
+        List<String> slotNames = new ArrayList<>();
+        List<String> slotAttributes = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        Matcher tag = START_TAG.matcher(html);
+        int position = 0;
+
+        while (tag.find(position)) {
+            String attributes = tag.group(2);
+            if (!ANY_TH_ATTRIBUTE.matcher(attributes).find()) {
+                current.append(html, position, tag.end());
+                position = tag.end();
+                continue;
+            }
+            current.append(html, position, tag.start());
+
+            String textVariable = null;
+            current.append('<').append(tag.group(1));
+            Matcher attribute = TH_ATTRIBUTE.matcher(attributes);
+            int attributePosition = 0;
+            while (attribute.find()) {
+                current.append(attributes, attributePosition, attribute.start());
+                attributePosition = attribute.end();
+                if (attribute.group(1) == null) {
+                    continue; // xmlns:th, Thymeleaf cũng bỏ khỏi output
+                }
+                Matcher expression = SIMPLE_EXPRESSION.matcher(attribute.group(2));
+                if (!expression.matches()) {
+                    return null;
+                }
+                String name = attribute.group(1);
+                if (name.equals("text")) {
+                    textVariable = expression.group(1);
+                } else if (SUBSTITUTABLE_ATTRIBUTES.contains(name) && !hasAttribute(attributes, name)) {
+                    statics.add(current.toString());
+                    current.setLength(0);
+                    slotNames.add(expression.group(1));
+                    slotAttributes.add(name);
+                } else {
+                    return null;
+                }
+            }
+            String rest = attributes.substring(attributePosition);
+            if (ANY_TH_ATTRIBUTE.matcher(rest).find()) {
+                return null;
+            }
+            current.append(rest).append(tag.group(3)).append('>');
+            position = tag.end();
+
+            if (textVariable != null) {
+                // Nội dung mẫu giữa thẻ mở và thẻ đóng được thay bằng giá trị biến
+                String closeTag = "</" + tag.group(1) + ">";
+                int close = html.indexOf(closeTag, position);
+                if (!tag.group(3).isEmpty() || close < 0 || html.substring(position, close).indexOf('<') >= 0) {
+                    return null;
+                }
+                statics.add(current.toString());
+                current.setLength(0);
+                slotNames.add(textVariable);
+                slotAttributes.add(null);
+                position = close;
+            }
+        }
+        current.append(html, position, html.length());
+        statics.add(current.toString());
+        return new PrecompiledTemplate(statics, slotNames, slotAttributes);
+    }
+
+    private static boolean hasAttribute(String attributes, String name) {
+        return Pattern.compile("(^|\\s)" + name + "\\s*=").matcher(attributes).find();
+    }
+
+    /**
+     * Render với {@code vars}; biến không có trong vars được tìm trong {@code globals} (vd. baseUrl).
+     */
+    public String render(Map<String, Object> vars, Map<String, Object> globals) {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        out.ensureCapacity(estimatedLength);
+        for (int i = 0; i < slotNames.length; i++) {
+            out.append(statics[i]);
+            Object value = vars.get(slotNames[i]);
+            if (value == null && globals != null) {
+                value = globals.get(slotNames[i]);
+            }
+            if (slotAttributes[i] == null) {
+                if (value != null) {
+                    escape(value.toString(), out);
+                }
+            } else if (value != null) {
+                // Giống Thymeleaf: giá trị null thì bỏ hẳn attribute
+                out.append(' ').append(slotAttributes[i]).append("=\"");
+                escape(value.toString(), out);
+                out.append('"');
+            }
+        }
+        out.append(statics[statics.length - 1]);
+        String result = out.toString();
+        if (out.capacity() > Math.max(8192, 4 * estimatedLength)) {
+            BUFFER.remove(); // không giữ buffer quá lớn sau một email bất thường
+        }
+        return result;
+    }
+
+    private static void escape(String value, StringBuilder out) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    public int getSlotCount() {
+        return slotNames.length;
+    }
+
+    /**
+     * Giá trị mẫu cho mọi slot, chứa ký tự cần escape; dùng để so sánh kết quả với Thymeleaf trước khi dùng.
+     */
+    public Map<String, Object> sampleVariables() {
+        Map<String, Object> sample = new HashMap<>();
+        for (int i = 0; i < slotNames.length; i++) {
+            sample.put(slotNames[i], "<v" + i + " & \"q\" 'a'>");
+        }
+        return sample;
+    }
+}
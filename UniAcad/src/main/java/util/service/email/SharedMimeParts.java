@@ -0,0 +1,103 @@
+package util.service.email;
+
+import jakarta.activation.DataHandler;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Part;
+import jakarta.mail.internet.MimeBodyPart;
+import jakarta.mail.internet.MimeMultipart;
+import jakarta.mail.util.ByteArrayDataSource;
+import jakarta.mail.util.SharedByteArrayInputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ảnh inline và file đính kèm dùng chung cho mọi người nhận của một lần gửi.
+ * <p>
+ * Mỗi part được mã hóa base64 (kèm header) đúng một lần thành mảng byte bất biến. Với từng thư chỉ tạo
+ * một {@link MimeBodyPart} mỏng đọc qua {@link SharedByteArrayInputStream}: JavaMail chỉ parse vài dòng header
+ * và ghi thẳng phần đã mã hóa ra socket, không đọc lại file, không copy hay mã hóa lại nội dung.
+ * An toàn khi nhiều thread gửi dùng chung.
+ */
+public final class SharedMimeParts {
+    public static final SharedMimeParts EMPTY = new SharedMimeParts(Collections.emptyList());
+
+    private final List<byte[]> encodedParts;
+    private final long encodedBytes;
+
+    private SharedMimeParts(List<byte[]> encodedParts) {
+        this.encodedParts = encodedParts;
+        long total = 0;
+        for (byte[] part : encodedParts) {
+            total += part.length;
+        }
+        this.encodedBytes = total;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private final List<byte[]> parts = new ArrayList<>();
+
+        public Builder inlineImage(byte[] data, String mimeType, String contentId) throws MessagingException {
+            MimeBodyPart part = newPart(data, mimeType);
+            part.setDisposition(Part.INLINE);
+            part.setHeader("Content-ID", "<" + contentId + ">");
+            parts.add(encode(part));
+            return this;
+        }
+
+        public Builder attachment(byte[] data, String mimeType, String fileName) throws MessagingException {
+            MimeBodyPart part = newPart(data, mimeType);
+            part.setFileName(fileName);
+            part.setDisposition(Part.ATTACHMENT);
+            parts.add(encode(part));
+            return this;
+        }
+
+        public SharedMimeParts build() {
+            return parts.isEmpty() ? EMPTY : new SharedMimeParts(List.copyOf(parts));
+        }
+
+        private static MimeBodyPart newPart(byte[] data, String mimeType) throws MessagingException {
+            MimeBodyPart part = new MimeBodyPart();
+            part.setDataHandler(new DataHandler(new ByteArrayDataSource(data, mimeType)));
+            // Đặt sẵn header mà saveChanges() lẽ ra sẽ tính, để bản mã hóa là bản cuối cùng
+            part.setHeader("Content-Type", mimeType);
+            part.setHeader("Content-Transfer-Encoding", "base64");
+            return part;
+        }
+
+        private static byte[] encode(MimeBodyPart part) throws MessagingException {
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                part.writeTo(out);
+                return out.toByteArray();
+            } catch (IOException e) {
+                throw new MessagingException("Failed to encode MIME part", e);
+            }
+        }
+    }
+
+    /**
+     * Thêm các part dùng chung vào multipart của một thư.
+     */
+    public void addTo(MimeMultipart multipart) throws MessagingException {
+        for (byte[] encoded : encodedParts) {
+            multipart.addBodyPart(new MimeBodyPart(new SharedByteArrayInputStream(encoded)));
+        }
+    }
+
+    public int size() {
+        return encodedParts.size();
+    }
+
+    public long getEncodedBytes() {
+        return encodedBytes;
+    }
+}
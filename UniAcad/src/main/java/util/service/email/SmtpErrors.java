@@ -0,0 +1,23 @@
+package util.service.email;
+
+import com.sun.mail.smtp.SMTPSendFailedException;
+
+/**
+ * Phân loại lỗi SMTP dùng chung cho MailService (quyết định gửi lại) và SmtpTransportPool (quyết định giữ kết nối).
+ */
+final class SmtpErrors {
+    private SmtpErrors() {
+    }
+
+    /**
+     * Server trả 4xx (tạm từ chối) hoặc mất kết nối ngay sau DATA (JavaMail báo mã -1, "[EOF]"):
+     * JavaMail vẫn ném SendFailedException nhưng gửi lại sau thì có thể thành công.
+     */
+    static boolean isTemporaryRejection(Throwable error) {
+        if (error instanceof SMTPSendFailedException smtpError) {
+            int code = smtpError.getReturnCode();
+            return code == -1 || (code >= 400 && code < 500);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,200 @@
+package util.service.email;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool kết nối SMTP có giới hạn. {@link Transport} không thread-safe nên mỗi kết nối chỉ được
+ * một thread dùng tại một thời điểm: thread mượn slot, gửi, rồi trả lại cho thread khác.
+ * Kết nối được mở lười, giữ lại giữa các batch, đóng và mở lại khi lỗi, khi để rỗi quá lâu
+ * hoặc khi đã gửi đủ số thư tối đa cho một kết nối (Gmail ngắt kết nối sau khoảng 100 thư).
+ */
+public class SmtpTransportPool {
+    private static final Logger logger = LoggerFactory.getLogger(SmtpTransportPool.class);
+
+    // Kết nối vừa dùng trong khoảng này thì không cần NOOP kiểm tra trước khi gửi
+    private static final long VALIDATE_AFTER_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final Session session;
+    private final int size;
+    private final int maxMessagesPerConnection;
+    private final long maxIdleNanos;
+    private final long borrowTimeoutMillis;
+    private final BlockingQueue<Slot> idle;
+    private volatile boolean closed;
+
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder retired = new LongAdder();
+    private final LongAdder broken = new LongAdder();
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder borrowWaitNanos = new LongAdder();
+
+    /**
+     * Một kết nối trong pool; chỉ thread đang mượn slot mới được đọc/ghi các field.
+     */
+    private static final class Slot {
+        Transport transport;
+        int sent;
+        long lastUsed;
+    }
+
+    public SmtpTransportPool(Session session, int size, int maxMessagesPerConnection,
+                             long maxIdleSeconds, long borrowTimeoutMillis) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        this.session = session;
+        this.size = size;
+        this.maxMessagesPerConnection = Math.max(1, maxMessagesPerConnection);
+        this.maxIdleNanos = TimeUnit.SECONDS.toNanos(maxIdleSeconds);
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idle = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            idle.add(new Slot());
+        }
+    }
+
+    /**
+     * Gửi một thư qua một kết nối mượn từ pool. Lỗi kết nối làm kết nối bị đóng để lần sau mở lại;
+     * lỗi người nhận ({@link SendFailedException}) thì giữ kết nối nếu nó còn sống.
+     */
+    public void send(MimeMessage message) throws MessagingException, InterruptedException {
+        Slot slot = borrow();
+        boolean healthy = false;
+        try {
+            ensureConnected(slot);
+            slot.transport.sendMessage(message, message.getAllRecipients());
+            slot.sent++;
+            messagesSent.increment();
+            healthy = true;
+        } catch (SendFailedException ex) {
+            // Server có thể đã đóng kết nối ngay sau DATA ("[EOF]")
+            healthy = SmtpErrors.isTemporaryRejection(ex) ? slot.transport.isConnected() : true;
+            throw ex;
+        } finally {
+            release(slot, healthy);
+        }
+    }
+
+    private Slot borrow() throws MessagingException, InterruptedException {
+        if (closed) {
+            throw new MessagingException("SMTP pool is closed");
+        }
+        long start = System.nanoTime();
+        Slot slot = idle.poll(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+        borrowWaitNanos.add(System.nanoTime() - start);
+        if (slot == null) {
+            throw new MessagingException("Timed out waiting for a free SMTP connection");
+        }
+        inUse.incrementAndGet();
+        return slot;
+    }
+
+    private void release(Slot slot, boolean healthy) {
+        slot.lastUsed = System.nanoTime();
+        if (!healthy) {
+            broken.increment();
+            close(slot);
+        }
+        if (closed) {
+            close(slot);
+        }
+        inUse.decrementAndGet();
+        idle.offer(slot);
+    }
+
+    private void ensureConnected(Slot slot) throws MessagingException {
+        long now = System.nanoTime();
+        if (slot.transport != null) {
+            if (slot.sent >= maxMessagesPerConnection || now - slot.lastUsed > maxIdleNanos) {
+                retired.increment();
+                close(slot);
+            } else if (now - slot.lastUsed > VALIDATE_AFTER_NANOS && !slot.transport.isConnected()) {
+                logger.warn("Pooled SMTP connection was dropped by the server, reconnecting");
+                close(slot);
+            }
+        }
+        if (slot.transport == null) {
+            Transport transport = session.getTransport("smtp");
+            transport.connect();
+            slot.transport = transport;
+            slot.sent = 0;
+            openConnections.incrementAndGet();
+            connects.increment();
+            logger.debug("SMTP connection opened ({} open)", openConnections.get());
+        }
+    }
+
+    private void close(Slot slot) {
+        if (slot.transport == null) {
+            return;
+        }
+        try {
+            slot.transport.close();
+        } catch (MessagingException ex) {
+            logger.debug("Error closing SMTP connection: {}", ex.getMessage());
+        }
+        slot.transport = null;
+        slot.sent = 0;
+        openConnections.decrementAndGet();
+    }
+
+    /**
+     * Đóng các kết nối đang rỗi; kết nối đang được mượn sẽ đóng khi được trả lại.
+     */
+    public void close() {
+        closed = true;
+        for (Slot slot : idle.toArray(new Slot[0])) {
+            if (idle.remove(slot)) {
+                close(slot);
+                idle.offer(slot);
+            }
+        }
+        logger.info("SMTP pool closed: {} connections opened, {} messages sent", getConnectCount(), getMessagesSent());
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    public int getInUse() {
+        return inUse.get();
+    }
+
+    public long getConnectCount() {
+        return connects.sum();
+    }
+
+    public long getRetiredCount() {
+        return retired.sum();
+    }
+
+    public long getBrokenCount() {
+        return broken.sum();
+    }
+
+    public long getMessagesSent() {
+        return messagesSent.sum();
+    }
+
+    public long getBorrowWaitNanos() {
+        return borrowWaitNanos.sum();
+    }
+}
@@ -0,0 +1,357 @@
+package util.service.exam;
+
+import dao.ExamDAO;
+import model.database.Exam;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * ExamSchedulingService: xếp lịch thi không trùng giờ cho sinh viên.
+ * <p>
+ * Quan hệ sinh viên ↔ exam (Study → Course → Grade → Exam) được nạp một lần vào {@link ExamIncidence}.
+ * Việc xếp lịch là tô màu đồ thị các exam có chung sinh viên hoặc chung phòng (Jones–Plassmann, chạy song song),
+ * mỗi màu là một ca thi. Phòng đã gán (vd. bởi RoomAllocationService) được giữ nguyên, không xếp lại; cạnh chung
+ * phòng bảo đảm hai exam cùng phòng không rơi vào cùng ca. Kiểm tra lịch (kể cả lịch do staff sửa tay) chạy hoàn
+ * toàn trên bộ nhớ.
+ */
+public class ExamSchedulingService {
+    private static final Logger logger = LoggerFactory.getLogger(ExamSchedulingService.class);
+
+    private final ExamDAO examDAO;
+
+    public ExamSchedulingService() {
+        this.examDAO = new ExamDAO();
+    }
+
+    /**
+     * Nạp toàn bộ exam và danh sách sinh viên dự thi của học kỳ (2 truy vấn).
+     *
+     * @throws RuntimeException nếu lỗi DB (không trả về dữ liệu thiếu)
+     */
+    public ExamIncidence loadIncidence(String termId) {
+        List<Exam> exams = examDAO.getExamsByTerm(termId);
+        Map<Integer, List<String>> studentsByExam = examDAO.getExamStudentsByTerm(termId);
+        ExamIncidence incidence = new ExamIncidence(exams, studentsByExam);
+        logger.info("Loaded exam incidence for term {}: {} exams, {} students", termId,
+                incidence.examCount(), incidence.studentCount());
+        return incidence;
+    }
+
+    /**
+     * Xếp lịch thi cho học kỳ vào các ca cho trước và lưu ExamDate xuống DB.
+     *
+     * @throws IllegalStateException nếu không nạp đủ dữ liệu hoặc không lưu được; khi đó không exam nào bị đổi giờ
+     */
+    public ExamTimetable scheduleTerm(String termId, List<Instant> periods) {
+        // Thiếu danh sách sinh viên thì đồ thị xung đột rỗng và mọi exam rơi vào cùng một ca, nên không được xếp tiếp
+        ExamIncidence incidence;
+        try {
+            incidence = loadIncidence(termId);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Could not load exams for term " + termId + "; nothing was saved", e);
+        }
+        ExamTimetable timetable = generate(incidence, periods);
+        int updated;
+        try {
+            updated = examDAO.updateExamDates(timetable.startByExam);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Could not save exam schedule for term " + termId, e);
+        }
+        logger.info("Term {}: scheduled {} exams into {} periods ({} colours), {} student conflicts",
+                termId, updated, periods.size(), timetable.colourCount, timetable.conflicts.size());
+        return timetable;
+    }
+
+    /**
+     * Tô màu đồ thị xung đột rồi gán mỗi màu vào một ca thi. Nếu số màu vượt quá số ca,
+     * các lớp màu thừa được dồn vào ca gây ít xung đột nhất (tính cả trùng sinh viên lẫn trùng phòng).
+     *
+     * @param periods giờ bắt đầu của các ca thi có thể dùng
+     */
+    public ExamTimetable generate(ExamIncidence incidence, List<Instant> periods) {
+        if (periods == null || periods.isEmpty()) {
+            throw new IllegalArgumentException("At least one exam period is required");
+        }
+        long startNanos = System.nanoTime();
+        int[][] neighbours = incidence.conflictGraph();
+        int[] colour = colour(neighbours);
+        int colourCount = Arrays.stream(colour).max().orElse(-1) + 1;
+
+        int[] periodOf = new int[colour.length];
+        if (colourCount <= periods.size()) {
+            System.arraycopy(colour, 0, periodOf, 0, colour.length);
+        } else {
+            assignExtraColours(neighbours, colour, colourCount, periods.size(), periodOf);
+        }
+
+        Map<Integer, Instant> startByExam = new HashMap<>();
+        Instant[] starts = new Instant[colour.length];
+        for (int exam = 0; exam < colour.length; exam++) {
+            starts[exam] = periods.get(periodOf[exam]);
+            startByExam.put(incidence.examIds[exam], starts[exam]);
+        }
+        List<ExamConflict> conflicts = validate(incidence, starts);
+        logger.debug("Generated exam timetable: {} exams, {} colours, {} conflicts in {} ms", colour.length,
+                colourCount, conflicts.size(), (System.nanoTime() - startNanos) / 1_000_000);
+        return new ExamTimetable(startByExam, colourCount, conflicts);
+    }
+
+    /**
+     * Kiểm tra lịch thi hiện tại, có thể ghi đè giờ thi của một số exam (lịch sửa tay).
+     *
+     * @param overrides ExamID → ExamDate mới, null nếu chỉ kiểm tra lịch đang có
+     */
+    public List<ExamConflict> validate(ExamIncidence incidence, Map<Integer, Instant> overrides) {
+        Instant[] starts = incidence.starts.clone();
+        if (overrides != null) {
+            overrides.forEach((examId, start) -> {
+                Integer exam = incidence.examIndex.get(examId);
+                if (exam != null) {
+                    starts[exam] = start;
+                }
+            });
+        }
+        return validate(incidence, starts);
+    }
+
+    /**
+     * Với mỗi sinh viên, sắp các exam theo giờ bắt đầu và quét tìm cặp chồng giờ. Chạy song song theo sinh viên.
+     */
+    private List<ExamConflict> validate(ExamIncidence incidence, Instant[] starts) {
+        long[] begin = new long[starts.length];
+        long[] end = new long[starts.length];
+        for (int exam = 0; exam < starts.length; exam++) {
+            if (starts[exam] == null) {
+                begin[exam] = Long.MIN_VALUE;
+                end[exam] = Long.MIN_VALUE;
+                continue;
+            }
+            begin[exam] = starts[exam].getEpochSecond();
+            end[exam] = begin[exam] + incidence.durationSeconds[exam];
+        }
+
+        return IntStream.range(0, incidence.studentIds.length).parallel()
+                .mapToObj(student -> {
+                    int[] exams = incidence.examsByStudent[student];
+                    if (exams.length < 2) return List.<ExamConflict>of();
+                    Integer[] order = new Integer[exams.length];
+                    for (int i = 0; i < exams.length; i++) order[i] = exams[i];
+                    Arrays.sort(order, Comparator.comparingLong(exam -> begin[exam]));
+
+                    List<ExamConflict> found = new ArrayList<>(0);
+                    int latest = -1;
+                    for (int exam : order) {
+                        if (begin[exam] == Long.MIN_VALUE) continue;
+                        if (latest >= 0 && begin[exam] < end[latest]) {
+                            found.add(new ExamConflict(incidence.studentIds[student],
+                                    incidence.examIds[latest], incidence.examIds[exam]));
+                        }
+                        if (latest < 0 || end[exam] > end[latest]) latest = exam;
+                    }
+                    return found;
+                })
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Jones–Plassmann: mỗi vòng, các exam chưa tô có độ ưu tiên lớn nhất trong số hàng xóm chưa tô
+     * tạo thành tập độc lập và được tô song song bằng màu nhỏ nhất chưa bị hàng xóm dùng.
+     * Độ ưu tiên = bậc (largest-first) rồi ngẫu nhiên để phá hòa.
+     */
+    private int[] colour(int[][] neighbours) {
+        int n = neighbours.length;
+        long[] priority = new long[n];
+        for (int v = 0; v < n; v++) {
+            priority[v] = ((long) neighbours[v].length << 32) | ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
+        }
+        int[] colour = new int[n];
+        Arrays.fill(colour, -1);
+
+        int[] remaining = IntStream.range(0, n).toArray();
+        while (remaining.length > 0) {
+            int[] selected = Arrays.stream(remaining).parallel()
+                    .filter(v -> {
+                        for (int u : neighbours[v]) {
+                            if (colour[u] < 0 && (priority[u] > priority[v] || (priority[u] == priority[v] && u > v))) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    })
+                    .toArray();
+            Arrays.stream(selected).parallel().forEach(v -> {
+                BitSet used = new BitSet();
+                for (int u : neighbours[v]) {
+                    if (colour[u] >= 0) used.set(colour[u]);
+                }
+                colour[v] = used.nextClearBit(0);
+            });
+            remaining = Arrays.stream(remaining).filter(v -> colour[v] < 0).toArray();
+        }
+        return colour;
+    }
+
+    private void assignExtraColours(int[][] neighbours, int[] colour, int colourCount, int periodCount, int[] periodOf) {
+        List<List<Integer>> classes = new ArrayList<>();
+        for (int c = 0; c < colourCount; c++) classes.add(new ArrayList<>());
+        for (int v = 0; v < colour.length; v++) classes.get(colour[v]).add(v);
+
+        Arrays.fill(periodOf, -1);
+        for (int c = 0; c < periodCount; c++) {
+            for (int v : classes.get(c)) periodOf[v] = c;
+        }
+        // Lớp màu lớn trước: chọn ca có ít hàng xóm đã xếp nhất
+        List<Integer> extra = IntStream.range(periodCount, colourCount).boxed()
+                .sorted(Comparator.comparingInt((Integer c) -> classes.get(c).size()).reversed())
+                .toList();
+        for (int c : extra) {
+            long[] clashes = new long[periodCount];
+            for (int v : classes.get(c)) {
+                for (int u : neighbours[v]) {
+                    if (periodOf[u] >= 0) clashes[periodOf[u]]++;
+                }
+            }
+            int best = 0;
+            for (int p = 1; p < periodCount; p++) {
+                if (clashes[p] < clashes[best]) best = p;
+            }
+            for (int v : classes.get(c)) periodOf[v] = best;
+        }
+    }
+
+    /**
+     * Cấu trúc sinh viên ↔ exam của một học kỳ, đánh chỉ số nguyên để duyệt nhanh.
+     */
+    public static class ExamIncidence {
+        final int[] examIds;
+        final Map<Integer, Integer> examIndex;
+        final Instant[] starts;
+        final long[] durationSeconds;
+        final String[] studentIds;
+        final int[][] examsByStudent;
+        final int[][] studentsByExam;
+        // Các exam khác cùng RoomID với mỗi exam (rỗng nếu exam chưa có phòng)
+        final int[][] sameRoomExams;
+
+        public ExamIncidence(List<Exam> exams, Map<Integer, List<String>> studentsByExamId) {
+            int n = exams.size();
+            examIds = new int[n];
+            examIndex = new HashMap<>(n * 2);
+            starts = new Instant[n];
+            durationSeconds = new long[n];
+            Map<String, List<Integer>> examsByRoom = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                Exam exam = exams.get(i);
+                examIds[i] = exam.getId();
+                examIndex.put(exam.getId(), i);
+                starts[i] = exam.getExamDate();
+                LocalTime duration = exam.getExamDuration();
+                durationSeconds[i] = duration != null ? duration.toSecondOfDay() : 0;
+                if (exam.getRoomID() != null && exam.getRoomID().getRoomID() != null) {
+                    examsByRoom.computeIfAbsent(exam.getRoomID().getRoomID().trim(), k -> new ArrayList<>()).add(i);
+                }
+            }
+            sameRoomExams = new int[n][0];
+            for (List<Integer> roomExams : examsByRoom.values()) {
+                if (roomExams.size() < 2) continue;
+                int[] shared = roomExams.stream().mapToInt(Integer::intValue).toArray();
+                for (int exam : shared) {
+                    sameRoomExams[exam] = shared;
+                }
+            }
+
+            Map<String, Integer> studentIndex = new HashMap<>();
+            List<List<Integer>> byStudent = new ArrayList<>();
+            studentsByExam = new int[n][];
+            for (int i = 0; i < n; i++) {
+                Set<String> students = new LinkedHashSet<>(studentsByExamId.getOrDefault(examIds[i], List.of()));
+                int[] indices = new int[students.size()];
+                int j = 0;
+                for (String studentId : students) {
+                    Integer s = studentIndex.get(studentId);
+                    if (s == null) {
+                        s = studentIndex.size();
+                        studentIndex.put(studentId, s);
+                        byStudent.add(new ArrayList<>());
+                    }
+                    indices[j++] = s;
+                    byStudent.get(s).add(i);
+                }
+                studentsByExam[i] = indices;
+            }
+
+            studentIds = new String[studentIndex.size()];
+            studentIndex.forEach((id, index) -> studentIds[index] = id);
+            examsByStudent = new int[studentIds.length][];
+            for (int s = 0; s < studentIds.length; s++) {
+                examsByStudent[s] = byStudent.get(s).stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+
+        /**
+         * Danh sách kề của đồ thị exam: hai exam kề nhau nếu có ít nhất một sinh viên chung hoặc cùng phòng.
+         */
+        int[][] conflictGraph() {
+            return IntStream.range(0, examIds.length).parallel()
+                    .mapToObj(exam -> {
+                        BitSet adjacent = new BitSet(examIds.length);
+                        for (int student : studentsByExam[exam]) {
+                            for (int other : examsByStudent[student]) {
+                                adjacent.set(other);
+                            }
+                        }
+                        for (int other : sameRoomExams[exam]) {
+                            adjacent.set(other);
+                        }
+                        adjacent.clear(exam);
+                        return adjacent.stream().toArray();
+                    })
+                    .toArray(int[][]::new);
+        }
+
+        public int examCount() {
+            return examIds.length;
+        }
+
+        public int studentCount() {
+            return studentIds.length;
+        }
+    }
+
+    public static class ExamTimetable {
+        public final Map<Integer, Instant> startByExam;
+        public final int colourCount;
+        public final List<ExamConflict> conflicts;
+
+        public ExamTimetable(Map<Integer, Instant> startByExam, int colourCount, List<ExamConflict> conflicts) {
+            this.startByExam = startByExam;
+            this.colourCount = colourCount;
+            this.conflicts = conflicts;
+        }
+    }
+
+    public static class ExamConflict {
+        public final String studentId;
+        public final int firstExamId;
+        public final int secondExamId;
+
+        public ExamConflict(String studentId, int firstExamId, int secondExamId) {
+            this.studentId = studentId;
+            this.firstExamId = firstExamId;
+            this.secondExamId = secondExamId;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Student %s: Exam %d overlaps Exam %d", studentId, firstExamId, secondExamId);
+        }
+    }
+}
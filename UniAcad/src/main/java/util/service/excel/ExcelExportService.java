@@ -0,0 +1,301 @@
+package util.service.excel;
+
+import dao.FeeDAO;
+import dao.MarkDAO;
+import dao.StudyDAO;
+import org.dhatim.fastexcel.Workbook;
+import org.dhatim.fastexcel.Worksheet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.service.excel.ExcelService.ColumnConfig;
+import util.service.excel.ExcelService.DataType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Xuất dữ liệu (danh sách lớp, bảng điểm, bảng kê học phí) ra .xlsx bằng fastexcel, ghi thẳng vào OutputStream
+ * (thường là response). Dòng được đọc từ cursor của DAO và flush ra stream theo từng đợt, nên bộ nhớ không phụ
+ * thuộc số dòng. Độ rộng cột tính từ {@link #SAMPLE_ROWS} dòng đầu: chỉ các dòng này được giữ lại trước khi
+ * sheet bắt đầu ghi, vì fastexcel ghi định nghĩa cột ngay ở lần flush đầu tiên.
+ */
+public class ExcelExportService {
+    private static final Logger logger = LoggerFactory.getLogger(ExcelExportService.class);
+    private static final int SAMPLE_ROWS = 200;
+    private static final int FLUSH_EVERY_ROWS = 1000;
+    private static final int MAX_SHEET_ROWS = 1_048_576;
+    private static final double MIN_COLUMN_WIDTH = 8;
+    private static final double MAX_COLUMN_WIDTH = 60;
+    private static final String DATE_FORMAT = "yyyy-mm-dd";
+    private static final String DATE_TIME_FORMAT = "yyyy-mm-dd hh:mm";
+
+    public static final List<ColumnConfig> CLASS_LIST_COLUMNS = List.of(
+            new ColumnConfig(0, "StudentID", DataType.STRING, true, null),
+            new ColumnConfig(1, "StudentName", DataType.STRING, true, null),
+            new ColumnConfig(2, "StudentEmail", DataType.EMAIL, true, null),
+            new ColumnConfig(3, "StudentPhone", DataType.STRING, true, null),
+            new ColumnConfig(4, "StudentDoB", DataType.DATE, true, null),
+            new ColumnConfig(5, "Gender", DataType.STRING, true, null),
+            new ColumnConfig(6, "Status", DataType.STRING, true, null),
+            new ColumnConfig(7, "CurriculumID", DataType.STRING, true, null)
+    );
+
+    public static final List<ColumnConfig> GRADE_SHEET_COLUMNS = List.of(
+            new ColumnConfig(0, "StudentID", DataType.STRING, true, null),
+            new ColumnConfig(1, "StudentName", DataType.STRING, true, null),
+            new ColumnConfig(2, "Grade", DataType.STRING, true, null),
+            new ColumnConfig(3, "Percent", DataType.INTEGER, true, null),
+            new ColumnConfig(4, "Mark", DataType.DOUBLE, false, null)
+    );
+
+    public static final List<ColumnConfig> FEE_STATEMENT_COLUMNS = List.of(
+            new ColumnConfig(0, "FeeID", DataType.INTEGER, true, null),
+            new ColumnConfig(1, "StudentID", DataType.STRING, true, null),
+            new ColumnConfig(2, "StudentName", DataType.STRING, true, null),
+            new ColumnConfig(3, "TermID", DataType.STRING, false, null),
+            new ColumnConfig(4, "Amount", DataType.DOUBLE, true, null),
+            new ColumnConfig(5, "AmountPaid", DataType.DOUBLE, true, null),
+            new ColumnConfig(6, "DueDate", DataType.DATE, false, null),
+            new ColumnConfig(7, "Status", DataType.STRING, true, null)
+    );
+
+    private final StudyDAO studyDAO;
+    private final MarkDAO markDAO;
+    private final FeeDAO feeDAO;
+
+    public ExcelExportService() {
+        this(new StudyDAO(), new MarkDAO(), new FeeDAO());
+    }
+
+    public ExcelExportService(StudyDAO studyDAO, MarkDAO markDAO, FeeDAO feeDAO) {
+        this.studyDAO = studyDAO;
+        this.markDAO = markDAO;
+        this.feeDAO = feeDAO;
+    }
+
+    /**
+     * Danh sách sinh viên của một Course
+     */
+    public ExportDataset classList(int courseId) {
+        return new ExportDataset("class-list_course-" + courseId + ".xlsx", "Class list", CLASS_LIST_COLUMNS,
+                sink -> studyDAO.forEachClassListRow(courseId, rs -> sink.accept(readRow(rs, CLASS_LIST_COLUMNS))));
+    }
+
+    /**
+     * Bảng điểm của một Grade (đầu điểm) trong Course
+     */
+    public ExportDataset gradeSheet(int gradeId) {
+        return new ExportDataset("grade-sheet_grade-" + gradeId + ".xlsx", "Grade sheet", GRADE_SHEET_COLUMNS,
+                sink -> markDAO.forEachGradeSheetRow(gradeId, rs -> sink.accept(readRow(rs, GRADE_SHEET_COLUMNS))));
+    }
+
+    /**
+     * Bảng kê học phí của một kỳ, {@code termId} null để xuất mọi kỳ
+     */
+    public ExportDataset feeStatements(String termId) {
+        String fileName = "fee-statements" + (termId != null ? "_" + termId.trim() : "") + ".xlsx";
+        return new ExportDataset(fileName, "Fee statements", FEE_STATEMENT_COLUMNS,
+                sink -> feeDAO.forEachFeeStatementRow(termId, rs -> sink.accept(readRow(rs, FEE_STATEMENT_COLUMNS))));
+    }
+
+    /**
+     * Ghi {@code dataset} thành một workbook một sheet vào {@code out}. Không đóng {@code out}.
+     *
+     * @return số dòng dữ liệu đã ghi (không tính header)
+     */
+    public int export(ExportDataset dataset, OutputStream out) throws SQLException, IOException {
+        long start = System.nanoTime();
+        Workbook workbook = new Workbook(out, "UniAcad", "1.0");
+        SheetWriter writer = new SheetWriter(workbook, dataset.sheetName, dataset.columns);
+        int rows = dataset.source.forEach(writer::write);
+        writer.finish();
+        workbook.finish();
+        logger.info("Exported {} rows to {} in {} ms", rows, dataset.fileName, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    /**
+     * Đọc dòng hiện tại của cursor theo thứ tự {@code columns} (cột thứ i của câu SELECT ứng với columns[i]).
+     */
+    static Object[] readRow(ResultSet rs, List<ColumnConfig> columns) throws SQLException {
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            int index = i + 1;
+            switch (columns.get(i).type) {
+                case INTEGER:
+                    int intValue = rs.getInt(index);
+                    values[i] = rs.wasNull() ? null : intValue;
+                    break;
+                case DOUBLE:
+                    values[i] = rs.getBigDecimal(index);
+                    break;
+                case BOOLEAN:
+                    boolean boolValue = rs.getBoolean(index);
+                    values[i] = rs.wasNull() ? null : boolValue;
+                    break;
+                case DATE:
+                    Object date = rs.getObject(index);
+                    if (date instanceof java.sql.Date) {
+                        values[i] = ((java.sql.Date) date).toLocalDate();
+                    } else if (date instanceof Timestamp) {
+                        values[i] = ((Timestamp) date).toLocalDateTime();
+                    } else {
+                        values[i] = date;
+                    }
+                    break;
+                default:
+                    values[i] = rs.getString(index);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Giữ các dòng mẫu để tính độ rộng cột, sau đó ghi và flush dần từng đợt {@link #FLUSH_EVERY_ROWS} dòng.
+     * Quá giới hạn dòng của Excel thì sang sheet tiếp theo ("Tên (2)"...) với cùng header và độ rộng cột.
+     */
+    private static final class SheetWriter {
+        private final Workbook workbook;
+        private final String sheetName;
+        private final List<ColumnConfig> columns;
+        private final double[] widths;
+        private Worksheet sheet;
+        private int sheetCount = 1;
+        private List<Object[]> sample = new ArrayList<>();
+        private int nextRow = 1;
+
+        SheetWriter(Workbook workbook, String sheetName, List<ColumnConfig> columns) {
+            this.workbook = workbook;
+            this.sheetName = sheetName;
+            this.sheet = workbook.newWorksheet(sheetName);
+            this.columns = columns;
+            this.widths = new double[columns.size()];
+            for (int i = 0; i < widths.length; i++) {
+                widths[i] = columns.get(i).name.length() + 2;
+            }
+        }
+
+        void write(Object[] values) throws IOException {
+            if (sample == null) {
+                writeRow(values);
+                return;
+            }
+            sample.add(values);
+            for (int i = 0; i < widths.length; i++) {
+                widths[i] = Math.max(widths[i], displayLength(values[i]) + 2);
+            }
+            if (sample.size() == SAMPLE_ROWS) {
+                start();
+            }
+        }
+
+        void finish() throws IOException {
+            if (sample != null) {
+                start();
+            }
+            sheet.finish();
+        }
+
+        private void start() throws IOException {
+            writeHeader();
+            List<Object[]> rows = sample;
+            sample = null;
+            for (Object[] row : rows) {
+                writeRow(row);
+            }
+        }
+
+        private void writeHeader() {
+            for (int i = 0; i < widths.length; i++) {
+                int column = columns.get(i).columnIndex;
+                sheet.width(column, Math.min(MAX_COLUMN_WIDTH, Math.max(MIN_COLUMN_WIDTH, widths[i])));
+                sheet.value(0, column, columns.get(i).name);
+                sheet.style(0, column).bold().fillColor("D9E1F2").set();
+            }
+            sheet.freezePane(0, 1);
+        }
+
+        private void writeRow(Object[] values) throws IOException {
+            if (nextRow == MAX_SHEET_ROWS) {
+                sheet.finish();
+                sheet = workbook.newWorksheet(sheetName + " (" + ++sheetCount + ")");
+                nextRow = 1;
+                writeHeader();
+            }
+            int row = nextRow++;
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                int column = columns.get(i).columnIndex;
+                if (value == null) {
+                    continue;
+                }
+                if (value instanceof Number) {
+                    sheet.value(row, column, (Number) value);
+                } else if (value instanceof Boolean) {
+                    sheet.value(row, column, (Boolean) value);
+                } else if (value instanceof LocalDate) {
+                    sheet.value(row, column, (LocalDate) value);
+                    sheet.style(row, column).format(DATE_FORMAT).set();
+                } else if (value instanceof LocalDateTime) {
+                    sheet.value(row, column, (LocalDateTime) value);
+                    sheet.style(row, column).format(DATE_TIME_FORMAT).set();
+                } else {
+                    // Inline string: value(String) đưa mọi chuỗi vào bảng sharedStrings giữ trong heap tới finish()
+                    sheet.inlineString(row, column, value.toString());
+                }
+            }
+            if (row % FLUSH_EVERY_ROWS == 0) {
+                sheet.flush();
+            }
+        }
+
+        private static int displayLength(Object value) {
+            if (value == null) return 0;
+            if (value instanceof LocalDate) return DATE_FORMAT.length();
+            if (value instanceof LocalDateTime) return DATE_TIME_FORMAT.length();
+            if (value instanceof BigDecimal) return ((BigDecimal) value).toPlainString().length();
+            return value.toString().length();
+        }
+    }
+
+    /**
+     * Nguồn dòng cho export: gọi {@code sink} lần lượt cho từng dòng và trả về số dòng.
+     */
+    @FunctionalInterface
+    public interface RowSource {
+        int forEach(RowSink sink) throws SQLException, IOException;
+    }
+
+    @FunctionalInterface
+    public interface RowSink {
+        void accept(Object[] values) throws IOException;
+    }
+
+    public static class ExportDataset {
+        public final String fileName;
+        public final String sheetName;
+        public final List<ColumnConfig> columns;
+        private final RowSource source;
+
+        public ExportDataset(String fileName, String sheetName, List<ColumnConfig> columns, RowSource source) {
+            if (columns == null || columns.isEmpty()) {
+                throw new IllegalArgumentException("Column configurations cannot be null or empty");
+            }
+            if (columns.stream().anyMatch(column -> column.type == DataType.IMAGE)) {
+                throw new IllegalArgumentException("IMAGE columns cannot be exported");
+            }
+            this.fileName = fileName;
+            this.sheetName = sheetName;
+            this.columns = columns;
+            this.source = source;
+        }
+    }
+}
@@ -1,26 +1,44 @@
 package util.service.excel;
 
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.streaming.SXSSFSheet;
 import org.apache.poi.xssf.usermodel.*;
-import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.dhatim.fastexcel.reader.ReadableWorkbook;
+import org.dhatim.fastexcel.reader.ReadingOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import util.service.file.FileService;
 
 import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * ExcelService: Advanced Excel file processor with template generation, multi-sheet reading,
  * image handling, custom validation, and header inference. Optimized for large files using streaming.
+ * <p>
+ * File không có cột IMAGE được đọc tuần tự bằng fastexcel-reader ({@link #streamExcelFile}): từng dòng được
+ * parse, validate rồi chuyển cho callback, heap không phụ thuộc số dòng. Cột IMAGE cần drawing của sheet
+ * nên vẫn dùng XSSFWorkbook.
+ * <p>
+ * Ảnh trong cột IMAGE được lưu theo nội dung: tên file là SHA-256 của bytes ảnh, nên ảnh lặp lại (logo, ảnh
+ * mặc định...) chỉ ghi một lần. Việc nhận dạng định dạng, băm và ghi file chạy song song trên {@code imagePool}
+ * trong lúc các dòng vẫn được đọc. Pool được tạo khi cần và đóng bởi {@link #shutdownImagePool()} khi undeploy.
  */
 public class ExcelService {
     private static final Logger logger = LoggerFactory.getLogger(ExcelService.class);
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
     private static final int MAX_ROWS_PER_BATCH = 1000;
+    private static final int MAX_REPORTED_ERRORS = 1000;
     private static final int MAX_SHEET_COLUMNS = 16384;
+    private static final int IMAGE_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    // Số ảnh đã đọc bytes nhưng chưa ghi xong (dùng chung mọi request), để heap không tăng theo số ảnh trong file
+    private static final Semaphore PENDING_IMAGES = new Semaphore(IMAGE_THREADS * 4);
+
+    private static ExecutorService imagePool;
 
     private final FileService fileService;
 
@@ -33,6 +51,14 @@ public class ExcelService {
         Objects.requireNonNull(fileName, "File name cannot be null or empty");
         if (fileName.trim().isEmpty()) throw new IllegalArgumentException("File name cannot be empty");
 
+        if (columnConfigs == null || columnConfigs.stream().noneMatch(config -> config.type == DataType.IMAGE)) {
+            List<Map<String, Object>> data = new ArrayList<>();
+            List<ProcessingError> errors = new ArrayList<>();
+            streamExcelFile(fileName, columnConfigs, startRow, sheetName, headerRow,
+                    (rowNumber, rowData) -> data.add(rowData), errors, Integer.MAX_VALUE);
+            return new ExcelProcessingResult(data, errors);
+        }
+
         try (InputStream is = fileService.getFileInputStream(fileName, FileService.FileType.EXCEL);
              XSSFWorkbook workbook = new XSSFWorkbook(is)) {
 
@@ -54,6 +80,7 @@ public class ExcelService {
             validateColumnConfigs(effectiveConfigs, sheet);
 
             Map<String, XSSFPictureData> pictureMap = preloadPictures(sheet);
+            Map<XSSFPictureData, Future<String>> storedImages = storeImagesAsync(pictureMap, effectiveConfigs);
 
             List<Map<String, Object>> data = new ArrayList<>();
             List<ProcessingError> errors = new ArrayList<>();
@@ -61,12 +88,12 @@ public class ExcelService {
 
             for (Row row : sheet) {
                 if (row.getRowNum() < startRow - 1 || isRowEmpty(row)) continue;
-                Map<String, Object> rowData = processRow(row, effectiveConfigs, pictureMap, errors);
+                Map<String, Object> rowData = processRow(row.getRowNum() + 1, effectiveConfigs,
+                        config -> extractCellValue(row.getCell(config.columnIndex), config, row.getRowNum(), pictureMap, storedImages), errors);
                 if (rowData != null) data.add(rowData);
 
                 if (++rowCount % MAX_ROWS_PER_BATCH == 0) {
                     logger.debug("Processed {} rows, current memory: {} MB", rowCount, getMemoryUsage());
-                    data = new ArrayList<>(data);
                 }
             }
 
@@ -75,45 +102,108 @@ public class ExcelService {
         }
     }
 
-    public void generateExcelTemplate(String fileName, List<ColumnConfig> columnConfigs) throws IOException {
-        if (columnConfigs == null || columnConfigs.isEmpty()) {
-            throw new IllegalArgumentException("Column configurations cannot be null or empty");
+    /**
+     * Đọc tuần tự sheet bằng fastexcel-reader, mỗi dòng hợp lệ được chuyển ngay cho {@code handler}.
+     * Tham số và quy tắc chuyển kiểu giống {@link #processExcelFile}; chỉ giữ {@value #MAX_REPORTED_ERRORS} lỗi đầu
+     * tiên (tổng số lỗi vẫn đếm đủ). Không hỗ trợ cột IMAGE.
+     */
+    public StreamingResult streamExcelFile(String fileName, List<ColumnConfig> columnConfigs, int startRow, String sheetName,
+                                           int headerRow, RowHandler handler) throws IOException {
+        Objects.requireNonNull(fileName, "File name cannot be null or empty");
+        if (fileName.trim().isEmpty()) throw new IllegalArgumentException("File name cannot be empty");
+        return streamExcelFile(fileName, columnConfigs, startRow, sheetName, headerRow, handler, new ArrayList<>(), MAX_REPORTED_ERRORS);
+    }
+
+    private StreamingResult streamExcelFile(String fileName, List<ColumnConfig> columnConfigs, int startRow, String sheetName,
+                                            int headerRow, RowHandler handler, List<ProcessingError> errors, int maxErrors) throws IOException {
+        Objects.requireNonNull(handler, "Row handler cannot be null");
+        if (columnConfigs != null && columnConfigs.stream().anyMatch(config -> config.type == DataType.IMAGE)) {
+            throw new IllegalArgumentException("IMAGE columns are not supported in streaming mode, use processExcelFile");
+        }
+        File file = new File(fileService.getAbsolutePath(fileName, FileService.FileType.EXCEL));
+        if (!file.exists()) throw new FileNotFoundException("File not found: " + file);
+
+        startRow = startRow <= 0 ? 2 : startRow;
+        headerRow = columnConfigs == null ? (headerRow <= 0 ? startRow - 1 : headerRow) : 0;
+        if (headerRow > 0 && headerRow >= startRow) {
+            throw new IllegalArgumentException("Header row must be before start row.");
         }
         validateColumnConfigs(columnConfigs, null);
 
-        SXSSFWorkbook workbook = null;
-        try (ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
-            workbook = new SXSSFWorkbook(100);
-            SXSSFSheet sheet = workbook.createSheet("Template");
+        // withCellFormat: cần định dạng số để phân biệt ô ngày với ô số
+        try (ReadableWorkbook workbook = new ReadableWorkbook(file, new ReadingOptions(true, false))) {
+            org.dhatim.fastexcel.reader.Sheet sheet = sheetName != null
+                    ? workbook.findSheet(sheetName).orElseThrow(() -> new IllegalArgumentException("Sheet not found: " + sheetName))
+                    : workbook.getFirstSheet();
+            boolean date1904 = workbook.isDate1904();
 
-            for (ColumnConfig config : columnConfigs) {
-                sheet.trackColumnsForAutoSizing(Arrays.asList(config.columnIndex));
-            }
+            List<ColumnConfig> effectiveConfigs = columnConfigs;
+            List<ProcessingError> rowErrors = new ArrayList<>();
+            int rowCount = 0;
+            int validRows = 0;
+            int errorCount = 0;
+
+            try (Stream<org.dhatim.fastexcel.reader.Row> rows = sheet.openStream()) {
+                Iterator<org.dhatim.fastexcel.reader.Row> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    org.dhatim.fastexcel.reader.Row row = iterator.next();
+                    int rowNumber = row.getRowNum(); // fastexcel đánh số dòng từ 1
+                    if (effectiveConfigs == null && rowNumber >= headerRow) {
+                        effectiveConfigs = inferColumnConfigs(rowNumber == headerRow ? row : null, date1904);
+                        validateColumnConfigs(effectiveConfigs, null);
+                    }
+                    if (rowNumber < startRow || isRowEmpty(row)) continue;
+
+                    Map<String, Object> rowData = processRow(rowNumber, effectiveConfigs,
+                            config -> extractCellValue(row.getOptionalCell(config.columnIndex).orElse(null), config, date1904),
+                            rowErrors);
+                    errorCount += rowErrors.size();
+                    for (ProcessingError error : rowErrors) {
+                        if (errors.size() < maxErrors) errors.add(error);
+                    }
+                    rowErrors.clear();
+                    if (rowData != null) {
+                        handler.handle(rowNumber, rowData);
+                        validRows++;
+                    }
 
-            Row headerRow = sheet.createRow(0);
-            for (ColumnConfig config : columnConfigs) {
-                Cell cell = headerRow.createCell(config.columnIndex);
-                cell.setCellValue(config.name);
-                sheet.autoSizeColumn(config.columnIndex);
+                    if (++rowCount % MAX_ROWS_PER_BATCH == 0) {
+                        logger.debug("Streamed {} rows, current memory: {} MB", rowCount, getMemoryUsage());
+                    }
+                }
             }
-
-            Row sampleRow = sheet.createRow(1);
-            for (ColumnConfig config : columnConfigs) {
-                Cell cell = sampleRow.createCell(config.columnIndex);
-                cell.setCellValue(getSampleValue(config.type));
-                sheet.autoSizeColumn(config.columnIndex);
+            if (effectiveConfigs == null) {
+                throw new IllegalArgumentException("Start/Header row exceeds sheet size.");
             }
 
-            workbook.write(bos);
-            if (!fileService.saveFile(fileName, bos.toByteArray(), FileService.FileType.EXCEL, true)) {
-                throw new IOException("Failed to save template via FileService");
-            }
-            logger.info("Template generated: {}", fileName);
-        } finally {
-            if (workbook != null) {
-                workbook.dispose();
-            }
+            logger.info("Streamed {} rows with {} errors", rowCount, errorCount);
+            return new StreamingResult(rowCount, validRows, errorCount, errors);
+        }
+    }
+
+    public void generateExcelTemplate(String fileName, List<ColumnConfig> columnConfigs) throws IOException {
+        if (columnConfigs == null || columnConfigs.isEmpty()) {
+            throw new IllegalArgumentException("Column configurations cannot be null or empty");
+        }
+        validateColumnConfigs(columnConfigs, null);
+
+        // Template chỉ có header và một dòng mẫu nên độ rộng cột tính thẳng từ độ dài chữ, không cần autoSizeColumn
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        org.dhatim.fastexcel.Workbook workbook = new org.dhatim.fastexcel.Workbook(bos, "UniAcad", "1.0");
+        org.dhatim.fastexcel.Worksheet sheet = workbook.newWorksheet("Template");
+        for (ColumnConfig config : columnConfigs) {
+            String sample = getSampleValue(config.type);
+            sheet.width(config.columnIndex, Math.max(config.name.length(), sample.length()) + 2);
+            sheet.value(0, config.columnIndex, config.name);
+            sheet.style(0, config.columnIndex).bold().set();
+            sheet.value(1, config.columnIndex, sample);
         }
+        workbook.finish();
+
+        if (!fileService.saveFile(fileName, bos.toByteArray(), FileService.FileType.EXCEL, true)) {
+            throw new IOException("Failed to save template via FileService");
+        }
+        logger.info("Template generated: {}", fileName);
     }
 
     private List<ColumnConfig> inferColumnConfigs(Row headerRow) {
@@ -133,6 +223,42 @@ public class ExcelService {
         return configs;
     }
 
+    private List<ColumnConfig> inferColumnConfigs(org.dhatim.fastexcel.reader.Row headerRow, boolean date1904) {
+        if (headerRow == null) {
+            logger.warn("No header row found, returning empty configs");
+            return Collections.emptyList();
+        }
+
+        List<ColumnConfig> configs = new ArrayList<>();
+        for (org.dhatim.fastexcel.reader.Cell cell : headerRow) {
+            if (cell == null) continue;
+            String name = cell.getType() == org.dhatim.fastexcel.reader.CellType.STRING ? cell.asString().trim() : "Column" + cell.getColumnIndex();
+            if (name.isEmpty()) name = "Column" + cell.getColumnIndex();
+            configs.add(new ColumnConfig(cell.getColumnIndex(), name, inferDataType(cell), false, null));
+        }
+        logger.info("Inferred {} column configurations from header", configs.size());
+        return configs;
+    }
+
+    private DataType inferDataType(org.dhatim.fastexcel.reader.Cell cell) {
+        switch (cell.getType()) {
+            case STRING:
+                return EMAIL_PATTERN.matcher(cell.asString()).matches() ? DataType.EMAIL : DataType.STRING;
+            case NUMBER:
+                return isDateFormatted(cell) ? DataType.DATE :
+                        cell.asNumber().stripTrailingZeros().scale() <= 0 ? DataType.INTEGER : DataType.DOUBLE;
+            case BOOLEAN:
+                return DataType.BOOLEAN;
+            default:
+                return DataType.STRING;
+        }
+    }
+
+    private static boolean isDateFormatted(org.dhatim.fastexcel.reader.Cell cell) {
+        Integer formatId = cell.getDataFormatId();
+        return formatId != null && DateUtil.isADateFormat(formatId, cell.getDataFormatString());
+    }
+
     private DataType inferDataType(Cell cell) {
         if (cell == null) return DataType.STRING;
         switch (cell.getCellType()) {
@@ -168,6 +294,118 @@ public class ExcelService {
         return map;
     }
 
+    private static synchronized ExecutorService imagePool() {
+        if (imagePool == null) {
+            imagePool = Executors.newFixedThreadPool(IMAGE_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "excel-image");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return imagePool;
+    }
+
+    /**
+     * Dừng pool lưu ảnh; gọi từ listener khi undeploy để không giữ thread (và classloader) của ứng dụng cũ.
+     */
+    public static synchronized void shutdownImagePool() {
+        if (imagePool != null) {
+            imagePool.shutdownNow();
+            imagePool = null;
+            logger.info("Excel image pool shut down");
+        }
+    }
+
+    /**
+     * Gửi mọi ảnh nằm trong cột IMAGE lên {@code imagePool}. Một XSSFPictureData (có thể neo trên nhiều ô) chỉ được
+     * gửi một lần; các ảnh khác part nhưng trùng bytes được gộp theo hash trong {@link #storeImage}. Khi đã có
+     * {@code PENDING_IMAGES} ảnh chờ ghi thì chờ bớt rồi mới đọc bytes ảnh tiếp theo.
+     */
+    private Map<XSSFPictureData, Future<String>> storeImagesAsync(Map<String, XSSFPictureData> pictures, List<ColumnConfig> configs)
+            throws IOException {
+        Set<Integer> imageColumns = new HashSet<>();
+        for (ColumnConfig config : configs) {
+            if (config.type == DataType.IMAGE) imageColumns.add(config.columnIndex);
+        }
+        Map<XSSFPictureData, Future<String>> futures = new IdentityHashMap<>();
+        Map<String, CompletableFuture<String>> byName = new ConcurrentHashMap<>();
+        for (Map.Entry<String, XSSFPictureData> entry : pictures.entrySet()) {
+            int column = Integer.parseInt(entry.getKey().substring(entry.getKey().indexOf('_') + 1));
+            XSSFPictureData picture = entry.getValue();
+            if (!imageColumns.contains(column) || futures.containsKey(picture)) continue;
+            try {
+                PENDING_IMAGES.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while storing images");
+            }
+            try {
+                // Đọc bytes trên thread hiện tại, không truy cập package của workbook từ nhiều thread
+                byte[] data = picture.getData();
+                futures.put(picture, imagePool().submit(() -> {
+                    try {
+                        return storeImage(data, byName);
+                    } finally {
+                        PENDING_IMAGES.release();
+                    }
+                }));
+            } catch (RuntimeException e) {
+                PENDING_IMAGES.release();
+                throw e;
+            }
+        }
+        logger.debug("Submitted {} distinct pictures for storage", futures.size());
+        return futures;
+    }
+
+    /**
+     * Lưu ảnh với tên {@code <sha256>.<đuôi theo magic bytes>}; bỏ qua nếu file cùng nội dung đã có.
+     *
+     * @return đường dẫn tuyệt đối của file ảnh
+     */
+    private String storeImage(byte[] data, Map<String, CompletableFuture<String>> byName) throws IOException {
+        String extension = FileService.sniffImageExtension(data);
+        if (extension == null) {
+            throw new IOException("Unsupported or corrupt image");
+        }
+        String imageName = sha256Hex(data) + "." + extension;
+
+        CompletableFuture<String> claim = new CompletableFuture<>();
+        CompletableFuture<String> existing = byName.putIfAbsent(imageName, claim);
+        if (existing != null) {
+            // Task khác đang ghi cùng nội dung
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw new IOException(e.getCause().getMessage(), e.getCause());
+            }
+        }
+        try {
+            Optional<String> stored = fileService.findAbsolutePath(imageName, FileService.FileType.IMAGE);
+            String path;
+            if (stored.isPresent()) {
+                path = stored.get();
+            } else if (fileService.saveFile(imageName, data, FileService.FileType.IMAGE, true)) {
+                path = fileService.getAbsolutePath(imageName, FileService.FileType.IMAGE);
+            } else {
+                throw new IOException("Failed to save image: " + imageName);
+            }
+            claim.complete(path);
+            return path;
+        } catch (IOException | RuntimeException e) {
+            claim.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static String sha256Hex(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     private boolean isRowEmpty(Row row) {
         if (row == null) return true;
         for (Cell cell : row) {
@@ -178,31 +416,70 @@ public class ExcelService {
         return true;
     }
 
-    private Map<String, Object> processRow(Row row, List<ColumnConfig> configs, Map<String, XSSFPictureData> pictures, List<ProcessingError> errors) {
+    private boolean isRowEmpty(org.dhatim.fastexcel.reader.Row row) {
+        for (org.dhatim.fastexcel.reader.Cell cell : row) {
+            if (cell != null && cell.getType() != org.dhatim.fastexcel.reader.CellType.EMPTY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param rowNumber số dòng tính từ 1, dùng trong ProcessingError
+     */
+    private Map<String, Object> processRow(int rowNumber, List<ColumnConfig> configs, CellReader reader, List<ProcessingError> errors) {
         Map<String, Object> rowData = new LinkedHashMap<>();
         boolean valid = false;
 
         for (ColumnConfig config : configs) {
             try {
-                Cell cell = row.getCell(config.columnIndex);
-                Object value = extractCellValue(cell, config, row.getRowNum(), pictures);
+                Object value = reader.read(config);
                 if (config.validator != null) config.validator.validate(value);
                 if (value != null || !config.required) {
                     rowData.put(config.name, value);
                     valid = true;
                 } else {
-                    errors.add(new ProcessingError(row.getRowNum() + 1, config.columnIndex, "Missing required value for: " + config.name));
+                    errors.add(new ProcessingError(rowNumber, config.columnIndex, "Missing required value for: " + config.name));
                 }
             } catch (ValidationException ve) {
-                errors.add(new ProcessingError(row.getRowNum() + 1, config.columnIndex, ve.getMessage()));
+                errors.add(new ProcessingError(rowNumber, config.columnIndex, ve.getMessage()));
             } catch (Exception ex) {
-                errors.add(new ProcessingError(row.getRowNum() + 1, config.columnIndex, "Error processing field: " + config.name + " - " + ex.getMessage()));
+                errors.add(new ProcessingError(rowNumber, config.columnIndex, "Error processing field: " + config.name + " - " + ex.getMessage()));
             }
         }
         return valid ? rowData : null;
     }
 
-    private Object extractCellValue(Cell cell, ColumnConfig config, int rowIdx, Map<String, XSSFPictureData> pictures) throws IOException {
+    /**
+     * Cùng quy tắc chuyển kiểu với bản POI bên dưới: ô sai kiểu cho ra null.
+     */
+    private Object extractCellValue(org.dhatim.fastexcel.reader.Cell cell, ColumnConfig config, boolean date1904) {
+        if (cell == null) return null;
+        org.dhatim.fastexcel.reader.CellType type = cell.getType();
+
+        switch (config.type) {
+            case STRING:
+                return type == org.dhatim.fastexcel.reader.CellType.STRING ? cell.asString().trim() : null;
+            case EMAIL:
+                String email = type == org.dhatim.fastexcel.reader.CellType.STRING ? cell.asString().trim() : null;
+                return email != null && EMAIL_PATTERN.matcher(email).matches() ? email : null;
+            case INTEGER:
+                return type == org.dhatim.fastexcel.reader.CellType.NUMBER ? cell.asNumber().intValue() : null;
+            case DOUBLE:
+                return type == org.dhatim.fastexcel.reader.CellType.NUMBER ? cell.asNumber().doubleValue() : null;
+            case DATE:
+                return type == org.dhatim.fastexcel.reader.CellType.NUMBER && isDateFormatted(cell)
+                        ? DateUtil.getJavaDate(cell.asNumber().doubleValue(), date1904) : null;
+            case BOOLEAN:
+                return type == org.dhatim.fastexcel.reader.CellType.BOOLEAN ? cell.asBoolean() : null;
+            default:
+                return null;
+        }
+    }
+
+    private Object extractCellValue(Cell cell, ColumnConfig config, int rowIdx, Map<String, XSSFPictureData> pictures,
+                                    Map<XSSFPictureData, Future<String>> storedImages) throws IOException {
         if (cell == null) return null;
 
         switch (config.type) {
@@ -222,13 +499,16 @@ public class ExcelService {
             case IMAGE:
                 String key = rowIdx + "_" + cell.getColumnIndex();
                 XSSFPictureData picData = pictures.get(key);
-                if (picData != null) {
-                    String ext = getImageExtension(picData.getMimeType());
-                    String imgName = "img_" + rowIdx + "_" + System.currentTimeMillis() + "." + ext;
-                    if (fileService.saveFile(imgName, picData.getData(), FileService.FileType.IMAGE, false)) {
-                        return fileService.getAbsolutePath(imgName, FileService.FileType.IMAGE);
+                Future<String> stored = picData != null ? storedImages.get(picData) : null;
+                if (stored != null) {
+                    try {
+                        return stored.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while storing image", e);
+                    } catch (ExecutionException e) {
+                        throw new IOException(e.getCause().getMessage(), e.getCause());
                     }
-                    throw new IOException("Failed to save image: " + imgName);
                 }
                 return null;
             default:
@@ -236,18 +516,6 @@ public class ExcelService {
         }
     }
 
-    private String getImageExtension(String mimeType) {
-        switch (mimeType) {
-            case "image/png": return "png";
-            case "image/jpeg": return "jpg";
-            case "image/bmp": return "bmp";
-            case "image/gif": return "gif";
-            default:
-                logger.warn("Unsupported MIME type: {}, defaulting to png", mimeType);
-                return "png";
-        }
-    }
-
     private void validateColumnConfigs(List<ColumnConfig> configs, Sheet sheet) {
         if (configs == null || configs.isEmpty()) return;
         Set<String> names = new HashSet<>();
@@ -279,6 +547,19 @@ public class ExcelService {
     }
 
     // Inner classes
+    @FunctionalInterface
+    private interface CellReader {
+        Object read(ColumnConfig config) throws IOException;
+    }
+
+    /**
+     * Nhận từng dòng hợp lệ khi đọc tuần tự; ném IOException để dừng việc đọc.
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+        void handle(int rowNumber, Map<String, Object> rowData) throws IOException;
+    }
+
     public static class ColumnConfig {
         public final int columnIndex;
         public final String name;
@@ -322,6 +603,20 @@ public class ExcelService {
         }
     }
 
+    public static class StreamingResult {
+        public final int rowCount;
+        public final int validRowCount;
+        public final int errorCount;
+        public final List<ProcessingError> errors;
+
+        public StreamingResult(int rowCount, int validRowCount, int errorCount, List<ProcessingError> errors) {
+            this.rowCount = rowCount;
+            this.validRowCount = validRowCount;
+            this.errorCount = errorCount;
+            this.errors = errors;
+        }
+    }
+
     public static class ExcelProcessingResult {
         public final List<Map<String, Object>> data;
         public final List<ProcessingError> errors;
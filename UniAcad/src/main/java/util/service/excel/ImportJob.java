@@ -0,0 +1,160 @@
+package util.service.excel;
+
+import util.service.excel.ExcelService.ProcessingError;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Trạng thái và tiến độ của một lần import chạy nền; các stage cập nhật bộ đếm, servlet đọc để trả về cho client.
+ */
+public class ImportJob {
+    private static final int MAX_REPORTED_ERRORS = 200;
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * INSERT: chỉ thêm mới, trùng StudentID là lỗi. UPSERT: so với dữ liệu hiện có, chỉ ghi dòng mới và dòng thay đổi.
+     */
+    public enum Mode {
+        INSERT, UPSERT
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String fileName;
+    private final String submittedBy;
+    private final Mode mode;
+    private final Instant createdAt = Instant.now();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile Status status = Status.QUEUED;
+    private volatile String message;
+
+    private final LongAdder parsedRows = new LongAdder();
+    private final LongAdder validRows = new LongAdder();
+    private final LongAdder insertedRows = new LongAdder();
+    private final LongAdder updatedRows = new LongAdder();
+    private final LongAdder unchangedRows = new LongAdder();
+    private final Map<String, LongAdder> fieldChanges = new ConcurrentHashMap<>();
+    private final LongAdder errorCount = new LongAdder();
+    private final List<ProcessingError> errors = new ArrayList<>();
+
+    public ImportJob(String fileName, String submittedBy) {
+        this(fileName, submittedBy, Mode.INSERT);
+    }
+
+    public ImportJob(String fileName, String submittedBy, Mode mode) {
+        this.fileName = fileName;
+        this.submittedBy = submittedBy;
+        this.mode = mode;
+    }
+
+    void markRunning() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    void markFinished(Status finalStatus, String finalMessage) {
+        finishedAt = Instant.now();
+        message = finalMessage;
+        status = finalStatus;
+    }
+
+    void addParsed() {
+        parsedRows.increment();
+    }
+
+    void addValid() {
+        validRows.increment();
+    }
+
+    void addInserted(int count) {
+        insertedRows.add(count);
+    }
+
+    void addUpdated(int count) {
+        updatedRows.add(count);
+    }
+
+    void addUnchanged(int count) {
+        unchangedRows.add(count);
+    }
+
+    /**
+     * Đếm một dòng cập nhật có thay đổi ở cột {@code field}.
+     */
+    void addFieldChange(String field) {
+        fieldChanges.computeIfAbsent(field, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Đếm mọi lỗi nhưng chỉ giữ {@value #MAX_REPORTED_ERRORS} lỗi đầu tiên để trả về.
+     */
+    void addError(ProcessingError error) {
+        errorCount.increment();
+        synchronized (errors) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(error);
+            }
+        }
+    }
+
+    void addUnreportedErrors(long count) {
+        errorCount.add(count);
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    /**
+     * Số dòng đã parse mỗi giây, tính từ lúc bắt đầu chạy tới lúc xong (hoặc hiện tại).
+     */
+    public double getRowsPerSecond() {
+        Instant start = startedAt;
+        if (start == null) return 0;
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long millis = Math.max(1, Duration.between(start, end).toMillis());
+        return parsedRows.sum() * 1000.0 / millis;
+    }
+
+    public String getId() { return id; }
+    public String getFileName() { return fileName; }
+    public String getSubmittedBy() { return submittedBy; }
+    public Mode getMode() { return mode; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public Status getStatus() { return status; }
+    public String getMessage() { return message; }
+    public long getParsedRows() { return parsedRows.sum(); }
+    public long getValidRows() { return validRows.sum(); }
+    public long getInsertedRows() { return insertedRows.sum(); }
+    public long getUpdatedRows() { return updatedRows.sum(); }
+    public long getUnchangedRows() { return unchangedRows.sum(); }
+    public long getErrorCount() { return errorCount.sum(); }
+
+    /**
+     * Số dòng cập nhật theo từng cột thay đổi (một dòng đổi nhiều cột được đếm ở mỗi cột).
+     */
+    public Map<String, Long> getFieldChanges() {
+        Map<String, Long> summary = new TreeMap<>();
+        fieldChanges.forEach((field, count) -> summary.put(field, count.sum()));
+        return summary;
+    }
+
+    public List<ProcessingError> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+}
@@ -0,0 +1,446 @@
+package util.service.excel;
+
+import dao.StudentDAO;
+import io.github.cdimascio.dotenv.Dotenv;
+import jakarta.servlet.ServletContext;
+import model.database.Student;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.service.excel.ExcelService.ProcessingError;
+import util.service.excel.ExcelService.StreamingResult;
+import util.service.file.FileService;
+import util.service.normalization.StudentNormalizer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chạy import Excel ở nền thay vì trong request upload.
+ * <p>
+ * Mỗi job là một pipeline ba stage nối bằng hàng đợi có giới hạn: parse (đọc tuần tự file) → validate
+ * (chuyển thành Student, chuẩn hóa, kiểm tra; nhiều worker) → insert (gom lô, ghi batch). Hàng đợi đầy thì stage
+ * trước phải chờ, nên bộ nhớ không phụ thuộc kích thước file. Mỗi stage có executor riêng, kích thước theo số job
+ * chạy đồng thời tối đa; job vượt quá thì ở trạng thái QUEUED. Tiến độ đọc qua {@link #getJob(String)}.
+ * <p>
+ * Ở chế độ {@link ImportJob.Mode#UPSERT} (nhập lại file đã sửa), stage insert nạp các Student hiện có của cả lô
+ * bằng một query, so từng cột trong bộ nhớ và chỉ MERGE những dòng mới hoặc có thay đổi.
+ */
+public class ImportJobService {
+    private static final Logger logger = LoggerFactory.getLogger(ImportJobService.class);
+    public static final String CONTEXT_ATTRIBUTE = ImportJobService.class.getName();
+
+    private static volatile ImportJobService shared;
+
+    // Đánh dấu hết dữ liệu trong hàng đợi
+    private static final ImportRow END = new ImportRow(-1, null, null);
+    private static final long QUEUE_POLL_MS = 200;
+
+    private final FileService fileService;
+    private final StudentExcelService studentExcelService;
+    private final StudentDAO studentDAO = new StudentDAO();
+    private final StudentNormalizer studentNormalizer = new StudentNormalizer();
+    private final ExecutorService parseExecutor;
+    private final ExecutorService validateExecutor;
+    private final ExecutorService insertExecutor;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final int validateWorkers;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final Duration retention;
+
+    private record ImportRow(int rowNumber, Map<String, Object> values, Student student) {
+    }
+
+    public ImportJobService(FileService fileService) {
+        Dotenv dotenv = Dotenv.configure().filename("save.env").ignoreIfMissing().load();
+        int maxConcurrentJobs = Integer.parseInt(dotenv.get("IMPORT_MAX_CONCURRENT_JOBS", "2"));
+        this.validateWorkers = Integer.parseInt(dotenv.get("IMPORT_VALIDATE_WORKERS",
+                String.valueOf(Math.max(2, Runtime.getRuntime().availableProcessors() / 2))));
+        this.queueCapacity = Integer.parseInt(dotenv.get("IMPORT_QUEUE_CAPACITY", "1000"));
+        this.batchSize = Integer.parseInt(dotenv.get("IMPORT_BATCH_SIZE", "500"));
+        this.retention = Duration.ofMinutes(Long.parseLong(dotenv.get("IMPORT_JOB_RETENTION_MINUTES", "60")));
+
+        this.fileService = fileService;
+        this.studentExcelService = new StudentExcelService(fileService);
+        // Mỗi job chiếm một thread parse (điều phối cả job), validateWorkers thread validate và một thread insert
+        this.parseExecutor = Executors.newFixedThreadPool(maxConcurrentJobs, namedThreads("import-parse"));
+        this.validateExecutor = Executors.newFixedThreadPool(maxConcurrentJobs * validateWorkers, namedThreads("import-validate"));
+        this.insertExecutor = Executors.newFixedThreadPool(maxConcurrentJobs, namedThreads("import-insert"));
+    }
+
+    public static synchronized ImportJobService initShared(ServletContext context) {
+        if (shared == null) {
+            shared = new ImportJobService(new FileService(context));
+            logger.info("Shared ImportJobService initialized");
+        }
+        if (context != null) {
+            context.setAttribute(CONTEXT_ATTRIBUTE, shared);
+        }
+        return shared;
+    }
+
+    public static ImportJobService getShared() {
+        ImportJobService local = shared;
+        if (local == null) {
+            local = initShared(null);
+        }
+        return local;
+    }
+
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            shared.shutdown();
+            shared = null;
+            logger.info("Shared ImportJobService shut down");
+        }
+    }
+
+    /**
+     * Lưu file upload rồi xếp job import Student; trả về ngay, job chạy ở nền.
+     */
+    public ImportJob submitStudentImport(InputStream upload, String originalFileName, String submittedBy) throws IOException {
+        return submitStudentImport(upload, originalFileName, submittedBy, ImportJob.Mode.INSERT);
+    }
+
+    public ImportJob submitStudentImport(InputStream upload, String originalFileName, String submittedBy,
+                                         ImportJob.Mode mode) throws IOException {
+        String storedName = "import_" + UUID.randomUUID() + ".xlsx";
+        if (!fileService.saveFile(storedName, upload, FileService.FileType.EXCEL, false)) {
+            throw new IOException("Failed to store uploaded file " + originalFileName);
+        }
+        evictFinishedJobs();
+        ImportJob job = new ImportJob(originalFileName, submittedBy, mode);
+        jobs.put(job.getId(), job);
+        parseExecutor.execute(() -> run(job, storedName));
+        logger.info("Queued student {} job {} for {} by {}", mode, job.getId(), originalFileName, submittedBy);
+        return job;
+    }
+
+    public ImportJob getJob(String id) {
+        return id != null ? jobs.get(id) : null;
+    }
+
+    /**
+     * Các job do một người gửi, mới nhất trước; lỗi của job chứa dữ liệu cá nhân (SSN, email) nên không trả job của người khác.
+     */
+    public List<ImportJob> getJobs(String submittedBy) {
+        List<ImportJob> list = new ArrayList<>();
+        for (ImportJob job : jobs.values()) {
+            if (Objects.equals(job.getSubmittedBy(), submittedBy)) {
+                list.add(job);
+            }
+        }
+        list.sort(Comparator.comparing(ImportJob::getCreatedAt).reversed());
+        return list;
+    }
+
+    private void run(ImportJob job, String storedName) {
+        job.markRunning();
+        BlockingQueue<ImportRow> parsed = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<ImportRow> valid = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicBoolean aborted = new AtomicBoolean();
+        AtomicInteger activeValidators = new AtomicInteger(validateWorkers);
+
+        List<Future<?>> stages = new ArrayList<>(validateWorkers + 1);
+        for (int i = 0; i < validateWorkers; i++) {
+            stages.add(validateExecutor.submit(abortOnFailure(
+                    () -> validateStage(job, parsed, valid, activeValidators, aborted), aborted)));
+        }
+        stages.add(insertExecutor.submit(abortOnFailure(() -> insertStage(job, valid, aborted), aborted)));
+
+        String parseFailure = null;
+        try {
+            StreamingResult result = studentExcelService.streamStudentRows(storedName, (rowNumber, values) -> {
+                job.addParsed();
+                if (!put(parsed, new ImportRow(rowNumber, values, null), aborted)) {
+                    throw new IOException("Import aborted");
+                }
+            });
+            result.errors.forEach(job::addError);
+            job.addUnreportedErrors(result.errorCount - result.errors.size());
+            for (int i = 0; i < validateWorkers; i++) {
+                put(parsed, END, aborted);
+            }
+        } catch (IOException | RuntimeException e) {
+            parseFailure = e.getMessage();
+            aborted.set(true);
+        }
+
+        // Stage sau chết thì parse chỉ thấy "Import aborted"; lỗi thật nằm ở stage nên ưu tiên báo lỗi đó
+        String stageFailure = null;
+        for (Future<?> stage : stages) {
+            try {
+                stage.get();
+            } catch (ExecutionException e) {
+                stageFailure = stageFailure != null ? stageFailure : String.valueOf(e.getCause().getMessage());
+                aborted.set(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stageFailure = stageFailure != null ? stageFailure : "Interrupted";
+                aborted.set(true);
+            }
+        }
+        String failure = stageFailure != null ? stageFailure : parseFailure;
+
+        fileService.deleteFile(storedName, FileService.FileType.EXCEL);
+        if (failure == null && job.getMode() == ImportJob.Mode.UPSERT) {
+            job.markFinished(ImportJob.Status.COMPLETED, "Inserted " + job.getInsertedRows() + ", updated "
+                    + job.getUpdatedRows() + ", unchanged " + job.getUnchangedRows() + " students");
+        } else if (failure == null) {
+            job.markFinished(ImportJob.Status.COMPLETED, "Imported " + job.getInsertedRows() + " students");
+        } else {
+            job.markFinished(ImportJob.Status.FAILED, failure);
+        }
+        logger.info("Import job {} {}: {} parsed, {} valid, {} inserted, {} updated, {} unchanged, {} errors, {} rows/s",
+                job.getId(), job.getStatus(), job.getParsedRows(), job.getValidRows(), job.getInsertedRows(),
+                job.getUpdatedRows(), job.getUnchangedRows(), job.getErrorCount(),
+                String.format("%.0f", job.getRowsPerSecond()));
+    }
+
+    private void validateStage(ImportJob job, BlockingQueue<ImportRow> parsed, BlockingQueue<ImportRow> valid,
+                               AtomicInteger activeValidators, AtomicBoolean aborted) {
+        while (true) {
+            ImportRow row = take(parsed, aborted);
+            if (row == null) {
+                return;
+            }
+            if (row == END) {
+                // Worker cuối cùng báo hết dữ liệu cho stage insert
+                if (activeValidators.decrementAndGet() == 0) {
+                    put(valid, END, aborted);
+                }
+                return;
+            }
+            try {
+                Student student = studentExcelService.toStudent(row.values());
+                String error = studentNormalizer.normalize(student);
+                if (error != null) {
+                    job.addError(new ProcessingError(row.rowNumber(), -1, error));
+                    continue;
+                }
+                job.addValid();
+                if (!put(valid, new ImportRow(row.rowNumber(), null, student), aborted)) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                job.addError(new ProcessingError(row.rowNumber(), -1, "Error processing row: " + e.getMessage()));
+            }
+        }
+    }
+
+    private void insertStage(ImportJob job, BlockingQueue<ImportRow> valid, AtomicBoolean aborted) {
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+        while (true) {
+            ImportRow row = take(valid, aborted);
+            if (row == null) {
+                return;
+            }
+            batch.add(row);
+            valid.drainTo(batch, batchSize - batch.size());
+            // END luôn là phần tử cuối cùng được đưa vào hàng đợi
+            boolean end = batch.get(batch.size() - 1) == END;
+            if (end) {
+                batch.remove(batch.size() - 1);
+            }
+            if (batch.size() >= batchSize || (end && !batch.isEmpty())) {
+                if (job.getMode() == ImportJob.Mode.UPSERT) {
+                    upsertBatch(job, batch);
+                } else {
+                    insertBatch(job, batch);
+                }
+                batch.clear();
+            }
+            if (end) {
+                return;
+            }
+        }
+    }
+
+    private void insertBatch(ImportJob job, List<ImportRow> batch) {
+        List<Student> students = new ArrayList<>(batch.size());
+        for (ImportRow row : batch) {
+            students.add(row.student());
+        }
+        Map<String, String> failed = studentDAO.addStudents(students);
+        for (ImportRow row : batch) {
+            String error = failed.get(row.student().getStudentID());
+            if (error != null) {
+                job.addError(new ProcessingError(row.rowNumber(), -1, "Insert failed: " + error));
+            }
+        }
+        job.addInserted((int) batch.stream().filter(row -> !failed.containsKey(row.student().getStudentID())).count());
+    }
+
+    /**
+     * Nạp Student hiện có của cả lô bằng một query, chỉ MERGE dòng mới và dòng có cột thay đổi.
+     */
+    private void upsertBatch(ImportJob job, List<ImportRow> batch) {
+        List<String> ids = new ArrayList<>(batch.size());
+        for (ImportRow row : batch) {
+            ids.add(row.student().getStudentID());
+        }
+        Map<String, Student> current = studentDAO.getStudentsByIds(ids);
+
+        List<ImportRow> delta = new ArrayList<>();
+        List<List<String>> deltaChanges = new ArrayList<>();
+        int unchanged = 0;
+        for (ImportRow row : batch) {
+            Student existing = current.get(row.student().getStudentID());
+            List<String> changes = existing != null ? changedFields(existing, row.student()) : null;
+            if (changes != null && changes.isEmpty()) {
+                unchanged++;
+                continue;
+            }
+            delta.add(row);
+            deltaChanges.add(changes);
+        }
+        job.addUnchanged(unchanged);
+        if (delta.isEmpty()) {
+            return;
+        }
+
+        List<Student> students = new ArrayList<>(delta.size());
+        for (ImportRow row : delta) {
+            students.add(row.student());
+        }
+        Map<String, String> failed = studentDAO.upsertStudents(students);
+        int inserted = 0;
+        int updated = 0;
+        for (int i = 0; i < delta.size(); i++) {
+            ImportRow row = delta.get(i);
+            String error = failed.get(row.student().getStudentID());
+            if (error != null) {
+                job.addError(new ProcessingError(row.rowNumber(), -1, "Upsert failed: " + error));
+            } else if (deltaChanges.get(i) == null) {
+                inserted++;
+            } else {
+                updated++;
+                deltaChanges.get(i).forEach(job::addFieldChange);
+            }
+        }
+        job.addInserted(inserted);
+        job.addUpdated(updated);
+    }
+
+    /**
+     * Các cột khác nhau giữa Student trong DB và Student đã chuẩn hóa từ file (StudentStatus không có trong file).
+     */
+    static List<String> changedFields(Student current, Student incoming) {
+        List<String> changes = new ArrayList<>(2);
+        if (!sameText(current.getStudentName(), incoming.getStudentName())) changes.add("StudentName");
+        if (!sameText(current.getStudentSSN(), incoming.getStudentSSN())) changes.add("StudentSSN");
+        if (!sameText(current.getStudentEmail(), incoming.getStudentEmail())) changes.add("StudentEmail");
+        if (!sameText(current.getStudentPhone(), incoming.getStudentPhone())) changes.add("StudentPhone");
+        if (!sameText(curriculumId(current), curriculumId(incoming))) changes.add("CurriculumID");
+        if (!Objects.equals(current.getStudentGender(), incoming.getStudentGender())) changes.add("StudentGender");
+        if (!sameText(current.getAddress(), incoming.getAddress())) changes.add("Address");
+        if (!Objects.equals(current.getStudentDoB(), incoming.getStudentDoB())) changes.add("StudentDoB");
+        return changes;
+    }
+
+    // null và chuỗi rỗng coi như nhau (ô trống trong Excel)
+    private static boolean sameText(String a, String b) {
+        return (a == null ? "" : a).equals(b == null ? "" : b);
+    }
+
+    private static String curriculumId(Student student) {
+        return student.getCurriculumID() != null ? student.getCurriculumID().getCurriculumID() : null;
+    }
+
+    /**
+     * Stage chết thì hủy cả job ngay, để các stage còn lại không chờ mãi trên hàng đợi đầy.
+     */
+    private static Runnable abortOnFailure(Runnable stage, AtomicBoolean aborted) {
+        return () -> {
+            try {
+                stage.run();
+            } catch (RuntimeException | Error e) {
+                aborted.set(true);
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Chờ chỗ trống trong hàng đợi (back-pressure); bỏ cuộc nếu job đã bị hủy.
+     */
+    private static boolean put(BlockingQueue<ImportRow> queue, ImportRow row, AtomicBoolean aborted) {
+        try {
+            while (!queue.offer(row, QUEUE_POLL_MS, TimeUnit.MILLISECONDS)) {
+                if (aborted.get()) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            aborted.set(true);
+            return false;
+        }
+    }
+
+    /**
+     * @return null nếu job đã bị hủy
+     */
+    private static ImportRow take(BlockingQueue<ImportRow> queue, AtomicBoolean aborted) {
+        try {
+            while (true) {
+                ImportRow row = queue.poll(QUEUE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (row != null) {
+                    return row;
+                }
+                if (aborted.get()) {
+                    return null;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            aborted.set(true);
+            return null;
+        }
+    }
+
+    private void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public void shutdown() {
+        parseExecutor.shutdownNow();
+        validateExecutor.shutdownNow();
+        insertExecutor.shutdownNow();
+        try {
+            parseExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -5,13 +5,28 @@ import model.database.Student;
 import util.service.file.FileService;
 import util.service.excel.ExcelService.ColumnConfig;
 import util.service.excel.ExcelService.DataType;
-import util.service.excel.ExcelService.ExcelProcessingResult;
+import util.service.excel.ExcelService.StreamingResult;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 public class StudentExcelService {
+    /**
+     * Cột của file nhập Student, dùng chung cho template và khi đọc
+     */
+    public static final List<ColumnConfig> STUDENT_COLUMNS = List.of(
+            new ColumnConfig(0, "StudentID", DataType.STRING, true, null),
+            new ColumnConfig(1, "StudentName", DataType.STRING, true, null),
+            new ColumnConfig(2, "StudentSSN", DataType.STRING, true, null),
+            new ColumnConfig(3, "StudentEmail", DataType.EMAIL, true, null),
+            new ColumnConfig(4, "StudentPhone", DataType.STRING, true, null),
+            new ColumnConfig(5, "CurriculumID", DataType.STRING, true, null),
+            new ColumnConfig(6, "StudentGender", DataType.BOOLEAN, true, null),
+            new ColumnConfig(7, "Address", DataType.STRING, false, null),
+            new ColumnConfig(8, "StudentDoB", DataType.DATE, true, null)
+    );
+
     private final ExcelService excelService;
 
     public StudentExcelService(FileService fileService) {
@@ -22,58 +37,65 @@ public class StudentExcelService {
      * Sinh file Excel template để nhập Student
      */
     public void generateTemplateAddStudent(String fileName) throws IOException {
-        List<ColumnConfig> configs = Arrays.asList(
-                new ColumnConfig(0, "StudentID", DataType.STRING, true, null),
-                new ColumnConfig(1, "StudentName", DataType.STRING, true, null),
-                new ColumnConfig(2, "StudentSSN", DataType.STRING, true, null),
-                new ColumnConfig(3, "StudentEmail", DataType.EMAIL, true, null),
-                new ColumnConfig(4, "StudentPhone", DataType.STRING, true, null),
-                new ColumnConfig(5, "CurriculumID", DataType.STRING, true, null),
-                new ColumnConfig(6, "StudentGender", DataType.BOOLEAN, true, null),
-                new ColumnConfig(7, "Address", DataType.STRING, false, null),
-                new ColumnConfig(8, "StudentDoB", DataType.DATE, true, null)
-        );
-        excelService.generateExcelTemplate(fileName, configs);
+        excelService.generateExcelTemplate(fileName, STUDENT_COLUMNS);
     }
 
     /**
      * Đọc file Excel nhập dữ liệu Student
      */
     public List<Student> readStudentsFromExcel(String fileName) throws IOException {
-        ExcelProcessingResult result = excelService.processExcelFile(
+        List<Student> students = new ArrayList<>();
+        readStudentsFromExcel(fileName, students::add);
+        return students;
+    }
+
+    /**
+     * Đọc tuần tự file Excel Student, mỗi Student được chuyển ngay cho {@code consumer} nên heap không phụ thuộc số dòng
+     */
+    public StreamingResult readStudentsFromExcel(String fileName, Consumer<Student> consumer) throws IOException {
+        return streamStudentRows(fileName, (rowNumber, row) -> consumer.accept(toStudent(row)));
+    }
+
+    /**
+     * Đọc tuần tự các dòng thô (chưa chuyển thành Student) theo {@link #STUDENT_COLUMNS}
+     */
+    public StreamingResult streamStudentRows(String fileName, ExcelService.RowHandler handler) throws IOException {
+        // Cột định sẵn theo template: suy kiểu từ dòng header sẽ coi mọi cột là chuỗi và làm mất ngày sinh, giới tính
+        return excelService.streamExcelFile(
                 fileName,
-                null,   // tự infer column
+                STUDENT_COLUMNS,
                 2,      // start từ dòng 2 (bỏ dòng header 1)
                 null,   // sheet đầu tiên
-                1       // dòng header 1
+                1,      // dòng header 1
+                handler
         );
+    }
 
-        return result.data.stream().map(row -> {
-            Student student = new Student();
-            student.setStudentID((String) row.get("StudentID"));
-            student.setStudentName((String) row.get("StudentName"));
-            student.setStudentSSN((String) row.get("StudentSSN"));
-            student.setStudentEmail((String) row.get("StudentEmail"));
-            student.setStudentPhone((String) row.get("StudentPhone"));
-
-            // 🛠 Gán Curriculum Entity:
-            Curriculum curriculum = new Curriculum();
-            curriculum.setCurriculumID((String) row.get("CurriculumID"));
-            student.setCurriculumID(curriculum);
-
-            student.setStudentGender(Boolean.TRUE.equals(row.get("StudentGender")));
-            student.setAddress((String) row.get("Address"));
-
-            if (row.get("StudentDoB") instanceof Date) {
-                Date dob = (Date) row.get("StudentDoB");
-                student.setStudentDoB(dob.toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDate());
-            }
+    public Student toStudent(Map<String, Object> row) {
+        Student student = new Student();
+        student.setStudentID((String) row.get("StudentID"));
+        student.setStudentName((String) row.get("StudentName"));
+        student.setStudentSSN((String) row.get("StudentSSN"));
+        student.setStudentEmail((String) row.get("StudentEmail"));
+        student.setStudentPhone((String) row.get("StudentPhone"));
+
+        // 🛠 Gán Curriculum Entity:
+        Curriculum curriculum = new Curriculum();
+        curriculum.setCurriculumID((String) row.get("CurriculumID"));
+        student.setCurriculumID(curriculum);
+
+        student.setStudentGender(Boolean.TRUE.equals(row.get("StudentGender")));
+        student.setAddress((String) row.get("Address"));
+
+        if (row.get("StudentDoB") instanceof Date) {
+            Date dob = (Date) row.get("StudentDoB");
+            student.setStudentDoB(dob.toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDate());
+        }
 
-            // 🛠 StudentStatus mặc định là 0 (Enrolled)
-            student.setStudentStatus(0);
+        // 🛠 StudentStatus mặc định là 0 (Enrolled)
+        student.setStudentStatus(0);
 
-            return student;
-        }).collect(Collectors.toList());
+        return student;
     }
 
     public static void main(String[] args) {
@@ -5,7 +5,6 @@ import jakarta.servlet.ServletContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.imageio.ImageIO;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
@@ -182,6 +181,27 @@ public class FileService {
         return base;
     }
 
+    /**
+     * Nhận dạng ảnh qua magic bytes ở đầu file.
+     *
+     * @return "png", "jpg", "gif" hoặc null nếu không phải các định dạng này
+     */
+    public static String sniffImageExtension(byte[] content) {
+        if (content == null) return null;
+        if (content.length >= 8 && (content[0] & 0xFF) == 0x89 && content[1] == 'P' && content[2] == 'N' && content[3] == 'G'
+                && content[4] == 0x0D && content[5] == 0x0A && content[6] == 0x1A && content[7] == 0x0A) {
+            return "png";
+        }
+        if (content.length >= 3 && (content[0] & 0xFF) == 0xFF && (content[1] & 0xFF) == 0xD8 && (content[2] & 0xFF) == 0xFF) {
+            return "jpg";
+        }
+        if (content.length >= 6 && content[0] == 'G' && content[1] == 'I' && content[2] == 'F' && content[3] == '8'
+                && (content[4] == '7' || content[4] == '9') && content[5] == 'a') {
+            return "gif";
+        }
+        return null;
+    }
+
     private void validateFileName(String fileName) {
         if (fileName.contains("..") || fileName.matches(".*[\\/\\\\%:|?*].*")) {
             throw new IllegalArgumentException("Invalid file name: " + fileName);
@@ -205,20 +225,15 @@ public class FileService {
                 throw new IOException("Invalid Office file: " + fileName);
             }
         } else if (type == FileType.IMAGE) {
-            if (lowerCaseName.endsWith(".gif")) {
-                if (content.length < 6 || (!new String(content, 0, 6, StandardCharsets.US_ASCII).equals("GIF87a") &&
-                        !new String(content, 0, 6, StandardCharsets.US_ASCII).equals("GIF89a"))) {
-                    throw new IOException("Invalid GIF file: " + fileName);
-                }
-            } else if (lowerCaseName.matches(".*\\.(png|jpg|jpeg)$")) {
-                try {
-                    ImageIO.read(new ByteArrayInputStream(content));
-                } catch (Exception e) {
-                    throw new IOException("Invalid image file: " + fileName, e);
-                }
-            } else {
+            // Chỉ kiểm tra magic bytes khớp với đuôi file, không giải mã cả ảnh
+            String extension = lowerCaseName.substring(lowerCaseName.lastIndexOf('.') + 1);
+            if (!extension.equals("gif") && !extension.equals("png") && !extension.equals("jpg") && !extension.equals("jpeg")) {
                 throw new IOException("Unsupported image format: " + fileName);
             }
+            String sniffed = sniffImageExtension(content);
+            if (sniffed == null || !sniffed.equals(extension.equals("jpeg") ? "jpg" : extension)) {
+                throw new IOException("Invalid image file: " + fileName);
+            }
         } else if (type == FileType.TEMPLATE) {
             if (!lowerCaseName.endsWith(".html")) {
                 throw new IOException("Template must be an HTML file: " + fileName);
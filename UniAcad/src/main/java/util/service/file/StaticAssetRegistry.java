@@ -0,0 +1,231 @@
+package util.service.file;
+
+import jakarta.servlet.ServletContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Xử lý file tĩnh của webapp một lần lúc khởi động:
+ * <ul>
+ *     <li>.js/.css/.svg/.json được gắn hash nội dung vào tên (studentTimetable.js → studentTimetable.1a2b3c4d5e.js);
+ *     bản có hash không bao giờ đổi nội dung nên được cache một năm.</li>
+ *     <li>Tham chiếu src/href trong .html được viết lại sang tên có hash; bản HTML thì luôn phải revalidate (ETag).</li>
+ *     <li>Mọi file trên ngưỡng được nén gzip sẵn; nếu có file {@code <file>.br} cạnh bên thì dùng làm bản Brotli.</li>
+ * </ul>
+ */
+public class StaticAssetRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(StaticAssetRegistry.class);
+
+    public static final String CONTEXT_ATTRIBUTE = StaticAssetRegistry.class.getName();
+
+    private static final Set<String> FINGERPRINT_EXTENSIONS = Set.of(".js", ".css", ".svg", ".json");
+    private static final Pattern HTML_REFERENCE = Pattern.compile("(\\s(?:src|href)\\s*=\\s*\")([^\"#?]+)(\")");
+    private static final int HASH_LENGTH = 10;
+
+    private final Map<String, Asset> assets = new HashMap<>();
+
+    /**
+     * Một file tĩnh đã xử lý. {@code gzip}/{@code brotli} là null nếu file nhỏ hơn ngưỡng hoặc không có bản nén.
+     */
+    public record Asset(String contentType, byte[] identity, byte[] gzip, byte[] brotli,
+                        String etag, long lastModified, boolean immutable) {
+    }
+
+    public StaticAssetRegistry(ServletContext context, int compressThreshold) {
+        long start = System.nanoTime();
+        Set<String> paths = listResources(context, "/");
+
+        // Bước 1: hash các asset có thể fingerprint
+        Map<String, String> fingerprinted = new HashMap<>();
+        Map<String, byte[]> contents = new HashMap<>();
+        for (String path : paths) {
+            byte[] raw = readQuietly(context, path);
+            if (raw == null) {
+                continue;
+            }
+            contents.put(path, raw);
+            String extension = extensionOf(path);
+            if (FINGERPRINT_EXTENSIONS.contains(extension)) {
+                String hashed = path.substring(0, path.length() - extension.length())
+                        + "." + sha256(raw).substring(0, HASH_LENGTH) + extension;
+                fingerprinted.put(path, hashed);
+            }
+        }
+
+        // Bước 2: viết lại HTML, nén và đăng ký cả đường dẫn gốc lẫn đường dẫn có hash
+        for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+            String path = entry.getKey();
+            byte[] body = entry.getValue();
+            if (path.endsWith(".html")) {
+                body = rewriteReferences(path, body, fingerprinted, context.getContextPath());
+            }
+
+            String contentType = contentTypeOf(context, path);
+            byte[] gzip = body.length >= compressThreshold ? gzip(body) : null;
+            byte[] brotli = body.length >= compressThreshold ? readQuietly(context, path + ".br") : null;
+            String etag = sha256(body).substring(0, 16);
+            long lastModified = lastModifiedOf(context, path);
+
+            assets.put(path, new Asset(contentType, body, gzip, brotli, etag, lastModified, false));
+            String hashedPath = fingerprinted.get(path);
+            if (hashedPath != null) {
+                assets.put(hashedPath, new Asset(contentType, body, gzip, brotli, etag, lastModified, true));
+            }
+        }
+
+        logger.info("Static assets ready: {} files, {} fingerprinted, in {} ms",
+                contents.size(), fingerprinted.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public Asset lookup(String path) {
+        return assets.get(path);
+    }
+
+    /**
+     * Thay src/href trỏ tới asset đã fingerprint bằng tên có hash, giữ nguyên dạng tương đối hay tuyệt đối.
+     */
+    private static byte[] rewriteReferences(String htmlPath, byte[] html, Map<String, String> fingerprinted, String contextPath) {
+        String baseDir = htmlPath.substring(0, htmlPath.lastIndexOf('/') + 1);
+        String source = new String(html, StandardCharsets.UTF_8);
+        Matcher matcher = HTML_REFERENCE.matcher(source);
+        StringBuilder result = new StringBuilder(source.length() + 64);
+        boolean changed = false;
+        while (matcher.find()) {
+            String reference = matcher.group(2);
+            String replacement = reference;
+            String logicalPath = resolve(reference, baseDir, contextPath);
+            if (logicalPath != null && fingerprinted.containsKey(logicalPath)) {
+                String hashedName = fingerprinted.get(logicalPath);
+                hashedName = hashedName.substring(hashedName.lastIndexOf('/') + 1);
+                replacement = reference.substring(0, reference.lastIndexOf('/') + 1) + hashedName;
+                changed = true;
+            }
+            matcher.appendReplacement(result, Matcher.quoteReplacement(matcher.group(1) + replacement + matcher.group(3)));
+        }
+        if (!changed) {
+            return html;
+        }
+        matcher.appendTail(result);
+        return result.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String resolve(String reference, String baseDir, String contextPath) {
+        if (reference.contains("://") || reference.startsWith("//") || reference.startsWith("data:")) {
+            return null;
+        }
+        if (reference.startsWith("/")) {
+            return reference.startsWith(contextPath + "/") ? reference.substring(contextPath.length()) : null;
+        }
+        // Chuẩn hóa ./ và ../ theo thư mục của trang HTML
+        String[] segments = (baseDir + reference).split("/");
+        StringBuilder path = new StringBuilder();
+        ArrayDeque<String> stack = new ArrayDeque<>();
+        for (String segment : segments) {
+            if (segment.isEmpty() || segment.equals(".")) {
+                continue;
+            }
+            if (segment.equals("..")) {
+                stack.pollLast();
+            } else {
+                stack.addLast(segment);
+            }
+        }
+        for (String segment : stack) {
+            path.append('/').append(segment);
+        }
+        return path.toString();
+    }
+
+    private static Set<String> listResources(ServletContext context, String dir) {
+        Set<String> result = new TreeSet<>();
+        Set<String> children = context.getResourcePaths(dir);
+        if (children == null) {
+            return result;
+        }
+        for (String child : children) {
+            if (child.endsWith("/")) {
+                if (!child.startsWith("/WEB-INF/") && !child.startsWith("/META-INF/")) {
+                    result.addAll(listResources(context, child));
+                }
+            } else if (FINGERPRINT_EXTENSIONS.contains(extensionOf(child)) || child.endsWith(".html")) {
+                result.add(child);
+            }
+        }
+        return result;
+    }
+
+    private static String contentTypeOf(ServletContext context, String path) {
+        String contentType = context.getMimeType(path);
+        if (contentType == null) {
+            return "application/octet-stream";
+        }
+        if (contentType.startsWith("text/") || contentType.endsWith("javascript") || contentType.endsWith("json")) {
+            return contentType + ";charset=UTF-8";
+        }
+        return contentType;
+    }
+
+    private static long lastModifiedOf(ServletContext context, String path) {
+        try {
+            URL url = context.getResource(path);
+            return url != null ? url.openConnection().getLastModified() / 1000 * 1000 : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static byte[] readQuietly(ServletContext context, String path) {
+        try (InputStream in = context.getResourceAsStream(path)) {
+            return in != null ? in.readAllBytes() : null;
+        } catch (IOException e) {
+            logger.warn("Could not read static asset {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private static byte[] gzip(byte[] raw) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(raw);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // không xảy ra với ByteArrayOutputStream
+        }
+        return compressed.toByteArray();
+    }
+
+    private static String extensionOf(String path) {
+        int slash = path.lastIndexOf('/');
+        int dot = path.lastIndexOf('.');
+        return dot > slash ? path.substring(dot) : "";
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
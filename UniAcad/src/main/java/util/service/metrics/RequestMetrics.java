@@ -0,0 +1,219 @@
+package util.service.metrics;
+
+import util.service.audit.AuditLog;
+import util.service.database.DBContext;
+import util.service.email.EmailOutboxWorker;
+import util.service.email.MailService;
+import util.service.email.SmtpTransportPool;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bộ đếm metrics theo route (pattern servlet mapping), không dùng lock:
+ * mọi bộ đếm là {@link LongAdder} (striped) nên nhiều thread ghi cùng lúc không tranh chấp.
+ * Xuất ra định dạng text của Prometheus kèm gauge JVM và kết nối DB.
+ */
+public final class RequestMetrics {
+
+    private static final RequestMetrics INSTANCE = new RequestMetrics();
+
+    // Biên bucket histogram (giây), kiểu Prometheus "le"
+    private static final double[] BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+    private static final long[] BUCKET_NANOS = new long[BUCKETS.length];
+
+    static {
+        for (int i = 0; i < BUCKETS.length; i++) {
+            BUCKET_NANOS[i] = (long) (BUCKETS[i] * 1_000_000_000L);
+        }
+    }
+
+    private final ConcurrentHashMap<String, RouteMetrics> routes = new ConcurrentHashMap<>();
+
+    public static RequestMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Bộ đếm của một route. Lấy một lần đầu request để tăng in-flight, rồi gọi {@link #record} khi xong.
+     */
+    public static final class RouteMetrics {
+        private final LongAdder[] buckets = new LongAdder[BUCKETS.length];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+        private final LongAdder inFlight = new LongAdder();
+        private final ConcurrentHashMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        private RouteMetrics() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void begin() {
+            inFlight.increment();
+        }
+
+        public void record(long elapsedNanos, int status) {
+            inFlight.decrement();
+            count.increment();
+            sumNanos.add(elapsedNanos);
+            // Chỉ tăng bucket nhỏ nhất chứa giá trị; phân bố cộng dồn được tính lúc xuất
+            for (int i = 0; i < BUCKET_NANOS.length; i++) {
+                if (elapsedNanos <= BUCKET_NANOS[i]) {
+                    buckets[i].increment();
+                    break;
+                }
+            }
+            LongAdder statusCounter = statuses.get(status);
+            if (statusCounter == null) {
+                statusCounter = statuses.computeIfAbsent(status, s -> new LongAdder());
+            }
+            statusCounter.increment();
+        }
+    }
+
+    public RouteMetrics route(String route) {
+        RouteMetrics metrics = routes.get(route);
+        if (metrics == null) {
+            metrics = routes.computeIfAbsent(route, r -> new RouteMetrics());
+        }
+        return metrics;
+    }
+
+    /**
+     * Xuất toàn bộ metrics theo Prometheus text exposition format 0.0.4.
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        Map<String, RouteMetrics> sorted = new TreeMap<>(routes);
+
+        out.append("# HELP http_request_duration_seconds Request latency by servlet route.\n");
+        out.append("# TYPE http_request_duration_seconds histogram\n");
+        for (Map.Entry<String, RouteMetrics> entry : sorted.entrySet()) {
+            String label = "route=\"" + escape(entry.getKey()) + "\"";
+            RouteMetrics metrics = entry.getValue();
+            long total = metrics.count.sum();
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                cumulative += metrics.buckets[i].sum();
+                out.append("http_request_duration_seconds_bucket{").append(label)
+                        .append(",le=\"").append(BUCKETS[i]).append("\"} ").append(cumulative).append('\n');
+            }
+            out.append("http_request_duration_seconds_bucket{").append(label).append(",le=\"+Inf\"} ").append(total).append('\n');
+            out.append("http_request_duration_seconds_sum{").append(label).append("} ")
+                    .append(metrics.sumNanos.sum() / 1e9).append('\n');
+            out.append("http_request_duration_seconds_count{").append(label).append("} ").append(total).append('\n');
+        }
+
+        out.append("# HELP http_requests_total Completed requests by route and status code.\n");
+        out.append("# TYPE http_requests_total counter\n");
+        for (Map.Entry<String, RouteMetrics> entry : sorted.entrySet()) {
+            for (Map.Entry<Integer, LongAdder> status : new TreeMap<>(entry.getValue().statuses).entrySet()) {
+                out.append("http_requests_total{route=\"").append(escape(entry.getKey()))
+                        .append("\",status=\"").append(status.getKey()).append("\"} ")
+                        .append(status.getValue().sum()).append('\n');
+            }
+        }
+
+        out.append("# HELP http_requests_in_flight Requests currently being processed.\n");
+        out.append("# TYPE http_requests_in_flight gauge\n");
+        for (Map.Entry<String, RouteMetrics> entry : sorted.entrySet()) {
+            out.append("http_requests_in_flight{route=\"").append(escape(entry.getKey())).append("\"} ")
+                    .append(entry.getValue().inFlight.sum()).append('\n');
+        }
+
+        appendJvm(out);
+        appendDatabase(out);
+        appendAuditLog(out);
+        appendMail(out);
+        return out.toString();
+    }
+
+    private static void appendJvm(StringBuilder out) {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        gauge(out, "jvm_memory_heap_used_bytes", "Used heap memory.", heap.getUsed());
+        gauge(out, "jvm_memory_heap_committed_bytes", "Committed heap memory.", heap.getCommitted());
+        gauge(out, "jvm_memory_heap_max_bytes", "Max heap memory.", heap.getMax());
+        gauge(out, "jvm_threads_live", "Live JVM threads.", ManagementFactory.getThreadMXBean().getThreadCount());
+        gauge(out, "jvm_uptime_seconds", "JVM uptime.", ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0);
+
+        out.append("# HELP jvm_gc_collections_total GC collections by collector.\n");
+        out.append("# TYPE jvm_gc_collections_total counter\n");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            out.append("jvm_gc_collections_total{gc=\"").append(escape(gc.getName())).append("\"} ")
+                    .append(gc.getCollectionCount()).append('\n');
+        }
+        out.append("# HELP jvm_gc_collection_seconds_total Time spent in GC by collector.\n");
+        out.append("# TYPE jvm_gc_collection_seconds_total counter\n");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            out.append("jvm_gc_collection_seconds_total{gc=\"").append(escape(gc.getName())).append("\"} ")
+                    .append(gc.getCollectionTime() / 1000.0).append('\n');
+        }
+    }
+
+    private static void appendDatabase(StringBuilder out) {
+        out.append("# HELP db_connections_opened_total JDBC connections opened through DBContext.\n");
+        out.append("# TYPE db_connections_opened_total counter\n");
+        out.append("db_connections_opened_total ").append(DBContext.getOpenedConnections()).append('\n');
+        out.append("# HELP db_connection_acquire_seconds_total Time spent opening JDBC connections.\n");
+        out.append("# TYPE db_connection_acquire_seconds_total counter\n");
+        out.append("db_connection_acquire_seconds_total ").append(DBContext.getAcquireNanos() / 1e9).append('\n');
+    }
+
+    private static void appendAuditLog(StringBuilder out) {
+        AuditLog auditLog = AuditLog.getInstance();
+        out.append("# HELP audit_log_events_written_total Access/audit events written to disk.\n");
+        out.append("# TYPE audit_log_events_written_total counter\n");
+        out.append("audit_log_events_written_total ").append(auditLog.getWrittenCount()).append('\n');
+        out.append("# HELP audit_log_events_dropped_total Access/audit events dropped because the ring buffer was full.\n");
+        out.append("# TYPE audit_log_events_dropped_total counter\n");
+        out.append("audit_log_events_dropped_total ").append(auditLog.getDroppedCount()).append('\n');
+    }
+
+    private static void appendMail(StringBuilder out) {
+        MailService mailService = MailService.peekShared();
+        if (mailService == null) {
+            return;
+        }
+        SmtpTransportPool pool = mailService.getTransportPool();
+        gauge(out, "smtp_pool_size", "Maximum pooled SMTP connections.", pool.getSize());
+        gauge(out, "smtp_pool_connections_open", "SMTP connections currently open.", pool.getOpenConnections());
+        gauge(out, "smtp_pool_connections_in_use", "SMTP connections currently borrowed by a sender thread.", pool.getInUse());
+        counter(out, "smtp_pool_connects_total", "SMTP connections opened (including reconnects).", pool.getConnectCount());
+        counter(out, "smtp_pool_retired_total", "SMTP connections closed after the per-connection message cap or idle timeout.",
+                pool.getRetiredCount());
+        counter(out, "smtp_pool_broken_total", "SMTP connections closed after a send error.", pool.getBrokenCount());
+        counter(out, "smtp_messages_sent_total", "Messages sent through the SMTP pool.", pool.getMessagesSent());
+        counter(out, "smtp_pool_borrow_wait_seconds_total", "Time sender threads waited for a free SMTP connection.",
+                pool.getBorrowWaitNanos() / 1e9);
+
+        EmailOutboxWorker worker = EmailOutboxWorker.getInstance();
+        if (worker != null) {
+            counter(out, "email_outbox_sent_total", "Outbox emails delivered.", worker.getSentCount());
+            counter(out, "email_outbox_retried_total", "Outbox deliveries that failed and were rescheduled.", worker.getRetriedCount());
+            counter(out, "email_outbox_dead_lettered_total", "Outbox emails given up on.", worker.getDeadLetteredCount());
+        }
+    }
+
+    private static void counter(StringBuilder out, String name, String help, double value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" counter\n");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, double value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" gauge\n");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
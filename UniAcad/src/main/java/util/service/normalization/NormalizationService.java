@@ -1,10 +1,12 @@
 package util.service.normalization;
 
+/**
+ * Chuẩn hóa dữ liệu nhập. Không có trạng thái dùng chung nên một instance dùng được từ nhiều thread;
+ * chuỗi đã chuẩn sẵn được trả lại nguyên vẹn, không cấp phát thêm.
+ */
 public class NormalizationService {
-    private final StringBuilder sb;
 
     public NormalizationService() {
-        sb = new StringBuilder();
     }
 
     /**
@@ -13,23 +15,69 @@ public class NormalizationService {
      * - Viết hoa chữ cái đầu mỗi từ.
      */
     public String normalizationFullName(String input) {
-        if (input == null || input.trim().isEmpty()) {
+        if (input == null) {
+            return "";
+        }
+        int start = 0;
+        int end = input.length();
+        // Giống String.trim(): bỏ mọi ký tự <= ' ' ở hai đầu
+        while (start < end && input.charAt(start) <= ' ') start++;
+        while (end > start && input.charAt(end - 1) <= ' ') end--;
+        if (start == end) {
             return "";
         }
 
-        String[] words = input.trim().split("\\s+");
-        sb.setLength(0); // clear StringBuilder for reuse
-
-        for (String word : words) {
-            if (!word.isEmpty()) {
-                sb.append(Character.toUpperCase(word.charAt(0)));
-                if (word.length() > 1) {
-                    sb.append(word.substring(1).toLowerCase());
+        char[] out = new char[end - start];
+        int length = 0;
+        int position = start;
+        boolean nonAscii = false;
+        while (position < end) {
+            // Các từ cách nhau bởi \s (khoảng trắng ASCII), như split("\\s+")
+            if (length > 0) {
+                out[length++] = ' ';
+            }
+            out[length++] = Character.toUpperCase(input.charAt(position++));
+            while (position < end && !isRegexWhitespace(input.charAt(position))) {
+                char c = input.charAt(position++);
+                if (c >= 'A' && c <= 'Z') {
+                    c = (char) (c + ('a' - 'A'));
+                } else if (c >= 0x80) {
+                    nonAscii = true;
                 }
-                sb.append(" ");
+                out[length++] = c;
+            }
+            while (position < end && isRegexWhitespace(input.charAt(position))) {
+                position++;
             }
         }
-        return sb.toString().trim(); // remove trailing space
+        if (nonAscii) {
+            // Chữ có dấu: để String.toLowerCase xử lý đủ quy tắc Unicode cho phần sau chữ cái đầu mỗi từ
+            return lowerCaseWordTails(new String(out, 0, length));
+        }
+        return sameAs(input, out, length) ? input : new String(out, 0, length);
+    }
+
+    private static boolean sameAs(String input, char[] chars, int length) {
+        if (input.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(i) != chars[i]) return false;
+        }
+        return true;
+    }
+
+    private static String lowerCaseWordTails(String words) {
+        StringBuilder sb = new StringBuilder(words.length());
+        int wordStart = 0;
+        while (wordStart <= words.length()) {
+            int wordEnd = words.indexOf(' ', wordStart);
+            if (wordEnd < 0) wordEnd = words.length();
+            if (wordEnd > wordStart) {
+                sb.append(words.charAt(wordStart)).append(words.substring(wordStart + 1, wordEnd).toLowerCase());
+            }
+            if (wordEnd < words.length()) sb.append(' ');
+            wordStart = wordEnd + 1;
+        }
+        return sb.toString();
     }
 
     /**
@@ -38,10 +86,23 @@ public class NormalizationService {
      * - Chuyển hết thành chữ thường.
      */
     public String normalizationEmail(String input) {
-        if (input == null || input.trim().isEmpty()) {
+        if (input == null) {
             return "";
         }
-        return input.trim().toLowerCase();
+        int start = 0;
+        int end = input.length();
+        while (start < end && input.charAt(start) <= ' ') start++;
+        while (end > start && input.charAt(end - 1) <= ' ') end--;
+        if (start == end) {
+            return "";
+        }
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if ((c >= 'A' && c <= 'Z') || c >= 0x80) {
+                return input.substring(start, end).toLowerCase();
+            }
+        }
+        return start == 0 && end == input.length() ? input : input.substring(start, end);
     }
 
     /**
@@ -51,7 +112,27 @@ public class NormalizationService {
         if (input == null || input.trim().isEmpty()) {
             return "";
         }
-        return input.replaceAll("[^0-9+]", "");
+        char[] out = null;
+        int length = 0;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            boolean keep = (c >= '0' && c <= '9') || c == '+';
+            if (out == null) {
+                if (keep) continue;
+                // Ký tự cần bỏ đầu tiên: từ đây mới bắt đầu chép
+                out = new char[input.length()];
+                input.getChars(0, i, out, 0);
+                length = i;
+            } else if (keep) {
+                out[length++] = c;
+            }
+        }
+        return out == null ? input : new String(out, 0, length);
+    }
+
+    // \s của java.util.regex: [ \t\n\x0B\f\r]
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,63 @@
+package util.service.normalization;
+
+import model.database.Student;
+import util.service.security.VerifyChecking;
+
+/**
+ * Chuẩn hóa và kiểm tra một Student trước khi ghi vào DB (dùng cho thêm lẻ và import Excel).
+ * Không có trạng thái nên một instance dùng chung được giữa các thread.
+ */
+public class StudentNormalizer {
+    private final NormalizationService normalizationService = new NormalizationService();
+    private final VerifyChecking verifyChecking = new VerifyChecking();
+
+    /**
+     * Ghi giá trị đã chuẩn hóa ngược vào {@code student}.
+     *
+     * @return null nếu hợp lệ, ngược lại là lý do không hợp lệ
+     */
+    public String normalize(Student student) {
+        if (student == null) {
+            return "Student is null";
+        }
+        String studentId = student.getStudentID() != null ? student.getStudentID().trim() : null;
+        String email = normalizationService.normalizationEmail(student.getStudentEmail());
+        String phone = student.getStudentPhone() != null ? student.getStudentPhone().trim() : null;
+        String name = normalizationService.normalizationFullName(student.getStudentName());
+        String ssn = student.getStudentSSN() != null ? student.getStudentSSN().trim() : null;
+        String address = student.getAddress() != null ? student.getAddress().trim() : null;
+
+        if (!verifyChecking.verifyStudentID(studentId)) {
+            return "Invalid student ID: " + studentId;
+        }
+        if (!verifyChecking.verifyEmail(email)) {
+            return "Invalid email after normalization: " + email;
+        }
+        if (!verifyChecking.verifyPhoneNumber(phone)) {
+            return "Invalid phone number after normalization: " + phone;
+        }
+        if (!verifyChecking.verifyFullName(name)) {
+            return "Invalid full name after normalization: " + name;
+        }
+        if (!verifyChecking.verifySSN(ssn)) {
+            return "Invalid SSN: " + ssn;
+        }
+        if (!verifyChecking.verifyDateOfBirth(student.getStudentDoB())) {
+            return "Invalid date of birth: " + student.getStudentDoB();
+        }
+        if (student.getCurriculumID() == null || !verifyChecking.verifyCurriculumID(student.getCurriculumID().getCurriculumID())) {
+            return "Missing curriculum";
+        }
+
+        student.setStudentID(studentId);
+        student.setStudentEmail(email);
+        student.setStudentPhone(phone);
+        student.setStudentName(name);
+        student.setStudentSSN(ssn);
+        student.setAddress(address);
+        if (student.getStudentGender() == null) {
+            student.setStudentGender(false);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,207 @@
+package util.service.security;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Phát hành và kiểm tra token đăng nhập không trạng thái (cookie ký HMAC-SHA256),
+ * để nhiều node Tomcat dùng chung mà không cần sticky session hay replicate session.
+ * <p>
+ * Định dạng: base64url("accountId|email|role|expEpochSec") + "." + base64url(HMAC).
+ * Bật bằng AUTH_STATELESS=true trong save.env, khóa ký lấy từ AUTH_TOKEN_SECRET;
+ * AUTH_TOKEN_PREVIOUS_SECRET (nếu có) vẫn được chấp nhận khi xoay khóa.
+ */
+public final class SessionTokenService {
+    private static final Logger logger = LoggerFactory.getLogger(SessionTokenService.class);
+
+    public static final String COOKIE_NAME = "UNIACAD_AUTH";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MAC_LENGTH = 32;
+    private static final int ENCODED_MAC_LENGTH = 43; // base64url không padding của 32 byte
+    private static final int MIN_SECRET_BYTES = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private static volatile SessionTokenService instance;
+
+    private final boolean enabled;
+    private final long ttlSeconds;
+    private final SecretKeySpec[] keys;
+    // Mac không thread-safe: mỗi thread giữ một Mac cho mỗi khóa và buffer riêng để verify không cấp phát
+    private final ThreadLocal<Mac[]> macs;
+    private final ThreadLocal<byte[]> macBuffer = ThreadLocal.withInitial(() -> new byte[MAC_LENGTH]);
+    private final ThreadLocal<byte[]> encodedBuffer = ThreadLocal.withInitial(() -> new byte[ENCODED_MAC_LENGTH]);
+    private final ThreadLocal<byte[]> payloadBuffer = ThreadLocal.withInitial(() -> new byte[256]);
+
+    /**
+     * Claims đã được xác thực trong token.
+     */
+    public record Claims(String accountId, String email, String role, long expiresAt) {
+    }
+
+    public static SessionTokenService getInstance() {
+        SessionTokenService local = instance;
+        if (local == null) {
+            synchronized (SessionTokenService.class) {
+                local = instance;
+                if (local == null) {
+                    Dotenv dotenv = Dotenv.configure().filename("save.env").ignoreIfMissing().load();
+                    local = new SessionTokenService(
+                            Boolean.parseBoolean(dotenv.get("AUTH_STATELESS", "false")),
+                            dotenv.get("AUTH_TOKEN_SECRET"),
+                            dotenv.get("AUTH_TOKEN_PREVIOUS_SECRET"),
+                            Long.parseLong(dotenv.get("AUTH_TOKEN_TTL_SECONDS", "1800")));
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    public SessionTokenService(boolean enabled, String secret, String previousSecret, long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+        List<SecretKeySpec> keyList = new ArrayList<>(2);
+        if (secret != null && secret.getBytes(StandardCharsets.UTF_8).length >= MIN_SECRET_BYTES) {
+            keyList.add(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            if (previousSecret != null && !previousSecret.isBlank()) {
+                keyList.add(new SecretKeySpec(previousSecret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            }
+        } else if (enabled) {
+            logger.error("AUTH_TOKEN_SECRET missing or shorter than {} bytes, stateless auth disabled", MIN_SECRET_BYTES);
+        }
+        this.enabled = enabled && !keyList.isEmpty();
+        this.keys = keyList.toArray(new SecretKeySpec[0]);
+        this.macs = ThreadLocal.withInitial(this::newMacs);
+        if (this.enabled) {
+            logger.info("Stateless auth enabled, token TTL {} seconds", ttlSeconds);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    /**
+     * Tạo token mới ký bằng khóa hiện tại.
+     */
+    public String issue(String accountId, String email, String role) {
+        long expiresAt = System.currentTimeMillis() / 1000 + ttlSeconds;
+        String payload = ENCODER.encodeToString(
+                (accountId + "|" + email + "|" + role + "|" + expiresAt).getBytes(StandardCharsets.UTF_8));
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.US_ASCII);
+        Mac mac = macs.get()[0];
+        mac.update(payloadBytes);
+        return payload + "." + ENCODER.encodeToString(mac.doFinal());
+    }
+
+    /**
+     * Kiểm tra chữ ký và hạn dùng. Trả về null nếu token sai, hết hạn hoặc chế độ stateless đang tắt.
+     * Chữ ký được so sánh constant-time trên dạng base64url nên không cần decode phần chữ ký;
+     * payload chỉ được decode sau khi chữ ký hợp lệ.
+     */
+    public Claims verify(String token) {
+        if (!enabled || token == null) {
+            return null;
+        }
+        int length = token.length();
+        int dot = length - ENCODED_MAC_LENGTH - 1;
+        if (dot <= 0 || token.charAt(dot) != '.') {
+            return null;
+        }
+
+        byte[] payloadBytes = payloadBuffer.get();
+        if (payloadBytes.length < dot) {
+            payloadBytes = new byte[Math.max(dot, payloadBytes.length * 2)];
+            payloadBuffer.set(payloadBytes);
+        }
+        for (int i = 0; i < dot; i++) {
+            char c = token.charAt(i);
+            if (c > 0x7f) {
+                return null;
+            }
+            payloadBytes[i] = (byte) c;
+        }
+
+        Mac[] threadMacs = macs.get();
+        byte[] rawMac = macBuffer.get();
+        byte[] encodedMac = encodedBuffer.get();
+        boolean valid = false;
+        for (Mac mac : threadMacs) {
+            mac.update(payloadBytes, 0, dot);
+            try {
+                mac.doFinal(rawMac, 0);
+            } catch (GeneralSecurityException e) {
+                logger.error("HMAC computation failed", e);
+                return null;
+            }
+            ENCODER.encode(rawMac, encodedMac);
+            if (constantTimeEquals(encodedMac, token, dot + 1)) {
+                valid = true;
+                break;
+            }
+        }
+        if (!valid) {
+            return null;
+        }
+
+        String payload;
+        try {
+            ByteBuffer decoded = DECODER.decode(ByteBuffer.wrap(payloadBytes, 0, dot));
+            payload = new String(decoded.array(), decoded.arrayOffset() + decoded.position(), decoded.remaining(), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int p1 = payload.indexOf('|');
+        int p2 = payload.indexOf('|', p1 + 1);
+        int p3 = payload.lastIndexOf('|');
+        if (p1 < 0 || p2 < 0 || p3 <= p2) {
+            return null;
+        }
+        long expiresAt;
+        try {
+            expiresAt = Long.parseLong(payload, p3 + 1, payload.length(), 10);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (expiresAt < System.currentTimeMillis() / 1000) {
+            return null;
+        }
+        return new Claims(payload.substring(0, p1), payload.substring(p1 + 1, p2), payload.substring(p2 + 1, p3), expiresAt);
+    }
+
+    private Mac[] newMacs() {
+        Mac[] result = new Mac[keys.length];
+        try {
+            for (int i = 0; i < keys.length; i++) {
+                result[i] = Mac.getInstance(ALGORITHM);
+                result[i].init(keys[i]);
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+        return result;
+    }
+
+    private static boolean constantTimeEquals(byte[] expected, String token, int start) {
+        int diff = 0;
+        for (int i = 0; i < ENCODED_MAC_LENGTH; i++) {
+            diff |= expected[i] ^ token.charAt(start + i);
+        }
+        return diff == 0;
+    }
+}
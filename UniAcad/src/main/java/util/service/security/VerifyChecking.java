@@ -2,33 +2,66 @@ package util.service.security;
 
 import java.time.LocalDate;
 
+/**
+ * Kiểm tra dữ liệu đầu vào. Các kiểm tra là hàm quét ký tự viết tay, tương đương với regex ghi trong từng hàm
+ * nhưng không biên dịch regex hay cấp phát gì mỗi lần gọi. Không có trạng thái nên dùng chung được giữa các thread.
+ */
 public class VerifyChecking {
 
     /**
-     * Kiểm tra email có hợp lệ hay không
+     * Kiểm tra email có hợp lệ hay không: {@code ^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\.[a-zA-Z]{2,}$}
      */
     public boolean verifyEmail(String email) {
         if (email == null) return false;
-        String regex = "^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$";
-        return email.matches(regex);
+        int at = email.indexOf('@');
+        if (at <= 0) return false;
+        for (int i = 0; i < at; i++) {
+            char c = email.charAt(i);
+            if (!isAsciiLetterOrDigit(c) && c != '.' && c != '_' && c != '%' && c != '+' && c != '-') return false;
+        }
+        // Phần sau @: [a-zA-Z0-9.-]+ rồi dấu chấm cuối cùng, sau đó ít nhất 2 chữ cái
+        int lastDot = -1;
+        for (int i = at + 1; i < email.length(); i++) {
+            char c = email.charAt(i);
+            if (c == '.') {
+                lastDot = i;
+            } else if (!isAsciiLetterOrDigit(c) && c != '-') {
+                return false;
+            }
+        }
+        if (lastDot <= at + 1 || email.length() - lastDot - 1 < 2) return false;
+        for (int i = lastDot + 1; i < email.length(); i++) {
+            if (!isAsciiLetter(email.charAt(i))) return false;
+        }
+        return true;
     }
 
     /**
-     * Kiểm tra số điện thoại có hợp lệ (10-15 số, cho phép +)
+     * Kiểm tra số điện thoại có hợp lệ (10-15 số, cho phép +): {@code ^\+?[0-9]{10,15}$}
      */
     public boolean verifyPhoneNumber(String phoneNumber) {
         if (phoneNumber == null) return false;
-        String regex = "^\\+?[0-9]{10,15}$";
-        return phoneNumber.matches(regex);
+        int start = !phoneNumber.isEmpty() && phoneNumber.charAt(0) == '+' ? 1 : 0;
+        int digits = phoneNumber.length() - start;
+        if (digits < 10 || digits > 15) return false;
+        for (int i = start; i < phoneNumber.length(); i++) {
+            if (!isAsciiDigit(phoneNumber.charAt(i))) return false;
+        }
+        return true;
     }
 
     /**
-     * Kiểm tra họ tên hợp lệ (Bắt đầu bằng chữ in hoa)
+     * Kiểm tra họ tên hợp lệ (Bắt đầu bằng chữ in hoa): {@code ^[A-Z][a-zA-Z\s]+$}
      */
     public boolean verifyFullName(String fullName) {
-        if (fullName == null) return false;
-        String regex = "^[A-Z][a-zA-Z\\s]+$";
-        return fullName.matches(regex);
+        if (fullName == null || fullName.length() < 2) return false;
+        char first = fullName.charAt(0);
+        if (first < 'A' || first > 'Z') return false;
+        for (int i = 1; i < fullName.length(); i++) {
+            char c = fullName.charAt(i);
+            if (!isAsciiLetter(c) && !isRegexWhitespace(c)) return false;
+        }
+        return true;
     }
 
     /**
@@ -40,11 +73,15 @@ public class VerifyChecking {
     }
 
     /**
-     * Kiểm tra mã sinh viên StudentID đúng 8 ký tự
+     * Kiểm tra mã sinh viên StudentID đúng 8 ký tự: {@code ^\w{8}$}
      */
     public boolean verifyStudentID(String studentId) {
-        if (studentId == null) return false;
-        return studentId.matches("^\\w{8}$");
+        if (studentId == null || studentId.length() != 8) return false;
+        for (int i = 0; i < 8; i++) {
+            char c = studentId.charAt(i);
+            if (!isAsciiLetterOrDigit(c) && c != '_') return false;
+        }
+        return true;
     }
 
     /**
@@ -61,4 +98,21 @@ public class VerifyChecking {
     public boolean verifyCurriculumID(String curriculumId) {
         return curriculumId != null && !curriculumId.trim().isEmpty();
     }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return isAsciiLetter(c) || isAsciiDigit(c);
+    }
+
+    // \s của java.util.regex (không bật UNICODE_CHARACTER_CLASS): [ \t\n\x0B\f\r]
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
 }
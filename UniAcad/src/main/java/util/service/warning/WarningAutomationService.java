@@ -20,7 +20,7 @@ public class WarningAutomationService {
 
     public WarningAutomationService() {
         this.warningService = new WarningService();
-        this.emailTemplateService = new EmailTemplateService(null); // ServletContext nếu có
+        this.emailTemplateService = new EmailTemplateService();
     }
 
     public void processWarnings() {
@@ -41,8 +41,4 @@ public class WarningAutomationService {
             logger.error("Error sending warning emails: {}", e.getMessage(), e);
         }
     }
-
-    public void shutdown() {
-        emailTemplateService.shutdown();
-    }
 }
@@ -10,16 +10,87 @@ function formatDate(date) {
     return date.toISOString().split('T')[0];
 }
 
-async function loadWeeklySchedule(startDate) {
+// Mỗi sinh viên một key; OWNER_KEY chỉ nhớ ai dùng trình duyệt này lần cuối để biết nên đọc cache nào trước
+const TIMETABLE_CACHE_PREFIX = 'uniacad.timetable.';
+const TIMETABLE_OWNER_KEY = 'uniacad.timetable.owner';
+
+function emptyTimetableCache(studentId) {
+    return { studentId: studentId || null, token: null, items: {} };
+}
+
+// Cache cả học kỳ: { studentId, token, items: { "courseId-slotNumber": item } }
+function readTimetableCache(studentId) {
+    const owner = studentId || localStorage.getItem(TIMETABLE_OWNER_KEY);
+    if (!owner) return emptyTimetableCache(null);
+    try {
+        const cache = JSON.parse(localStorage.getItem(TIMETABLE_CACHE_PREFIX + owner));
+        return cache && cache.studentId === owner ? cache : emptyTimetableCache(owner);
+    } catch (e) {
+        return emptyTimetableCache(owner);
+    }
+}
+
+function writeTimetableCache(cache) {
     try {
-        const monday = getMonday(startDate);
-        const sunday = new Date(monday);
-        sunday.setDate(monday.getDate() + 7);
+        localStorage.setItem(TIMETABLE_CACHE_PREFIX + cache.studentId, JSON.stringify(cache));
+        localStorage.setItem(TIMETABLE_OWNER_KEY, cache.studentId);
+    } catch (e) {
+        console.warn('Cannot persist timetable cache:', e);
+    }
+}
+
+let timetableCache = null;
+let syncPromise = null;
+
+// Lần đầu lấy cả học kỳ, các lần sau chỉ lấy phần thay đổi theo token
+function syncTimetable() {
+    if (syncPromise) return syncPromise;
 
-        const response = await fetch(window.location.origin + `/UniAcad/api/student/timetable?start=${formatDate(monday)}&end=${formatDate(sunday)}`);
-        const schedules = await response.json();
+    syncPromise = (async () => {
+        let cache = timetableCache || readTimetableCache();
+        const query = cache.token ? `?token=${encodeURIComponent(cache.token)}` : '';
+        const response = await fetch(window.location.origin + `/UniAcad/api/student/timetable/sync${query}`);
+        if (!response.ok) throw new Error('Sync failed with status ' + response.status);
+        const sync = await response.json();
 
-        renderTimetable(schedules, monday);
+        // Token thuộc sinh viên khác thì server đã trả full; không trộn vào cache của người trước
+        if (cache.studentId !== sync.studentId) {
+            cache = emptyTimetableCache(sync.studentId);
+        }
+        // full cũng là khi server thấy slot bị xóa/môn bị rút: bỏ hết slot cũ
+        if (sync.full) cache.items = {};
+        sync.items.forEach(item => {
+            cache.items[`${item.courseId}-${item.slotNumber}`] = item;
+        });
+        cache.token = sync.syncToken;
+
+        timetableCache = cache;
+        writeTimetableCache(cache);
+        return cache;
+    })().finally(() => { syncPromise = null; });
+
+    return syncPromise;
+}
+
+function itemsInWeek(cache, monday) {
+    const sunday = new Date(monday);
+    sunday.setDate(monday.getDate() + 7);
+    const from = formatDate(monday);
+    const to = formatDate(sunday);
+    return Object.values(cache.items)
+        .filter(item => item.startTime.substring(0, 10) >= from && item.startTime.substring(0, 10) < to)
+        .sort((a, b) => a.startTime.localeCompare(b.startTime));
+}
+
+async function loadWeeklySchedule(startDate) {
+    const monday = getMonday(startDate);
+    try {
+        // Chuyển tuần chỉ render lại từ cache, không gọi server
+        if (!timetableCache) {
+            timetableCache = readTimetableCache();
+            await syncTimetable();
+        }
+        renderTimetable(itemsInWeek(timetableCache, monday), monday);
     } catch (error) {
         console.error('Error loading schedule:', error);
         document.getElementById('scheduleBody').innerHTML = "<tr><td colspan='8'>Failed to load schedule.</td></tr>";
@@ -121,3 +192,14 @@ window.onload = function() {
     document.getElementById('startDate').value = formatDate(today);
     loadWeeklySchedule(today);
 };
+
+// Quay lại tab → lấy các thay đổi mới (điểm danh, đổi phòng) theo token
+document.addEventListener('visibilitychange', async () => {
+    if (document.visibilityState !== 'visible' || !timetableCache) return;
+    try {
+        await syncTimetable();
+        reloadSchedule();
+    } catch (error) {
+        console.error('Error syncing schedule:', error);
+    }
+});
@@ -0,0 +1,91 @@
+package controller.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.openjdk.jmh.annotations.*;
+import util.service.security.SessionTokenService;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí RoleFilter trên mỗi request: đường HttpSession so với đường cookie ký HMAC.
+ * Request/response là proxy tối giản, chain rỗng, nên số đo gần với chi phí thuần của filter.
+ * Thêm {@code -prof gc} để xem số byte cấp phát mỗi request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoleFilterBenchmark {
+    private RoleFilter filter;
+    private SessionTokenService tokenService;
+    private String token;
+    private HttpServletRequest sessionRequest;
+    private HttpServletRequest tokenRequest;
+    private HttpServletResponse response;
+    private final FilterChain chain = (req, resp) -> {
+    };
+
+    @Setup
+    public void setUp() {
+        tokenService = new SessionTokenService(true, "benchmark-secret-0123456789abcdef0123456789", null, 3600);
+        token = tokenService.issue("HE176001", "student@fpt.edu.vn", "student");
+        filter = new RoleFilter();
+        filter.tokenService = tokenService;
+
+        Map<String, Object> sessionAttributes = new HashMap<>();
+        sessionAttributes.put("email", "student@fpt.edu.vn");
+        sessionAttributes.put("role", "student");
+        sessionAttributes.put("account_id", "HE176001");
+        HttpSession session = (HttpSession) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{HttpSession.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getAttribute" -> sessionAttributes.get((String) args[0]);
+                    case "getLastAccessedTime" -> System.currentTimeMillis();
+                    default -> null;
+                });
+        sessionRequest = request(session, null);
+        tokenRequest = request(null, new Cookie[]{new Cookie(SessionTokenService.COOKIE_NAME, token)});
+        response = (HttpServletResponse) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{HttpServletResponse.class}, (proxy, method, args) -> null);
+    }
+
+    @Benchmark
+    public HttpServletRequest session() throws Exception {
+        filter.doFilter(sessionRequest, response, chain);
+        return sessionRequest;
+    }
+
+    @Benchmark
+    public HttpServletRequest hmacCookie() throws Exception {
+        filter.doFilter(tokenRequest, response, chain);
+        return tokenRequest;
+    }
+
+    @Benchmark
+    public SessionTokenService.Claims verifyOnly() {
+        return tokenService.verify(token);
+    }
+
+    private HttpServletRequest request(HttpSession session, Cookie[] cookies) {
+        Map<String, Object> attributes = new HashMap<>();
+        return (HttpServletRequest) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getContextPath" -> "/UniAcad";
+                    case "getRequestURI" -> "/UniAcad/student/home";
+                    case "getSession" -> session;
+                    case "getCookies" -> cookies;
+                    case "setAttribute" -> attributes.put((String) args[0], args[1]);
+                    default -> null;
+                });
+    }
+}
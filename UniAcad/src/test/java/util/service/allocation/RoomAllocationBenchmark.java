@@ -0,0 +1,79 @@
+package util.service.allocation;
+
+import org.openjdk.jmh.annotations.*;
+import util.service.allocation.RoomAllocationService.AllocationResult;
+import util.service.allocation.RoomAllocationService.Booking;
+import util.service.allocation.RoomAllocationService.BookingKind;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thời gian giải gán phòng cho một học kỳ sinh ngẫu nhiên: mỗi course 20 slot (2 buổi/tuần trong 10 tuần) và một exam,
+ * khoảng 5% slot đã có phòng cố định. Mỗi lần đo giải trên bản sao booking mới.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoomAllocationBenchmark {
+    private static final int[] SLOT_START_MINUTES = {7 * 60, 8 * 60 + 30, 10 * 60, 11 * 60 + 30, 13 * 60, 14 * 60 + 30, 16 * 60, 17 * 60 + 30};
+
+    @Param({"5000"})
+    public int courseCount;
+
+    @Param({"400"})
+    public int roomCount;
+
+    private RoomAllocationService service;
+    private List<String> rooms;
+    private List<Booking> bookings;
+    private List<Booking> copy;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        long termStart = Instant.parse("2025-01-06T00:00:00Z").getEpochSecond() / 60;
+
+        rooms = new ArrayList<>(roomCount);
+        for (int i = 0; i < roomCount; i++) {
+            rooms.add(String.format("R%03d", i));
+        }
+
+        bookings = new ArrayList<>(courseCount * 21);
+        int examId = 1;
+        for (int course = 1; course <= courseCount; course++) {
+            int day = random.nextInt(6);
+            int period = random.nextInt(SLOT_START_MINUTES.length);
+            for (int slot = 1; slot <= 20; slot++) {
+                long start = termStart + ((slot - 1) / 2 * 7L + day + (slot % 2 == 0 ? 3 : 0)) * 1440 + SLOT_START_MINUTES[period];
+                String fixedRoom = random.nextInt(20) == 0 ? rooms.get(random.nextInt(roomCount)) : null;
+                bookings.add(new Booking(BookingKind.SLOT, course, slot, start, start + 90, fixedRoom));
+            }
+            long examStart = termStart + (70L + random.nextInt(7)) * 1440
+                    + SLOT_START_MINUTES[random.nextInt(SLOT_START_MINUTES.length)];
+            bookings.add(new Booking(BookingKind.EXAM, examId++, 0, examStart, examStart + 60, null));
+        }
+        service = new RoomAllocationService(Runtime.getRuntime().availableProcessors());
+    }
+
+    // solve ghi roomId vào booking, nên mỗi lần đo cần bản sao chưa xếp
+    @Setup(Level.Invocation)
+    public void copyBookings() {
+        copy = new ArrayList<>(bookings.size());
+        for (Booking b : bookings) {
+            copy.add(new Booking(b.kind, b.id, b.slotNumber, b.start, b.end, b.fixed ? b.roomId : null));
+        }
+    }
+
+    @Benchmark
+    public AllocationResult solve() {
+        return service.solve(copy, rooms, Duration.ofSeconds(30));
+    }
+}
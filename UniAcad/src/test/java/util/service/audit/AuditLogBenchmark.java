@@ -0,0 +1,53 @@
+package util.service.audit;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Chi phí publish một sự kiện access khi nhiều thread cùng ghi (mặc định 4, đổi bằng {@code -t}).
+ * Thread ghi nền thường không theo kịp tốc độ bắn liên tục, nên số sự kiện bị drop (in ra khi kết thúc)
+ * cho biết buffer có chặn request hay không: publish phải luôn nhanh, kể cả khi buffer đầy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class AuditLogBenchmark {
+
+    @Param({"16384"})
+    public int capacity;
+
+    private Path directory;
+    private AuditLog log;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("audit-bench");
+        log = new AuditLog(directory, "bench", capacity, 50L * 1024 * 1024);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        log.shutdown();
+        System.out.printf("%nAuditLog: written=%d dropped=%d%n", log.getWrittenCount(), log.getDroppedCount());
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void access() {
+        log.access("student@fpt.edu.vn", "GET", "/api/student/timetable", 200, 1_250_000);
+    }
+}
@@ -0,0 +1,206 @@
+package util.service.email;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SMTP server giả lập chỉ nhận và bỏ thư, dùng để đo throughput MailService mà không gửi ra Gmail.
+ * <p>
+ * Trỏ save.env (hoặc overrides của MailService) vào sink:
+ * <pre>
+ * SMTP_HOST=127.0.0.1
+ * SMTP_PORT=2525
+ * </pre>
+ * Chấp nhận mọi AUTH, không hỗ trợ STARTTLS (JavaMail gửi plain vì starttls chỉ bật chứ không bắt buộc).
+ * Tham số dòng lệnh: port, độ trễ trả lời DATA (ms), dropEvery — cứ N thư thì đóng kết nối sau DATA
+ * mà không trả lời, giả lập lỗi mạng tạm thời để thấy retry.
+ */
+public class LocalSmtpSink {
+    private static final Logger logger = LoggerFactory.getLogger(LocalSmtpSink.class);
+
+    private final ServerSocket serverSocket;
+    private final long latencyMs;
+    private final int dropEvery;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder connections = new LongAdder();
+    private final AtomicLong dataCommands = new AtomicLong();
+    private volatile boolean running = true;
+
+    public LocalSmtpSink(int port, long latencyMs, int dropEvery) throws IOException {
+        this.latencyMs = latencyMs;
+        this.dropEvery = dropEvery;
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 512);
+    }
+
+    public void start() {
+        Thread acceptor = new Thread(this::acceptLoop, "smtp-sink");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        logger.info("Local SMTP sink listening on port {}", getPort());
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        executor.shutdownNow();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getMessageCount() {
+        return messages.sum();
+    }
+
+    public long getByteCount() {
+        return bytes.sum();
+    }
+
+    public long getConnectionCount() {
+        return connections.sum();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.increment();
+                executor.execute(() -> handle(socket));
+            } catch (IOException e) {
+                if (running) {
+                    logger.warn("SMTP sink accept failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             InputStream in = new BufferedInputStream(socket.getInputStream());
+             OutputStream out = socket.getOutputStream()) {
+            reply(out, "220 localhost UniAcad SMTP sink");
+            String line;
+            while ((line = readLine(in)) != null) {
+                String command = (line.length() >= 4 ? line.substring(0, 4) : line).toUpperCase(Locale.ROOT);
+                switch (command) {
+                    case "EHLO" -> reply(out, "250-localhost\r\n250-AUTH PLAIN LOGIN\r\n250-8BITMIME\r\n250 SIZE 52428800");
+                    case "HELO" -> reply(out, "250 localhost");
+                    case "AUTH" -> authenticate(line, in, out);
+                    case "MAIL", "RCPT" -> reply(out, "250 OK");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        long size = readData(in);
+                        if (dropEvery > 0 && dataCommands.incrementAndGet() % dropEvery == 0) {
+                            return; // đóng kết nối mà không trả lời: client thấy lỗi I/O tạm thời
+                        }
+                        if (latencyMs > 0) {
+                            Thread.sleep(latencyMs);
+                        }
+                        messages.increment();
+                        bytes.add(size);
+                        reply(out, "250 OK queued");
+                    }
+                    case "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("SMTP sink connection closed: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * "AUTH PLAIN xxx" xong ngay; "AUTH PLAIN" hoặc "AUTH LOGIN" thì đọc thêm các dòng credential rồi chấp nhận.
+     */
+    private void authenticate(String line, InputStream in, OutputStream out) throws IOException {
+        String[] parts = line.trim().split("\\s+");
+        String mechanism = parts.length > 1 ? parts[1].toUpperCase(Locale.ROOT) : "";
+        if (mechanism.equals("LOGIN")) {
+            if (parts.length < 3) {
+                reply(out, "334 VXNlcm5hbWU6");
+                readLine(in);
+            }
+            reply(out, "334 UGFzc3dvcmQ6");
+            readLine(in);
+        } else if (parts.length < 3) {
+            reply(out, "334 ");
+            readLine(in);
+        }
+        reply(out, "235 Authentication successful");
+    }
+
+    private static long readData(InputStream in) throws IOException {
+        long size = 0;
+        String line;
+        while ((line = readLine(in)) != null && !line.equals(".")) {
+            size += line.length() + 2;
+        }
+        if (line == null) {
+            throw new IOException("Connection closed during DATA");
+        }
+        return size;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                int length = line.size();
+                byte[] data = line.toByteArray();
+                return new String(data, 0, length > 0 && data[length - 1] == '\r' ? length - 1 : length,
+                        StandardCharsets.ISO_8859_1);
+            }
+            line.write(b);
+        }
+        return line.size() > 0 ? line.toString(StandardCharsets.ISO_8859_1) : null;
+    }
+
+    private static void reply(OutputStream out, String response) throws IOException {
+        out.write((response + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 2525;
+        long latencyMs = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        int dropEvery = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        LocalSmtpSink sink = new LocalSmtpSink(port, latencyMs, dropEvery);
+        sink.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            sink.stop();
+            System.out.printf("Received %d messages, %d bytes over %d connections%n",
+                    sink.getMessageCount(), sink.getByteCount(), sink.getConnectionCount());
+        }));
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,137 @@
+package util.service.email;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Đo throughput của {@link MailService#sendPersonalized} qua {@link LocalSmtpSink}, chạy hoàn toàn offline.
+ * <p>
+ * Với mỗi cặp (số thread, batch size) tạo một MailService mới trỏ vào sink, gửi N email "warning" cá nhân hóa
+ * và in: số thư/giây, p50/p99 độ trễ từng thư (render + chờ kết nối + gửi, tính cả retry), số lần retry, số thư lỗi.
+ * Rate limit được nâng lên rất cao để đo chính MailService chứ không phải bucket.
+ * <p>
+ * Tham số: số email (mặc định 2000), danh sách thread (4,8,16), danh sách batch size (50,500),
+ * độ trễ sink (ms, mặc định 0), dropEvery của sink (mặc định 0 — không giả lập lỗi).
+ */
+public class MailThroughputBenchmark {
+    private static final String[] TEMPLATES = {"warning", "warning-digest", "welcome", "paymentreport"};
+
+    public static void main(String[] args) throws IOException {
+        int emails = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int[] threadCounts = parseList(args.length > 1 ? args[1] : "4,8,16");
+        int[] batchSizes = parseList(args.length > 2 ? args[2] : "50,500");
+        long latencyMs = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        int dropEvery = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+
+        Path storage = Files.createTempDirectory("uniacad-mail-bench");
+        copyTemplates(storage.resolve("templates"));
+        Map<String, Map<String, Object>> variables = buildVariables(emails);
+
+        LocalSmtpSink sink = new LocalSmtpSink(0, latencyMs, dropEvery);
+        sink.start();
+        try {
+            System.out.printf("%d emails, sink latency %d ms, dropEvery %d%n", emails, latencyMs, dropEvery);
+            System.out.printf("%7s %6s %10s %9s %9s %8s %7s %9s%n",
+                    "threads", "batch", "msgs/s", "p50 ms", "p99 ms", "retries", "failed", "connects");
+            // Lượt đầu chỉ để JIT làm nóng, không in
+            run(sink, storage, threadCounts[0], batchSizes[0], buildVariables(Math.min(emails, 500)), false);
+            for (int threads : threadCounts) {
+                for (int batchSize : batchSizes) {
+                    run(sink, storage, threads, batchSize, variables, true);
+                }
+            }
+        } finally {
+            sink.stop();
+        }
+    }
+
+    private static void run(LocalSmtpSink sink, Path storage, int threads, int batchSize,
+                            Map<String, Map<String, Object>> variables, boolean print) {
+        MailService mailService = new MailService(null, Map.of(
+                "SMTP_HOST", "127.0.0.1",
+                "SMTP_PORT", String.valueOf(sink.getPort()),
+                "SMTP_USERNAME", "bench@localhost",
+                "SMTP_PASSWORD", "bench",
+                "EMAIL_THREAD_COUNT", String.valueOf(threads),
+                "EMAIL_RATE_LIMIT", "1000000000",
+                "FILE_STORAGE_PATH", storage.toString()));
+        long[] latencies = new long[variables.size()];
+        AtomicInteger completed = new AtomicInteger();
+        LongAdder retries = new LongAdder();
+        LongAdder failures = new LongAdder();
+        mailService.setSendObserver(new MailService.SendObserver() {
+            @Override
+            public void onSent(long latencyNanos, int attempts) {
+                latencies[completed.getAndIncrement()] = latencyNanos;
+                retries.add(attempts - 1);
+            }
+
+            @Override
+            public void onFailed(int attempts) {
+                failures.increment();
+                retries.add(Math.max(attempts - 1, 0));
+            }
+        });
+        try {
+            long start = System.nanoTime();
+            Map<String, String> failed = mailService.sendPersonalized("warning", "Academic Warning",
+                    variables, null, Collections.emptyList(), batchSize);
+            long elapsed = System.nanoTime() - start;
+            if (!print) {
+                return;
+            }
+            int sent = completed.get();
+            long[] sorted = Arrays.copyOf(latencies, sent);
+            Arrays.sort(sorted);
+            System.out.printf("%7d %6d %10.0f %9.2f %9.2f %8d %7d %9d%n", threads, batchSize,
+                    sent * 1e9 / elapsed, percentile(sorted, 0.50), percentile(sorted, 0.99),
+                    retries.sum(), Math.max(failures.sum(), failed.size()),
+                    mailService.getTransportPool().getConnectCount());
+        } finally {
+            mailService.shutdown();
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    private static Map<String, Map<String, Object>> buildVariables(int count) {
+        Map<String, Map<String, Object>> variables = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            variables.put("student" + i + "@fpt.edu.vn", Map.of(
+                    "name", "Nguyen Van " + i,
+                    "subject", "PRJ301",
+                    "warningType", i % 2 == 0 ? "Banned from Exam" : "High Absence Warning",
+                    "absentRate", String.format("%.2f%%", 15 + i % 20 * 0.5),
+                    "mark", "-"));
+        }
+        return variables;
+    }
+
+    private static void copyTemplates(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (String name : TEMPLATES) {
+            try (InputStream in = MailThroughputBenchmark.class.getResourceAsStream("/templates/" + name + ".html")) {
+                if (in != null) {
+                    Files.copy(in, directory.resolve(name + ".html"), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+    }
+
+    private static int[] parseList(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+}
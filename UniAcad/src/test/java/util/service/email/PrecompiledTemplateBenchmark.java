@@ -0,0 +1,87 @@
+package util.service.email;
+
+import org.openjdk.jmh.annotations.*;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.FileTemplateResolver;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Render một template email: Thymeleaf (một Context mới mỗi email như MailService) so với {@link PrecompiledTemplate}.
+ * Thư mục template lấy từ {@code -Dtemplates.dir} (mặc định src/main/resources/templates).
+ * Chỉ template biên dịch được (vd. warning) mới chạy được {@link #precompiled()}; với welcome/warning-digest
+ * dùng {@code -p template=... } và chỉ chạy {@link #thymeleaf()}. Thêm {@code -prof gc} để xem byte cấp phát mỗi email.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrecompiledTemplateBenchmark {
+    private static final Map<String, Object> GLOBALS = Map.of("baseUrl", "http://localhost:8080");
+
+    @Param({"warning"})
+    public String template;
+
+    private TemplateEngine engine;
+    private PrecompiledTemplate precompiled;
+    private Map<String, Object> vars;
+
+    @Setup
+    public void setUp() throws IOException {
+        Path directory = Path.of(System.getProperty("templates.dir", "src/main/resources/templates"));
+        FileTemplateResolver resolver = new FileTemplateResolver();
+        resolver.setPrefix(directory.toAbsolutePath() + File.separator);
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(true);
+        engine = new TemplateEngine();
+        engine.setTemplateResolver(resolver);
+
+        // Biến của các template trong repo; template biên dịch được thì thêm giá trị mẫu có ký tự cần escape
+        vars = new HashMap<>(Map.of(
+                "name", "Nguyen Van A",
+                "token", "WELCOME-1-3f2a9c1d",
+                "verificationLink", "http://localhost:8080/verify?token=WELCOME-1-3f2a9c1d",
+                "items", List.of("Course A", "Course B"),
+                "warnings", List.of(
+                        Map.of("subject", "PRJ301", "warningType", "Banned from Exam", "absentRate", "25.00%", "mark", "4.5"),
+                        Map.of("subject", "SWE201", "warningType", "High Absence Warning", "absentRate", "18.00%", "mark", "-"))));
+        precompiled = PrecompiledTemplate.compile(
+                Files.readString(directory.resolve(template + ".html"), StandardCharsets.UTF_8));
+        if (precompiled != null) {
+            vars.putAll(precompiled.sampleVariables());
+            if (!thymeleaf().equals(precompiled())) {
+                throw new IllegalStateException("Precompiled output differs from Thymeleaf for " + template);
+            }
+        }
+    }
+
+    @Benchmark
+    public String thymeleaf() {
+        Context context = new Context();
+        GLOBALS.forEach(context::setVariable);
+        vars.forEach(context::setVariable);
+        return engine.process(template, context);
+    }
+
+    @Benchmark
+    public String precompiled() {
+        if (precompiled == null) {
+            throw new IllegalStateException("Template " + template + " falls back to Thymeleaf");
+        }
+        return precompiled.render(vars, GLOBALS);
+    }
+}
@@ -0,0 +1,45 @@
+package util.service.metrics;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí ghi metrics mỗi request (begin + record) khi nhiều thread cùng ghi một route.
+ * Chạy với {@code -t 1}, {@code -t 4}, {@code -t max} để so sánh mức tranh chấp.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestMetricsBenchmark {
+    private static final int[] STATUSES = {200, 200, 200, 304, 404, 500};
+
+    private RequestMetrics metrics;
+
+    @State(Scope.Thread)
+    public static class Counter {
+        int i;
+    }
+
+    @Setup
+    public void setUp() {
+        metrics = new RequestMetrics();
+    }
+
+    @Benchmark
+    public void beginAndRecord(Counter counter) {
+        int i = counter.i++;
+        RequestMetrics.RouteMetrics route = metrics.route("/api/student/timetable");
+        route.begin();
+        route.record((i & 1023) * 100_000L, STATUSES[Math.floorMod(i, STATUSES.length)]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String scrape() {
+        return metrics.scrape();
+    }
+}
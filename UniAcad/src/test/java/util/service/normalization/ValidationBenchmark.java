@@ -0,0 +1,190 @@
+package util.service.normalization;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import util.service.security.VerifyChecking;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * So sánh VerifyChecking / NormalizationService hiện tại với bản cũ (String.matches, StringBuilder dùng chung)
+ * trên một cột dữ liệu import (10% chuỗi ngẫu nhiên). Setup kiểm tra hai bản cho kết quả giống hệt nhau.
+ * Thêm {@code -prof gc} để xem số byte cấp phát mỗi giá trị.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+    private static final String ALPHABET = "abcXYZ019 .@+-_%\táệĐ";
+    private static final int COLUMN_SIZE = 1000;
+
+    @Param({"email", "phone", "fullName", "studentId"})
+    public String field;
+
+    private String[] column;
+    private String[] normalizedColumn;
+    private UnaryOperator<String> legacyNormalizer;
+    private UnaryOperator<String> currentNormalizer;
+    private Predicate<String> legacyVerifier;
+    private Predicate<String> currentVerifier;
+
+    /**
+     * Bản cài đặt cũ, giữ nguyên để đối chiếu.
+     */
+    static final class Legacy {
+        private final StringBuilder sb = new StringBuilder();
+
+        boolean verifyEmail(String email) {
+            if (email == null) return false;
+            return email.matches("^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$");
+        }
+
+        boolean verifyPhoneNumber(String phoneNumber) {
+            if (phoneNumber == null) return false;
+            return phoneNumber.matches("^\\+?[0-9]{10,15}$");
+        }
+
+        boolean verifyFullName(String fullName) {
+            if (fullName == null) return false;
+            return fullName.matches("^[A-Z][a-zA-Z\\s]+$");
+        }
+
+        boolean verifyStudentID(String studentId) {
+            if (studentId == null) return false;
+            return studentId.matches("^\\w{8}$");
+        }
+
+        String normalizationFullName(String input) {
+            if (input == null || input.trim().isEmpty()) return "";
+            String[] words = input.trim().split("\\s+");
+            sb.setLength(0);
+            for (String word : words) {
+                if (!word.isEmpty()) {
+                    sb.append(Character.toUpperCase(word.charAt(0)));
+                    if (word.length() > 1) sb.append(word.substring(1).toLowerCase());
+                    sb.append(" ");
+                }
+            }
+            return sb.toString().trim();
+        }
+
+        String normalizationEmail(String input) {
+            if (input == null || input.trim().isEmpty()) return "";
+            return input.trim().toLowerCase();
+        }
+
+        String normalizationPhoneNumber(String input) {
+            if (input == null || input.trim().isEmpty()) return "";
+            return input.replaceAll("[^0-9+]", "");
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        Legacy legacy = new Legacy();
+        VerifyChecking verify = new VerifyChecking();
+        NormalizationService normalize = new NormalizationService();
+        switch (field) {
+            case "email" -> {
+                legacyNormalizer = legacy::normalizationEmail;
+                currentNormalizer = normalize::normalizationEmail;
+                legacyVerifier = legacy::verifyEmail;
+                currentVerifier = verify::verifyEmail;
+            }
+            case "phone" -> {
+                legacyNormalizer = legacy::normalizationPhoneNumber;
+                currentNormalizer = normalize::normalizationPhoneNumber;
+                legacyVerifier = legacy::verifyPhoneNumber;
+                currentVerifier = verify::verifyPhoneNumber;
+            }
+            case "fullName" -> {
+                legacyNormalizer = legacy::normalizationFullName;
+                currentNormalizer = normalize::normalizationFullName;
+                legacyVerifier = legacy::verifyFullName;
+                currentVerifier = verify::verifyFullName;
+            }
+            case "studentId" -> {
+                // Mã sinh viên chỉ được trim trước khi kiểm tra
+                legacyNormalizer = String::trim;
+                currentNormalizer = String::trim;
+                legacyVerifier = legacy::verifyStudentID;
+                currentVerifier = verify::verifyStudentID;
+            }
+            default -> throw new IllegalArgumentException("Unknown field: " + field);
+        }
+
+        Random random = new Random(42);
+        column = new String[COLUMN_SIZE];
+        normalizedColumn = new String[COLUMN_SIZE];
+        for (int i = 0; i < COLUMN_SIZE; i++) {
+            column[i] = i % 10 == 0 ? randomString(random, 20) : sample(i);
+            normalizedColumn[i] = legacyNormalizer.apply(column[i]);
+        }
+        for (String value : column) {
+            check(value, legacyNormalizer.apply(value), currentNormalizer.apply(value));
+            check(value, legacyVerifier.test(value), currentVerifier.test(value));
+        }
+        for (String value : normalizedColumn) {
+            check(value, legacyVerifier.test(value), currentVerifier.test(value));
+        }
+    }
+
+    @Benchmark
+    public void legacyNormalize(Blackhole blackhole) {
+        for (String value : column) {
+            blackhole.consume(legacyNormalizer.apply(value));
+        }
+    }
+
+    @Benchmark
+    public void currentNormalize(Blackhole blackhole) {
+        for (String value : column) {
+            blackhole.consume(currentNormalizer.apply(value));
+        }
+    }
+
+    @Benchmark
+    public void legacyVerify(Blackhole blackhole) {
+        for (String value : normalizedColumn) {
+            blackhole.consume(legacyVerifier.test(value));
+        }
+    }
+
+    @Benchmark
+    public void currentVerify(Blackhole blackhole) {
+        for (String value : normalizedColumn) {
+            blackhole.consume(currentVerifier.test(value));
+        }
+    }
+
+    private String sample(int i) {
+        return switch (field) {
+            case "email" -> " Student" + i + "@FPT.edu.vn ";
+            case "phone" -> "+84 9" + (10_000_000 + i);
+            case "fullName" -> "  nguyen   VAN  an" + (char) ('a' + i % 26);
+            default -> "HE" + (100_000 + i);
+        };
+    }
+
+    private void check(String value, Object expected, Object actual) {
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException(field + ": legacy returned [" + expected + "], current returned ["
+                    + actual + "] for [" + value + "]");
+        }
+    }
+
+    private static String randomString(Random random, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,143 @@
+package util.service.security;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * IdP giả lập OAuth2 dùng cho load test luồng đăng nhập Google mà không gọi ra Internet.
+ * Chỉ nằm trong test scope (cấp token cho bất kỳ email nào), không được đóng gói vào WAR.
+ * Chạy bằng: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=util.service.security.StubIdentityProvider
+ * <p>
+ * Trỏ oauth.properties vào stub:
+ * <pre>
+ * oauth.auth_endpoint=http://localhost:8089/auth
+ * oauth.token_endpoint=http://localhost:8089/token
+ * oauth.userinfo_endpoint=http://localhost:8089/userinfo
+ * </pre>
+ * /auth?login_hint=email redirect thẳng về redirect_uri với code = email.
+ * /token đổi code thành access_token, /userinfo trả email tương ứng với token.
+ * Có thể giả lập độ trễ của IdP bằng tham số dòng lệnh thứ hai (ms).
+ */
+public class StubIdentityProvider {
+    private static final Logger logger = LoggerFactory.getLogger(StubIdentityProvider.class);
+
+    private final HttpServer server;
+    private final long latencyMs;
+
+    public StubIdentityProvider(int port, long latencyMs) throws IOException {
+        this.latencyMs = latencyMs;
+        this.server = HttpServer.create(new InetSocketAddress(port), 512);
+        server.createContext("/auth", this::handleAuth);
+        server.createContext("/token", this::handleToken);
+        server.createContext("/userinfo", this::handleUserInfo);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    public void start() {
+        server.start();
+        logger.info("Stub IdP listening on port {}", server.getAddress().getPort());
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    private void handleAuth(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        String redirectUri = params.get("redirect_uri");
+        if (redirectUri == null) {
+            send(exchange, 400, "text/plain", "missing redirect_uri");
+            return;
+        }
+        String email = params.getOrDefault("login_hint", "student@fpt.edu.vn");
+        String location = redirectUri + (redirectUri.contains("?") ? "&" : "?")
+                + "code=" + URLEncoder.encode(email, StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Location", location);
+        exchange.sendResponseHeaders(302, -1);
+        exchange.close();
+    }
+
+    private void handleToken(HttpExchange exchange) throws IOException {
+        String body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String code = parseQuery(body).get("code");
+        if (code == null) {
+            send(exchange, 400, "application/json", "{\"error\":\"invalid_request\"}");
+            return;
+        }
+        simulateLatency();
+        // access_token chính là email (đã encode) để /userinfo khỏi cần lưu trạng thái
+        String token = URLEncoder.encode(code, StandardCharsets.UTF_8);
+        send(exchange, 200, "application/json",
+                "{\"access_token\":\"" + token + "\",\"token_type\":\"Bearer\",\"expires_in\":3600}");
+    }
+
+    private void handleUserInfo(HttpExchange exchange) throws IOException {
+        String auth = exchange.getRequestHeaders().getFirst("Authorization");
+        if (auth == null || !auth.startsWith("Bearer ")) {
+            send(exchange, 401, "application/json", "{\"error\":\"invalid_token\"}");
+            return;
+        }
+        simulateLatency();
+        String email = URLDecoder.decode(auth.substring(7), StandardCharsets.UTF_8);
+        String name = email.contains("@") ? email.substring(0, email.indexOf('@')) : email;
+        send(exchange, 200, "application/json",
+                "{\"email\":\"" + email + "\",\"name\":\"" + name + "\",\"email_verified\":true}");
+    }
+
+    private void simulateLatency() {
+        if (latencyMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + ";charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        long latencyMs = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        new StubIdentityProvider(port, latencyMs).start();
+    }
+}